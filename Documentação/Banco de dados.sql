@@ -44,6 +44,21 @@ create table tab_usuarios(
     primary key(email)
 );
 
+#alteracoes de esquema posteriores (indices, colunas) ficam em Projeto/src/migracoes e sao aplicadas
+#pela aplicacao ao iniciar (MigracoesBanco), registradas em tab_migracoes; os indices abaixo tambem estao na V001
+
+#indices da busca de reservas (BuscaReservas)
+create fulltext index ft_clientes_nome on tab_clientes(nome);
+create fulltext index ft_veiculos_busca on tab_veiculos(marca, modelo, cor);
+create index idx_reservas_placa on tab_reservas(placa);
+#indice da varredura de atrasos (VarreduraAtrasos) e da devolucao
+create index idx_reservas_situacao_entrega on tab_reservas(situacao, data_entrega);
+#indice da disponibilidade por periodo (DisponibilidadeVeiculos / ServicoReserva)
+create index idx_reservas_veiculo_situacao on tab_reservas(id_veiculo, situacao);
+
+#tab_veiculos.quantidade e o estoque restante (as reservas retiram e as devolucoes devolvem uma unidade);
+#a frota fica na coluna frota, criada e preenchida pela migracao V005 ao iniciar a aplicacao
+
 #dados para testes
 insert into tab_usuarios values ('admin', 'admin', 'ADM', 1, 'Admin');
 
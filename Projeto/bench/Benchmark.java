@@ -0,0 +1,191 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Mini-harness de microbenchmarks do Loca Mais (sem dependências: o projeto não usa
+ * Maven/Gradle, então o JMH não está disponível).
+ * <p>
+ * Segue o mesmo modelo do JMH no modo "tempo médio":
+ * <ul>
+ * <li>Rodadas de aquecimento (descartadas) para o JIT compilar o caminho medido.</li>
+ * <li>Rodadas de medição de duração fixa; cada rodada calibra quantas operações cabem nela
+ * e registra o tempo médio por operação.</li>
+ * <li>Os resultados são entregues a {@link #consumir(Object)} para o JIT não eliminar o código medido.</li>
+ * <li>Bytes alocados por operação são medidos pela thread de medição (equivalente ao
+ * {@code -prof gc} do JMH), quando a JVM oferece essa contagem.</li>
+ * </ul>
+ * O resultado pode ser salvo em CSV e comparado com o de outra versão ({@link #salvarCsv}, {@link #compararCom}).
+ * @author Marcos Vinicius
+ */
+public class Benchmark {
+
+    /**
+     * Operação medida. Recebe o número da operação (útil para alternar entradas).
+     */
+    @FunctionalInterface
+    public interface Operacao {
+        Object executar(long i) throws Exception;
+    }
+
+    /**
+     * Tempo médio por operação de um caso, com desvio padrão entre as rodadas de medição.
+     * {@code bytesPorOp} é negativo se a JVM não mede alocação por thread.
+     */
+    public record Resultado(String nome, double nsPorOp, double desvioNs, long operacoes, double bytesPorOp) {
+        double opsPorSegundo() {
+            return 1e9 / nsPorOp;
+        }
+    }
+
+    private record Caso(String nome, Operacao operacao) { }
+
+    private static volatile Object sumidouro;
+
+    private final int rodadasAquecimento;
+    private final int rodadasMedicao;
+    private final long duracaoRodadaNs;
+    private final List<Caso> casos = new ArrayList<>();
+
+    public Benchmark(int rodadasAquecimento, int rodadasMedicao, long duracaoRodadaMs) {
+        this.rodadasAquecimento = rodadasAquecimento;
+        this.rodadasMedicao = rodadasMedicao;
+        this.duracaoRodadaNs = duracaoRodadaMs * 1_000_000L;
+    }
+
+    public void adicionar(String nome, Operacao operacao) {
+        casos.add(new Caso(nome, operacao));
+    }
+
+    /**
+     * Impede que o JIT descarte o resultado da operação medida (equivalente ao Blackhole do JMH).
+     */
+    public static void consumir(Object valor) {
+        sumidouro = valor;
+    }
+
+    /**
+     * Executa os casos cujo nome contém {@code filtro} (null = todos), imprimindo cada resultado.
+     * Um caso que falha é informado e pulado.
+     */
+    public List<Resultado> executar(String filtro, PrintStream saida) throws Exception {
+        List<Resultado> resultados = new ArrayList<>();
+        saida.printf(Locale.ROOT, "%-45s %14s %12s %16s %12s%n", "caso", "ns/op", "± ns", "ops/s", "B/op");
+        for (Caso caso : casos) {
+            if (filtro != null && !caso.nome().contains(filtro)) continue;
+            Resultado r;
+            try {
+                r = medir(caso);
+            } catch (Exception | LinkageError e) {
+                // Ex: caso novo rodando contra as classes de uma versão anterior
+                saida.printf(Locale.ROOT, "%-45s falhou: %s%n", caso.nome(), e);
+                continue;
+            }
+            resultados.add(r);
+            saida.printf(Locale.ROOT, "%-45s %14.1f %12.1f %16.0f %12.1f%n", r.nome(), r.nsPorOp(), r.desvioNs(), r.opsPorSegundo(), r.bytesPorOp());
+        }
+        return resultados;
+    }
+
+    private Resultado medir(Caso caso) throws Exception {
+        long lote = calibrar(caso.operacao());
+        for (int i = 0; i < rodadasAquecimento; i++) rodada(caso.operacao(), lote, new long[1]);
+
+        double[] amostras = new double[rodadasMedicao];
+        long operacoes = 0;
+        long alocadoAntes = bytesAlocados();
+        for (int i = 0; i < rodadasMedicao; i++) {
+            long[] feitas = new long[1];
+            long ns = rodada(caso.operacao(), lote, feitas);
+            amostras[i] = (double) ns / feitas[0];
+            operacoes += feitas[0];
+        }
+        long alocadoDepois = bytesAlocados();
+        double bytesPorOp = alocadoAntes < 0 ? -1 : (double) (alocadoDepois - alocadoAntes) / operacoes;
+
+        double media = 0;
+        for (double a : amostras) media += a;
+        media /= amostras.length;
+        double variancia = 0;
+        for (double a : amostras) variancia += (a - media) * (a - media);
+        double desvio = amostras.length > 1 ? Math.sqrt(variancia / (amostras.length - 1)) : 0;
+        return new Resultado(caso.nome(), media, desvio, operacoes, bytesPorOp);
+    }
+
+    // Bytes alocados pela thread atual desde o início (-1 se a JVM não suportar)
+    private static long bytesAlocados() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx && mx.isThreadAllocatedMemorySupported()) {
+            return mx.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        }
+        return -1;
+    }
+
+    // Quantas operações executar entre leituras do relógio (~1 ms por lote)
+    private static long calibrar(Operacao op) throws Exception {
+        long lote = 1;
+        while (true) {
+            long inicio = System.nanoTime();
+            for (long i = 0; i < lote; i++) consumir(op.executar(i));
+            long ns = System.nanoTime() - inicio;
+            if (ns >= 1_000_000L || lote >= (1L << 30)) return lote;
+            lote *= 2;
+        }
+    }
+
+    // Executa lotes até completar a duração da rodada; devolve o tempo gasto e, em feitas[0], as operações
+    private long rodada(Operacao op, long lote, long[] feitas) throws Exception {
+        long inicio = System.nanoTime();
+        long fim = inicio + duracaoRodadaNs;
+        long i = 0, agora;
+        do {
+            for (long j = 0; j < lote; j++, i++) consumir(op.executar(i));
+            agora = System.nanoTime();
+        } while (agora < fim);
+        feitas[0] = i;
+        return agora - inicio;
+    }
+
+    /**
+     * Salva os resultados em CSV ({@code caso;ns_por_op;desvio_ns;operacoes;bytes_por_op}).
+     */
+    public static void salvarCsv(List<Resultado> resultados, Path arquivo) throws IOException {
+        List<String> linhas = new ArrayList<>();
+        linhas.add("caso;ns_por_op;desvio_ns;operacoes;bytes_por_op");
+        for (Resultado r : resultados) {
+            linhas.add(String.format(Locale.ROOT, "%s;%.3f;%.3f;%d;%.1f", r.nome(), r.nsPorOp(), r.desvioNs(), r.operacoes(), r.bytesPorOp()));
+        }
+        Files.write(arquivo, linhas, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compara com um CSV de outra versão. A diferença só é marcada como significativa quando
+     * supera a soma dos desvios das duas medições.
+     */
+    public static void compararCom(List<Resultado> resultados, Path base, PrintStream saida) throws IOException {
+        Map<String, double[]> anteriores = new LinkedHashMap<>();
+        List<String> linhas = Files.readAllLines(base, StandardCharsets.UTF_8);
+        for (String linha : linhas.subList(1, linhas.size())) {
+            String[] c = linha.split(";");
+            double bytes = c.length > 4 ? Double.parseDouble(c[4]) : -1; // CSVs antigos não têm a coluna
+            anteriores.put(c[0], new double[]{Double.parseDouble(c[1]), Double.parseDouble(c[2]), bytes});
+        }
+
+        saida.printf(Locale.ROOT, "%n%-45s %14s %14s %9s %12s %12s%n", "caso", "base ns/op", "atual ns/op", "variação", "base B/op", "atual B/op");
+        for (Resultado r : resultados) {
+            double[] a = anteriores.get(r.nome());
+            if (a == null) continue;
+            double variacao = (r.nsPorOp() - a[0]) / a[0] * 100;
+            boolean significativa = Math.abs(r.nsPorOp() - a[0]) > r.desvioNs() + a[1];
+            saida.printf(Locale.ROOT, "%-45s %14.1f %14.1f %+8.1f%% %12.1f %12.1f%s%n", r.nome(), a[0], r.nsPorOp(), variacao,
+                    a[2], r.bytesPorOp(), significativa ? "" : " (ruído)");
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Casos de benchmark das consultas de cada tela, executadas como a aplicação faz:
+ * conexão emprestada de um {@link PoolConexoes} (com cache de statements) e DAO.
+ * <p>
+ * O projeto não tem banco embarcado (só o driver do MySQL), então os casos rodam contra
+ * uma base MySQL descartável indicada por {@code -Dbench.url} (padrão: {@code locamais_bench}
+ * em localhost), criada com o script {@code Documentação/Banco de dados.sql}. Se a base estiver
+ * vazia, {@link #popular} gera dados sintéticos determinísticos para que as medições de versões
+ * diferentes sejam comparáveis.
+ * @author Marcos Vinicius
+ */
+public class BenchmarksConsultas {
+    public static final String URL_PADRAO = "jdbc:mysql://localhost:3306/locamais_bench?useServerPrepStmts=true&rewriteBatchedStatements=true";
+
+    private static final int CLIENTES = 20_000;
+    private static final int VEICULOS = 200;
+    private static final int RESERVAS = 200_000;
+    private static final String[] MARCAS = {"Fiat", "Volkswagen", "Jeep", "Audi", "Chevrolet", "Toyota", "Honda", "Renault"};
+    private static final String[] MODELOS = {"Mobi", "Polo", "Compass", "A3", "Onix", "Corolla", "Civic", "Kwid", "Toro", "Argo"};
+    private static final String[] CORES = {"Branco", "Preto", "Cinza", "Prata", "Vermelho", "Azul"};
+    private static final String[] NOMES = {"Maria", "João", "Ana", "Pedro", "Lucas", "Juliana", "Carlos", "Fernanda"};
+    private static final String[] SOBRENOMES = {"Silva", "Souza", "Oliveira", "Santos", "Lima", "Pereira", "Costa"};
+
+    public static PoolConexoes criarPool() {
+        String url = System.getProperty("bench.url", URL_PADRAO);
+        return new PoolConexoes(url, System.getProperty("bench.usuario", "root"), System.getProperty("bench.senha", ""),
+                1, 1, 300_000, 600_000, 5_000, 64);
+    }
+
+    public static void registrar(Benchmark b, PoolConexoes pool) {
+        // Dashboard
+        b.adicionar("db.dashboard.veiculos", i -> comConexao(pool, c -> new VeiculoDAO(c).listar(VeiculoDAO.Filtro.GERAL, null)));
+        b.adicionar("db.dashboard.veiculos.marca", i -> comConexao(pool, c -> new VeiculoDAO(c).listar(VeiculoDAO.Filtro.MARCA, MARCAS[(int) (i % MARCAS.length)])));
+        // Clientes
+        b.adicionar("db.clientes.listar", i -> comConexao(pool, c -> new ClienteDAO(c).listar(ClienteDAO.Filtro.GERAL, null)));
+        b.adicionar("db.clientes.nome", i -> comConexao(pool, c -> new ClienteDAO(c).listar(ClienteDAO.Filtro.NOME, NOMES[(int) (i % NOMES.length)])));
+        b.adicionar("db.clientes.buscarPorCpf", i -> comConexao(pool, c -> new ClienteDAO(c).buscarPorCpf(gerarCpf((int) (i % CLIENTES)))));
+        // Nova reserva
+        b.adicionar("db.reserva.ocupacoes", i -> comConexao(pool, c -> new ReservaDAO(c).listarOcupacoes(null)));
+        // Histórico
+        b.adicionar("db.historico.contar", i -> comConexao(pool, c -> new ReservaDAO(c).contar(ReservaDAO.Filtro.TODOS)));
+        b.adicionar("db.historico.primeiraPagina", i -> comConexao(pool, c -> new ReservaDAO(c).buscarPagina(ReservaDAO.Filtro.TODOS, null, ReservaTableModel.TAMANHO_PAGINA)));
+        b.adicionar("db.historico.ancora+1000", i -> comConexao(pool, c -> new ReservaDAO(c).buscarAncora(ReservaDAO.Filtro.TODOS, null, 1000)));
+        b.adicionar("db.historico.busca.cpf", i -> buscar(pool, gerarCpf((int) (i % CLIENTES))));
+        b.adicionar("db.historico.busca.placa", i -> buscar(pool, gerarPlaca((int) (i % RESERVAS))));
+        b.adicionar("db.historico.busca.texto", i -> buscar(pool, MODELOS[(int) (i % MODELOS.length)]));
+        // Busca explícita incluindo tab_reservas_arquivo (ArquivoReservas)
+        b.adicionar("db.historico.arquivo.cpf", i -> buscar(pool, gerarCpf((int) (i % CLIENTES)), true));
+        // Recálculo dos indicadores do Dashboard
+        b.adicionar("db.indicadores.contarAbertas", i -> comConexao(pool, c -> new ReservaDAO(c).contarAbertas(java.time.LocalDate.now())));
+        // Varredura de atrasos (idempotente: após a primeira execução mede o UPDATE sem linhas a alterar)
+        b.adicionar("db.atrasos.marcar", i -> comConexao(pool, c -> new ReservaDAO(c).marcarAtrasadas(java.time.LocalDate.now())));
+        // Login
+        b.adicionar("db.login.autenticar", i -> comConexao(pool, c -> new UsuarioDAO(c).autenticar("admin", "admin")));
+    }
+
+    @FunctionalInterface
+    private interface Consulta {
+        Object executar(Connection c) throws Exception;
+    }
+
+    private static Object comConexao(PoolConexoes pool, Consulta consulta) throws Exception {
+        try (Connection c = pool.obter()) {
+            return consulta.executar(c);
+        }
+    }
+
+    // Busca do histórico: conta e traz a primeira página, como a tela faz ao buscar
+    private static Object buscar(PoolConexoes pool, String texto) throws Exception {
+        return buscar(pool, texto, false);
+    }
+
+    private static Object buscar(PoolConexoes pool, String texto, boolean comArquivo) throws Exception {
+        ReservaDAO.Filtro filtro = BuscaReservas.montarFiltro(texto, comArquivo);
+        return comConexao(pool, c -> {
+            ReservaDAO dao = new ReservaDAO(c);
+            dao.contar(filtro);
+            return dao.buscarPagina(filtro, null, ReservaTableModel.TAMANHO_PAGINA);
+        });
+    }
+
+    /**
+     * Gera dados sintéticos (sempre os mesmos) se a base ainda não tiver reservas.
+     */
+    public static void popular(PoolConexoes pool) throws SQLException {
+        try (Connection c = pool.obter(); Statement st = c.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM tab_reservas");
+            if (rs.next() && rs.getInt(1) > 0) return;
+
+            System.out.println("Populando base de benchmark (" + CLIENTES + " clientes, " + VEICULOS
+                    + " veículos, " + RESERVAS + " reservas)...");
+            Random aleatorio = new Random(42);
+            c.setAutoCommit(false);
+
+            try (PreparedStatement pst = c.prepareStatement("INSERT INTO tab_veiculos (marca, modelo, cor, ano, quantidade) VALUES (?,?,?,?,?)")) {
+                for (int i = 0; i < VEICULOS; i++) {
+                    pst.setString(1, MARCAS[i % MARCAS.length]);
+                    pst.setString(2, MODELOS[i % MODELOS.length]);
+                    pst.setString(3, CORES[i % CORES.length]);
+                    pst.setInt(4, 2018 + i % 9);
+                    pst.setInt(5, 1 + aleatorio.nextInt(15));
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+            }
+            try (PreparedStatement pst = c.prepareStatement("INSERT INTO tab_clientes (nome, cpf, data_nasc) VALUES (?,?,?)")) {
+                for (int i = 0; i < CLIENTES; i++) {
+                    pst.setString(1, NOMES[aleatorio.nextInt(NOMES.length)] + " " + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)] + " " + i);
+                    pst.setString(2, gerarCpf(i));
+                    pst.setDate(3, java.sql.Date.valueOf(java.time.LocalDate.of(1950, 1, 1).plusDays(aleatorio.nextInt(20_000))));
+                    pst.addBatch();
+                    if (i % 5_000 == 4_999) pst.executeBatch();
+                }
+                pst.executeBatch();
+            }
+            int idVeiculo = primeiroId(c, "tab_veiculos"), idCliente = primeiroId(c, "tab_clientes");
+            try (PreparedStatement pst = c.prepareStatement("INSERT INTO tab_reservas (id_veiculo, id_cliente, data_reserva, data_entrega, situacao, placa) VALUES (?,?,?,?,?,?)")) {
+                java.time.LocalDate inicio = java.time.LocalDate.of(2020, 1, 1);
+                for (int i = 0; i < RESERVAS; i++) {
+                    java.time.LocalDate retirada = inicio.plusDays(aleatorio.nextInt(2_000));
+                    pst.setInt(1, idVeiculo + aleatorio.nextInt(VEICULOS));
+                    pst.setInt(2, idCliente + aleatorio.nextInt(CLIENTES));
+                    pst.setDate(3, java.sql.Date.valueOf(retirada));
+                    pst.setDate(4, java.sql.Date.valueOf(retirada.plusDays(1 + aleatorio.nextInt(14))));
+                    pst.setString(5, aleatorio.nextInt(10) == 0 ? "Utilizando" : "Entregue");
+                    pst.setString(6, gerarPlaca(i));
+                    pst.addBatch();
+                    if (i % 5_000 == 4_999) pst.executeBatch();
+                }
+                pst.executeBatch();
+            }
+            c.commit();
+        }
+    }
+
+    private static int primeiroId(Connection c, String tabela) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT MIN(id) FROM " + tabela);
+            return rs.next() ? rs.getInt(1) : 1;
+        }
+    }
+
+    /**
+     * CPF válido e determinístico para o índice informado (dígitos verificadores calculados).
+     */
+    static String gerarCpf(int n) {
+        int[] d = new int[11];
+        String base = String.format("%09d", 100_000_000 + n);
+        for (int i = 0; i < 9; i++) d[i] = base.charAt(i) - '0';
+        for (int v = 9; v <= 10; v++) {
+            int soma = 0;
+            for (int i = 0; i < v; i++) soma += d[i] * (v + 1 - i);
+            int r = 11 - soma % 11;
+            d[v] = r >= 10 ? 0 : r;
+        }
+        StringBuilder sb = new StringBuilder(11);
+        for (int x : d) sb.append(x);
+        return sb.toString();
+    }
+
+    // Placa no padrão Mercosul (ABC1D23), determinística
+    static String gerarPlaca(int n) {
+        char[] p = new char[7];
+        p[0] = (char) ('A' + n % 26);
+        p[1] = (char) ('A' + n / 26 % 26);
+        p[2] = (char) ('A' + n / 676 % 26);
+        p[3] = (char) ('0' + n % 10);
+        p[4] = (char) ('A' + n / 10 % 26);
+        p[5] = (char) ('0' + n / 7 % 10);
+        p[6] = (char) ('0' + n / 3 % 10);
+        return new String(p);
+    }
+}
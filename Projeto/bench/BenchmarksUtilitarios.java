@@ -0,0 +1,126 @@
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Casos de benchmark dos caminhos quentes que não dependem do banco:
+ * validação/formatação de CPF, conversão de datas, busca de textos traduzidos, o custo da medição
+ * de consultas ({@link MetricasConsultas}), o mapeamento de uma linha do histórico
+ * (ResultSet → {@link ReservaDetalhe} → linha da JTable) e a disponibilidade por período
+ * ({@link DisponibilidadeVeiculos}) e o diário de eventos ({@link DiarioEventos}).
+ * @author Marcos Vinicius
+ */
+public class BenchmarksUtilitarios {
+
+    private static final String[] CPFS_VALIDOS = {"52998224725", "11144477735", "39053344705", "98765432100"};
+    private static final String[] CPFS_FORMATADOS = {"529.982.247-25", "111.444.777-35", "390.533.447-05", "987.654.321-00"};
+    private static final String[] CPFS_INVALIDOS = {"52998224724", "11111111111", "123", "abc.def.ghi-jk"};
+    private static final String[] CHAVES = {"col.id", "col.name", "col.cpf", "menu.back", "msg.loading", "chave.inexistente"};
+
+    public static void registrar(Benchmark b) {
+        b.adicionar("cpf.isCPF.valido", i -> ValidadorCPF.isCPF(CPFS_VALIDOS[(int) (i & 3)]));
+        b.adicionar("cpf.isCPF.formatado", i -> ValidadorCPF.isCPF(CPFS_FORMATADOS[(int) (i & 3)]));
+        b.adicionar("cpf.isCPF.invalido", i -> ValidadorCPF.isCPF(CPFS_INVALIDOS[(int) (i & 3)]));
+        b.adicionar("cpf.formatarCPF", i -> ValidadorCPF.formatarCPF(CPFS_VALIDOS[(int) (i & 3)]));
+        b.adicionar("cpf.paraChave+isValida", i -> ValidadorCPF.isValida(ValidadorCPF.paraChave(CPFS_FORMATADOS[(int) (i & 3)])));
+        b.adicionar("cpf.formatar(chave)", i -> ValidadorCPF.formatar(52998224725L + (i & 3)));
+        String[] pagina = new String[ReservaTableModel.TAMANHO_PAGINA];
+        for (int i = 0; i < pagina.length; i++) pagina[i] = CPFS_VALIDOS[i & 3];
+        b.adicionar("cpf.formatarTodos(pagina)", i -> ValidadorCPF.formatarTodos(pagina));
+
+        String[] datas = {"25/12/2023", "01/01/2000", "29/02/2024", "15/08/1990"};
+        java.sql.Date[] datasSql = new java.sql.Date[datas.length];
+        for (int i = 0; i < datas.length; i++) datasSql[i] = java.sql.Date.valueOf("2024-0" + (i + 1) + "-1" + i);
+        b.adicionar("data.converterEValidarData", i -> DateUtil.converterEValidarData(datas[(int) (i & 3)]));
+        b.adicionar("data.formatarData", i -> DateUtil.formatarData(datasSql[(int) (i & 3)]));
+        java.sql.Date[] coluna = new java.sql.Date[ReservaTableModel.TAMANHO_PAGINA];
+        for (int i = 0; i < coluna.length; i++) coluna[i] = datasSql[i / 25];
+        b.adicionar("data.formatarTodas(pagina)", i -> DateUtil.formatarTodas(coluna));
+
+        b.adicionar("i18n.get", i -> LanguageManager.get(CHAVES[(int) (i % CHAVES.length)]));
+
+        // Custo que a medição acrescenta a cada chamada ao banco
+        java.util.List<Integer> resultado = java.util.List.of(1, 2, 3);
+        b.adicionar("metricas.medir", i -> MetricasConsultas.medir("bench.medir", () -> resultado));
+
+        ResultSet linha = resultSetFixo();
+        b.adicionar("reservas.mapearLinha", i -> ReservaTableModel.paraLinha(ReservaDAO.mapear(linha)));
+
+        // Frota de 200 veículos com 20.000 reservas em aberto espalhadas pelos próximos 180 dias
+        LocalDate hoje = LocalDate.now();
+        List<ReservaDAO.Ocupacao> ocupacoes = ocupacoesSinteticas(hoje, 200, 20_000);
+        b.adicionar("disponibilidade.indexar(20k)", i -> DisponibilidadeVeiculos.indexar(ocupacoes, hoje));
+        DisponibilidadeVeiculos.Indice indice = DisponibilidadeVeiculos.indexar(ocupacoes, hoje);
+        b.adicionar("disponibilidade.livres(7 dias)", i -> {
+            LocalDate retirada = hoje.plusDays(i % 170);
+            return DisponibilidadeVeiculos.livres(indice, (int) (i % 200) + 1, 150, retirada, retirada.plusDays(7));
+        });
+        b.adicionar("disponibilidade.frota(200 x 7 dias)", i -> {
+            LocalDate retirada = hoje.plusDays(i % 170);
+            int livres = 0;
+            for (int id = 1; id <= 200; id++) livres += DisponibilidadeVeiculos.livres(indice, id, 150, retirada, retirada.plusDays(7));
+            return livres;
+        });
+
+        // Diário de eventos em diretório temporário: acréscimo com fsync e leitura sequencial
+        try {
+            java.nio.file.Path dirDiario = java.nio.file.Files.createTempDirectory("bench-diario");
+            DiarioEventos diario = new DiarioEventos(dirDiario, 8 * 1024 * 1024);
+            Map<String, Object> evento = DiarioEventos.dados("id", 123456, "cliente", 42, "veiculo", 7, "placa", "ABC-1D23",
+                    "retirada", "2026-01-10", "devolucao", "2026-01-15");
+            b.adicionar("diario.acrescentar(fsync)", i -> diario.acrescentar(DiarioEventos.Tipo.RESERVA_CRIADA, evento));
+            java.nio.file.Path dirLeitura = java.nio.file.Files.createTempDirectory("bench-diario-leitura");
+            DiarioEventos cheio = new DiarioEventos(dirLeitura, 8 * 1024 * 1024);
+            for (int n = 0; n < 10_000; n++) cheio.acrescentar(DiarioEventos.Tipo.RESERVA_CRIADA, evento);
+            b.adicionar("diario.reproduzir(10k)", i -> DiarioEventos.reproduzir(dirLeitura, 1, e -> { }));
+        } catch (java.io.IOException e) {
+            System.err.println("Casos do diário ignorados: " + e.getMessage());
+        }
+    }
+
+    static List<ReservaDAO.Ocupacao> ocupacoesSinteticas(LocalDate hoje, int veiculos, int reservas) {
+        Random r = new Random(42);
+        List<ReservaDAO.Ocupacao> lista = new ArrayList<>(reservas);
+        for (int n = 0; n < reservas; n++) {
+            LocalDate retirada = hoje.plusDays(r.nextInt(190) - 10);
+            LocalDate entrega = retirada.plusDays(1 + r.nextInt(14));
+            lista.add(new ReservaDAO.Ocupacao(1 + r.nextInt(veiculos), retirada, entrega, r.nextInt(100) == 0));
+        }
+        return lista;
+    }
+
+    /**
+     * ResultSet de uma linha fixa do histórico (mesmas colunas de {@link ReservaDAO#SQL_COLUNAS}),
+     * para medir só o mapeamento, sem o custo do driver.
+     */
+    static ResultSet resultSetFixo() {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("id", 4821);
+        valores.put("id_cliente", 77);
+        valores.put("id_veiculo", 3);
+        valores.put("cpf", "52998224725");
+        valores.put("nome", "Maria da Silva");
+        valores.put("marca", "Fiat");
+        valores.put("modelo", "Mobi");
+        valores.put("cor", "Branco");
+        valores.put("placa", "ABC1D23");
+        valores.put("data_reserva", java.sql.Date.valueOf("2025-03-10"));
+        valores.put("data_entrega", java.sql.Date.valueOf("2025-03-17"));
+        valores.put("situacao", "Utilizando");
+
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getInt" -> (Integer) valores.get((String) args[0]);
+                    case "getString" -> (String) valores.get((String) args[0]);
+                    case "getDate" -> (java.sql.Date) valores.get((String) args[0]);
+                    case "next" -> true;
+                    case "wasNull" -> false;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
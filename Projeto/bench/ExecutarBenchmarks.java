@@ -0,0 +1,55 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ponto de entrada dos benchmarks.
+ * <p>
+ * Uso: {@code java ExecutarBenchmarks [util|db|todos] [--filtro texto] [--csv saida.csv] [--base anterior.csv]}
+ * <ul>
+ * <li>{@code util}: só os casos sem banco ({@link BenchmarksUtilitarios}). É o padrão.</li>
+ * <li>{@code db}: consultas das telas ({@link BenchmarksConsultas}); exige {@code -Dbench.url}.</li>
+ * <li>{@code --csv}: salva o resultado; {@code --base}: compara com o CSV de outra versão.</li>
+ * </ul>
+ * Rodadas: {@code -Dbench.aquecimento} (padrão 5), {@code -Dbench.medicao} (padrão 5),
+ * {@code -Dbench.rodadaMs} (padrão 1000).
+ * @author Marcos Vinicius
+ */
+public class ExecutarBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String grupo = "util";
+        String filtro = null;
+        Path csv = null, base = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filtro" -> filtro = args[++i];
+                case "--csv" -> csv = Path.of(args[++i]);
+                case "--base" -> base = Path.of(args[++i]);
+                default -> grupo = args[i];
+            }
+        }
+
+        Benchmark b = new Benchmark(Integer.getInteger("bench.aquecimento", 5), Integer.getInteger("bench.medicao", 5),
+                Long.getLong("bench.rodadaMs", 1000L));
+        PoolConexoes pool = null;
+        if (!grupo.equals("db")) BenchmarksUtilitarios.registrar(b);
+        if (!grupo.equals("util")) {
+            pool = BenchmarksConsultas.criarPool();
+            BenchmarksConsultas.popular(pool);
+            // Mesmos índices de uma estação atualizada
+            try (java.sql.Connection c = pool.obter()) { MigracoesBanco.aplicar(c); }
+            BenchmarksConsultas.registrar(b, pool);
+        }
+
+        List<Benchmark.Resultado> resultados = new ArrayList<>();
+        try {
+            resultados.addAll(b.executar(filtro, System.out));
+        } finally {
+            if (pool != null) pool.encerrar();
+        }
+        if (csv != null) Benchmark.salvarCsv(resultados, csv);
+        if (base != null) Benchmark.compararCom(resultados, base, System.out);
+        System.exit(0); // Threads de manutenção do pool / executores
+    }
+}
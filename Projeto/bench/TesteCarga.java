@@ -0,0 +1,392 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste de carga: N atendentes simultâneos repetindo os fluxos do balcão contra uma base MySQL
+ * descartável, para saber quantos balcões uma instância do banco aguenta.
+ * <p>
+ * Uso: {@code java TesteCarga [--atendentes 5,10,20] [--duracao 60] [--aquecimento 10] [--pensar 1000]
+ * [--mix login=2,dashboard=10,cpf=25,reserva=15,devolucao=10,historico=38] [--csv carga.csv]}
+ * <ul>
+ * <li>Cada atendente é uma thread virtual que sorteia a próxima operação pelos pesos do mix e
+ * espera um tempo de reflexão exponencial com média de {@code --pensar} ms.</li>
+ * <li>As operações seguem o caminho da aplicação: {@code Main.Conexao} (apontada para
+ * {@code -Dbench.url}), os DAOs e o {@link ServicoReserva} na reserva e na devolução. A devolução
+ * usa reservas criadas por qualquer atendente durante a etapa.</li>
+ * <li>O Dashboard é medido com o cache frio (veículos + contagem dos indicadores), que é o custo
+ * de cada estação ao abrir a tela.</li>
+ * <li>Com uma lista em {@code --atendentes} cada quantidade é uma etapa, na ordem; amostras do
+ * aquecimento de cada etapa são descartadas.</li>
+ * </ul>
+ * Antes da primeira etapa as reservas em aberto com entrega vencida (geradas por
+ * {@link BenchmarksConsultas#popular}) são encerradas: elas ocupariam a frota inteira e toda
+ * reserva seria recusada.
+ * <p>
+ * Relatório de cada etapa: vazão, p50/p99 por operação, deadlocks e esperas por bloqueio esgotadas
+ * (contadores do InnoDB, incluindo as que o {@link ServicoReserva} repetiu) e violações de estoque:
+ * frota negativa ou dia com mais reservas em aberto do que a frota do veículo,
+ * verificadas a cada {@value #VERIFICACAO_MS} ms e ao fim da etapa.
+ * @author Marcos Vinicius
+ */
+public class TesteCarga {
+    private static final long VERIFICACAO_MS = 5_000;
+    private static final int HORIZONTE_DIAS = 60;
+    private static final int ANTECEDENCIA_MAXIMA = 30;
+    private static final int DIARIAS_MAXIMAS = 7;
+
+    enum Operacao { LOGIN, DASHBOARD, CPF, RESERVA, DEVOLUCAO, HISTORICO }
+
+    // Dados da base sorteados pelos atendentes
+    private record Base(int[] clientes, int[] veiculos, String[] modelos) { }
+
+    /**
+     * Pesos de cada operação, na ordem de {@link Operacao}.
+     */
+    record Mix(int[] pesos, int total) {
+        static Mix ler(String texto) {
+            int[] pesos = new int[Operacao.values().length];
+            for (String parte : texto.split(",")) {
+                String[] kv = parte.split("=");
+                if (kv.length != 2) throw new IllegalArgumentException("Mix inválido: " + parte);
+                pesos[Operacao.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = Integer.parseInt(kv[1].trim());
+            }
+            int total = Arrays.stream(pesos).sum();
+            if (total <= 0) throw new IllegalArgumentException("Mix sem operações: " + texto);
+            return new Mix(pesos, total);
+        }
+
+        Operacao sortear(ThreadLocalRandom rnd) {
+            int n = rnd.nextInt(total);
+            for (int i = 0; i < pesos.length; i++) {
+                if ((n -= pesos[i]) < 0) return Operacao.values()[i];
+            }
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Amostras de um atendente (sem sincronização: só a thread dele escreve).
+     */
+    static final class Registro {
+        final long[][] latencias = new long[Operacao.values().length][256];
+        final int[] quantidade = new int[Operacao.values().length];
+        final int[] erros = new int[Operacao.values().length];
+        int conflitos, confirmadas, esgotadas, semReserva;
+
+        void registrar(Operacao op, long nanos) {
+            int i = op.ordinal();
+            if (quantidade[i] == latencias[i].length) latencias[i] = Arrays.copyOf(latencias[i], quantidade[i] * 2);
+            latencias[i][quantidade[i]++] = nanos;
+        }
+    }
+
+    // Verificação do estoque em um instante
+    private record Estoque(int negativos, int acimaDaFrota) { }
+
+    public static void main(String[] args) throws Exception {
+        int[] atendentes = {10};
+        int duracaoS = 60, aquecimentoS = 10;
+        long pensarMs = 1_000;
+        Mix mix = Mix.ler("login=2,dashboard=10,cpf=25,reserva=15,devolucao=10,historico=38");
+        Path csv = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--atendentes" -> atendentes = Arrays.stream(args[++i].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+                case "--duracao" -> duracaoS = Integer.parseInt(args[++i]);
+                case "--aquecimento" -> aquecimentoS = Integer.parseInt(args[++i]);
+                case "--pensar" -> pensarMs = Long.parseLong(args[++i]);
+                case "--mix" -> mix = Mix.ler(args[++i]);
+                case "--csv" -> csv = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Argumento desconhecido: " + args[i]);
+            }
+        }
+        if (aquecimentoS >= duracaoS) throw new IllegalArgumentException("--aquecimento deve ser menor que --duracao");
+
+        // Main.Conexao lê a configuração no primeiro uso: uma conexão por atendente, como em estações separadas
+        System.setProperty("locamais.db.url", System.getProperty("bench.url", BenchmarksConsultas.URL_PADRAO));
+        System.setProperty("locamais.db.usuario", System.getProperty("bench.usuario", "root"));
+        System.setProperty("locamais.db.senha", System.getProperty("bench.senha", ""));
+        System.setProperty("locamais.db.conexoes", String.valueOf(Arrays.stream(atendentes).max().orElse(1) + 1));
+
+        BenchmarksConsultas.popular(Main.Conexao.getPool());
+        try (Connection c = conectar()) { MigracoesBanco.aplicar(c); }
+        Base base = carregarBase();
+        System.out.println("Reservas vencidas encerradas antes da carga: " + encerrarVencidas());
+        Estoque inicial = verificarEstoque();
+        if (inicial.negativos() > 0 || inicial.acimaDaFrota() > 0) {
+            System.out.println("Aviso: a base já começa com " + inicial.negativos() + " veículo(s) com frota negativa e "
+                    + inicial.acimaDaFrota() + " acima da frota");
+        }
+
+        try {
+            for (int n : atendentes) {
+                executarEtapa(n, duracaoS, aquecimentoS, pensarMs, mix, base, csv, System.out);
+            }
+        } finally {
+            Main.Conexao.getPool().encerrar();
+        }
+        System.exit(0); // Threads de manutenção do pool / executores
+    }
+
+    private static void executarEtapa(int atendentes, int duracaoS, int aquecimentoS, long pensarMs, Mix mix,
+                                      Base base, Path csv, PrintStream out) throws Exception {
+        out.printf("%n== %d atendente(s): %d s (%d s de aquecimento), reflexão média %d ms ==%n",
+                atendentes, duracaoS, aquecimentoS, pensarMs);
+        ConcurrentLinkedQueue<Integer> abertas = new ConcurrentLinkedQueue<>();
+        long inicio = System.nanoTime();
+        long inicioMedicao = inicio + aquecimentoS * 1_000_000_000L;
+        long fim = inicio + duracaoS * 1_000_000_000L;
+
+        long[] innodbAntes = lerContadoresInnodb();
+        List<Registro> registros = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < atendentes; i++) {
+            Registro r = new Registro();
+            registros.add(r);
+            threads.add(Thread.ofVirtual().name("atendente-" + i)
+                    .start(() -> atender(r, mix, pensarMs, base, abertas, inicioMedicao, fim)));
+        }
+
+        // Verificação periódica do estoque enquanto os atendentes trabalham
+        AtomicInteger piorNegativos = new AtomicInteger(), piorAcima = new AtomicInteger();
+        while (System.nanoTime() < fim) {
+            Thread.sleep(Math.min(VERIFICACAO_MS, Math.max(1, (fim - System.nanoTime()) / 1_000_000)));
+            acumular(verificarEstoque(), piorNegativos, piorAcima);
+        }
+        for (Thread t : threads) t.join();
+        acumular(verificarEstoque(), piorNegativos, piorAcima);
+        long[] innodbDepois = lerContadoresInnodb();
+
+        relatar(atendentes, duracaoS - aquecimentoS, registros, innodbAntes, innodbDepois,
+                piorNegativos.get(), piorAcima.get(), csv, out);
+    }
+
+    private static void atender(Registro r, Mix mix, long pensarMs, Base base, ConcurrentLinkedQueue<Integer> abertas,
+                                long inicioMedicao, long fim) {
+        ServicoReserva servico = new ServicoReserva();
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (System.nanoTime() < fim) {
+            Operacao op = mix.sortear(rnd);
+            long t0 = System.nanoTime();
+            boolean medir = t0 >= inicioMedicao;
+            try {
+                if (executar(op, r, servico, rnd, base, abertas, medir) && medir) r.registrar(op, System.nanoTime() - t0);
+            } catch (SQLException e) {
+                if (medir) {
+                    r.erros[op.ordinal()]++;
+                    if (conflito(e)) r.conflitos++;
+                }
+            }
+            pensar(rnd, pensarMs);
+        }
+    }
+
+    // false quando não havia o que fazer (devolução sem reserva aberta): nada a medir
+    private static boolean executar(Operacao op, Registro r, ServicoReserva servico, ThreadLocalRandom rnd, Base base,
+                                    ConcurrentLinkedQueue<Integer> abertas, boolean medir) throws SQLException {
+        switch (op) {
+            case LOGIN -> {
+                try (Connection c = conectar()) { new UsuarioDAO(c).autenticar("admin", "admin"); }
+            }
+            case DASHBOARD -> {
+                try (Connection c = conectar()) {
+                    new VeiculoDAO(c).listar(VeiculoDAO.Filtro.GERAL, null);
+                    new ReservaDAO(c).contarAbertas(LocalDate.now());
+                }
+            }
+            case CPF -> {
+                try (Connection c = conectar()) {
+                    new ClienteDAO(c).buscarPorCpf(BenchmarksConsultas.gerarCpf(rnd.nextInt(base.clientes().length)));
+                }
+            }
+            case RESERVA -> {
+                LocalDate retirada = LocalDate.now().plusDays(rnd.nextInt(ANTECEDENCIA_MAXIMA + 1));
+                ServicoReserva.Pedido p = new ServicoReserva.Pedido(
+                        base.clientes()[rnd.nextInt(base.clientes().length)], base.veiculos()[rnd.nextInt(base.veiculos().length)],
+                        BenchmarksConsultas.gerarPlaca(rnd.nextInt(1_000_000)), retirada, retirada.plusDays(1 + rnd.nextInt(DIARIAS_MAXIMAS)));
+                ServicoReserva.Confirmacao confirmacao = servico.reservar(p);
+                if (confirmacao.resultado() == ServicoReserva.Resultado.CONFIRMADA) {
+                    abertas.add(confirmacao.idReserva());
+                    if (medir) r.confirmadas++;
+                } else if (medir) {
+                    r.esgotadas++;
+                }
+            }
+            case DEVOLUCAO -> {
+                Integer id = abertas.poll();
+                if (id == null) {
+                    if (medir) r.semReserva++;
+                    return false;
+                }
+                servico.devolver(id);
+            }
+            case HISTORICO -> {
+                String texto = switch (rnd.nextInt(3)) {
+                    case 0 -> BenchmarksConsultas.gerarCpf(rnd.nextInt(base.clientes().length));
+                    case 1 -> BenchmarksConsultas.gerarPlaca(rnd.nextInt(1_000_000));
+                    default -> base.modelos()[rnd.nextInt(base.modelos().length)];
+                };
+                ReservaDAO.Filtro filtro = BuscaReservas.montarFiltro(texto);
+                try (Connection c = conectar()) {
+                    ReservaDAO dao = new ReservaDAO(c);
+                    dao.contar(filtro);
+                    dao.buscarPagina(filtro, null, ReservaTableModel.TAMANHO_PAGINA);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void pensar(ThreadLocalRandom rnd, long mediaMs) {
+        if (mediaMs <= 0) return;
+        // Exponencial (chegadas de Poisson), limitada a 10x a média
+        long ms = (long) Math.min(-Math.log(1 - rnd.nextDouble()) * mediaMs, 10.0 * mediaMs);
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Connection conectar() throws SQLException {
+        Connection c = Main.Conexao.conectar();
+        if (c == null) throw new SQLException("Sem conexão com o banco");
+        return c;
+    }
+
+    private static boolean conflito(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException s && (s.getErrorCode() == 1213 || s.getErrorCode() == 1205 || "40001".equals(s.getSQLState()))) return true;
+        }
+        return false;
+    }
+
+    private static Base carregarBase() throws SQLException {
+        try (Connection c = conectar(); Statement st = c.createStatement()) {
+            int[] clientes = lerIds(st, "SELECT id FROM tab_clientes ORDER BY id");
+            int[] veiculos = lerIds(st, "SELECT id FROM tab_veiculos ORDER BY id");
+            List<String> modelos = new ArrayList<>();
+            ResultSet rs = st.executeQuery("SELECT DISTINCT modelo FROM tab_veiculos");
+            while (rs.next()) modelos.add(rs.getString(1));
+            if (clientes.length == 0 || veiculos.length == 0) throw new SQLException("Base sem clientes ou veículos");
+            return new Base(clientes, veiculos, modelos.toArray(new String[0]));
+        }
+    }
+
+    private static int[] lerIds(Statement st, String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        ResultSet rs = st.executeQuery(sql);
+        while (rs.next()) ids.add(rs.getInt(1));
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int encerrarVencidas() throws SQLException {
+        try (Connection c = conectar(); Statement st = c.createStatement()) {
+            return st.executeUpdate("UPDATE tab_reservas SET situacao = '" + ReservaDAO.ENTREGUE + "' WHERE situacao IN ('"
+                    + ReservaDAO.UTILIZANDO + "', '" + ReservaDAO.EM_ATRASO + "') AND data_entrega < CURDATE()");
+        }
+    }
+
+    // Veículos com frota negativa e com algum dia do horizonte ocupado além da frota
+    private static Estoque verificarEstoque() throws SQLException {
+        try (Connection c = conectar()) {
+            Map<Integer, Integer> frota = new HashMap<>();
+            for (Veiculo v : new VeiculoDAO(c).listar(VeiculoDAO.Filtro.GERAL, null)) frota.put(v.getId(), v.getQuantidade());
+            LocalDate hoje = LocalDate.now();
+            DisponibilidadeVeiculos.Indice indice = DisponibilidadeVeiculos.indexar(new ReservaDAO(c).listarOcupacoes(null), hoje);
+            int negativos = 0, acima = 0;
+            for (Map.Entry<Integer, Integer> e : frota.entrySet()) {
+                if (e.getValue() < 0) negativos++;
+                if (indice.ocupadas(e.getKey(), hoje, hoje.plusDays(HORIZONTE_DIAS)) > Math.max(0, e.getValue())) acima++;
+            }
+            return new Estoque(negativos, acima);
+        }
+    }
+
+    private static void acumular(Estoque e, AtomicInteger piorNegativos, AtomicInteger piorAcima) {
+        piorNegativos.accumulateAndGet(e.negativos(), Math::max);
+        piorAcima.accumulateAndGet(e.acimaDaFrota(), Math::max);
+    }
+
+    // {deadlocks, esperas esgotadas} desde a subida do servidor; -1 sem acesso ao information_schema
+    private static long[] lerContadoresInnodb() {
+        long[] contadores = {-1, -1};
+        try (Connection c = conectar(); Statement st = c.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT NAME, COUNT FROM information_schema.INNODB_METRICS WHERE NAME IN ('lock_deadlocks', 'lock_timeouts')");
+            while (rs.next()) contadores["lock_deadlocks".equals(rs.getString(1)) ? 0 : 1] = rs.getLong(2);
+        } catch (SQLException e) {
+            System.err.println("Contadores do InnoDB indisponíveis: " + e.getMessage());
+        }
+        return contadores;
+    }
+
+    private static void relatar(int atendentes, int segundos, List<Registro> registros, long[] innodbAntes, long[] innodbDepois,
+                                int negativos, int acimaDaFrota, Path csv, PrintStream out) throws IOException {
+        out.printf("%-10s %8s %9s %9s %9s %9s %7s%n", "operação", "n", "ops/s", "p50 ms", "p99 ms", "máx ms", "erros");
+        List<String> linhasCsv = new ArrayList<>();
+        long total = 0;
+        int conflitos = 0, confirmadas = 0, esgotadas = 0, semReserva = 0;
+        for (Operacao op : Operacao.values()) {
+            int i = op.ordinal(), n = 0, erros = 0;
+            for (Registro r : registros) { n += r.quantidade[i]; erros += r.erros[i]; }
+            long[] amostras = new long[n];
+            int pos = 0;
+            for (Registro r : registros) {
+                System.arraycopy(r.latencias[i], 0, amostras, pos, r.quantidade[i]);
+                pos += r.quantidade[i];
+            }
+            Arrays.sort(amostras);
+            total += n;
+            double vazao = (double) n / segundos;
+            double p50 = percentil(amostras, 0.50), p99 = percentil(amostras, 0.99), max = n == 0 ? 0 : amostras[n - 1] / 1e6;
+            out.printf(Locale.ROOT, "%-10s %8d %9.1f %9.2f %9.2f %9.2f %7d%n", op.name().toLowerCase(Locale.ROOT), n, vazao, p50, p99, max, erros);
+            linhasCsv.add(String.format(Locale.ROOT, "%d,%s,%d,%.2f,%.3f,%.3f,%.3f,%d",
+                    atendentes, op.name().toLowerCase(Locale.ROOT), n, vazao, p50, p99, max, erros));
+        }
+        for (Registro r : registros) {
+            conflitos += r.conflitos;
+            confirmadas += r.confirmadas;
+            esgotadas += r.esgotadas;
+            semReserva += r.semReserva;
+        }
+        out.printf(Locale.ROOT, "%-10s %8d %9.1f%n", "total", total, (double) total / segundos);
+        out.printf("Reservas: %d confirmada(s), %d recusada(s) por falta de unidade; %d devolução(ões) sem reserva aberta%n",
+                confirmadas, esgotadas, semReserva);
+        out.printf("Deadlocks: %s, esperas por bloqueio esgotadas: %s, conflitos que chegaram ao atendente: %d%n",
+                diferenca(innodbAntes[0], innodbDepois[0]), diferenca(innodbAntes[1], innodbDepois[1]), conflitos);
+        out.printf("Estoque: %d veículo(s) com frota negativa, %d com dia acima da frota (pior verificação)%s%n",
+                negativos, acimaDaFrota, negativos + acimaDaFrota > 0 ? "  <-- VIOLAÇÃO" : "");
+
+        if (csv != null) {
+            if (!Files.exists(csv)) linhasCsv.add(0, "atendentes,operacao,n,ops_s,p50_ms,p99_ms,max_ms,erros");
+            Files.write(csv, linhasCsv, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) return 0;
+        int i = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, i)] / 1e6;
+    }
+
+    private static String diferenca(long antes, long depois) {
+        return antes < 0 || depois < 0 ? "?" : String.valueOf(depois - antes);
+    }
+}
@@ -0,0 +1,124 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tarefa em segundo plano que move as reservas finalizadas ('Entregue' e 'Entregue com atrazo')
+ * antigas de tab_reservas para tab_reservas_arquivo, mantendo a tabela consultada pelo balcão
+ * pequena. O histórico ({@link ReservaViewFrame}) consulta só as reservas ativas por padrão e
+ * inclui o arquivo quando o atendente pede.
+ * <p>
+ * Regras:
+ * <ul>
+ * <li>Arquiva as reservas com entrega há mais de {@code -Dlocamais.arquivo.dias} dias (padrão 180).</li>
+ * <li>Cada lote ({@code -Dlocamais.arquivo.lote}, padrão 500) é uma transação curta: as linhas são
+ * bloqueadas, copiadas e removidas ({@link ReservaDAO#arquivarLote}); entre lotes há uma pausa para
+ * não disputar o banco com as reservas do balcão.</li>
+ * <li>Só uma estação arquiva por vez ({@code GET_LOCK}); as outras pulam a execução.</li>
+ * <li>Cada execução dura no máximo {@value #DURACAO_MAXIMA_MS} ms (abaixo do limite de vazamento do
+ * pool); um acúmulo grande, como na primeira execução, é arquivado ao longo das execuções seguintes.</li>
+ * </ul>
+ * Roda alguns minutos após o login e depois a cada {@code -Dlocamais.arquivo.intervalo} minutos
+ * (padrão 60; 0 desativa).
+ * @author Marcos Vinicius
+ */
+public class ArquivoReservas {
+    private static final int DIAS = Integer.getInteger("locamais.arquivo.dias", 180);
+    private static final int LOTE = Integer.getInteger("locamais.arquivo.lote", 500);
+    private static final long INTERVALO_MIN = Long.getLong("locamais.arquivo.intervalo", 60);
+    private static final long ATRASO_INICIAL_MIN = 5;
+    private static final long PAUSA_ENTRE_LOTES_MS = 200;
+    private static final long DURACAO_MAXIMA_MS = 20_000;
+    private static final String TRAVA = "locamais.arquivo";
+
+    private static final AtomicBoolean iniciado = new AtomicBoolean();
+
+    /**
+     * Agenda o arquivamento (chamadas seguintes não têm efeito).
+     */
+    public static void iniciar() {
+        if (INTERVALO_MIN <= 0 || DIAS <= 0 || !iniciado.compareAndSet(false, true)) return;
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "arquivo-reservas");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(ArquivoReservas::executarAgendado, ATRASO_INICIAL_MIN, INTERVALO_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Arquiva agora, em lotes, o que passou da idade configurada (até {@value #DURACAO_MAXIMA_MS} ms).
+     * @return Quantidade de reservas movidas (0 se outra estação estiver arquivando).
+     */
+    public static int executar() throws Exception {
+        LocalDate limite = LocalDate.now().minusDays(DIAS);
+        long fim = System.currentTimeMillis() + DURACAO_MAXIMA_MS;
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            if (!travar(conn)) return 0;
+            try {
+                int total = 0, movidas;
+                do {
+                    movidas = MetricasConsultas.medir("arquivo.lote", () -> moverLote(conn, limite), Integer::intValue);
+                    total += movidas;
+                    if (movidas == LOTE) pausar();
+                } while (movidas == LOTE && System.currentTimeMillis() < fim);
+                return total;
+            } finally {
+                liberar(conn);
+            }
+        }
+    }
+
+    private static int moverLote(Connection conn, LocalDate limite) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            int movidas = new ReservaDAO(conn).arquivarLote(limite, LOTE);
+            conn.commit();
+            return movidas;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static boolean travar(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT GET_LOCK('" + TRAVA + "', 0)");
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private static void liberar(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeQuery("SELECT RELEASE_LOCK('" + TRAVA + "')");
+        }
+    }
+
+    private static void pausar() throws SQLException {
+        try {
+            Thread.sleep(PAUSA_ENTRE_LOTES_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+
+    // Uma falha (ex: banco fora do ar) não pode cancelar as próximas execuções
+    private static void executarAgendado() {
+        try {
+            int movidas = executar();
+            if (movidas > 0) System.out.println("Arquivo de reservas: " + movidas + " reserva(s) finalizada(s) arquivada(s)");
+        } catch (Exception e) {
+            System.err.println("Arquivo de reservas falhou: " + e.getMessage());
+        }
+    }
+}
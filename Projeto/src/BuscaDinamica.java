@@ -0,0 +1,75 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Busca enquanto o usuário digita ("search-as-you-type") para os campos de busca das telas.
+ * <p>
+ * Para não disparar uma consulta por tecla:
+ * <ul>
+ * <li><strong>Debounce:</strong> cada alteração no texto reinicia um {@link Timer} do Swing;
+ * a busca só roda depois de {@link #ATRASO_MS} sem digitação.</li>
+ * <li><strong>Coalescência:</strong> se o texto (e o contexto, ex: filtro do combo) for igual
+ * ao da última busca disparada, nada é feito.</li>
+ * </ul>
+ * O cancelamento da consulta anterior ainda em andamento e o descarte de resultados fora de
+ * ordem ficam a cargo do {@link CarregadorAssincrono} da tela.
+ * @author Marcos Vinicius
+ */
+public class BuscaDinamica {
+    public static final int ATRASO_MS = 300;
+
+    private final JTextField campo;
+    private final Supplier<Object> contexto;
+    private final Consumer<String> buscar;
+    private final Timer timer;
+    private Object ultimaChave;
+
+    /**
+     * @param campo Campo de busca observado.
+     * @param buscar Executado na EDT com o texto atual quando a digitação para.
+     */
+    public BuscaDinamica(JTextField campo, Consumer<String> buscar) {
+        this(campo, () -> null, buscar);
+    }
+
+    /**
+     * @param campo Campo de busca observado.
+     * @param contexto Parte extra da chave de coalescência (ex: índice do filtro selecionado).
+     * @param buscar Executado na EDT com o texto atual quando a digitação para.
+     */
+    public BuscaDinamica(JTextField campo, Supplier<Object> contexto, Consumer<String> buscar) {
+        this.campo = campo;
+        this.contexto = contexto;
+        this.buscar = buscar;
+
+        timer = new Timer(ATRASO_MS, e -> disparar(false));
+        timer.setRepeats(false);
+
+        campo.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { timer.restart(); }
+            @Override public void removeUpdate(DocumentEvent e) { timer.restart(); }
+            @Override public void changedUpdate(DocumentEvent e) { }
+        });
+    }
+
+    /**
+     * Busca imediatamente, mesmo que o texto não tenha mudado (Enter, botão de busca).
+     */
+    public void executarAgora() {
+        disparar(true);
+    }
+
+    private void disparar(boolean forcar) {
+        timer.stop();
+        String texto = campo.getText();
+        Object chave = List.of(texto.trim(), Objects.requireNonNullElse(contexto.get(), ""));
+        if (!forcar && chave.equals(ultimaChave)) return;
+        ultimaChave = chave;
+        buscar.accept(texto);
+    }
+}
@@ -0,0 +1,171 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Busca indexada do histórico de reservas.
+ * <p>
+ * A busca antiga usava {@code LIKE '%x%'} em seis colunas de três tabelas, o que obriga o
+ * MySQL a ler tudo. Aqui o texto digitado é classificado e cada tipo vira uma consulta
+ * que usa índice:
+ * <ul>
+ * <li><strong>CPF completo</strong> (11 dígitos): igualdade na chave primária de tab_clientes.</li>
+ * <li><strong>Dígitos parciais</strong>: prefixo de CPF ({@code LIKE '123%'}) e id da reserva.</li>
+ * <li><strong>Placa</strong> (ABC-1234 ou Mercosul ABC1D23): igualdade, com e sem hífen.</li>
+ * <li><strong>Texto livre</strong>: FULLTEXT em nome do cliente e em marca/modelo/cor do
+ * veículo, mais prefixo de placa. Termos curtos demais para o FULLTEXT exigem uma palavra
+ * com esse prefixo no nome ou na marca/modelo.</li>
+ * </ul>
+ * Os ids encontrados por cada rota são unidos com UNION (sem duplicatas) e aplicados como
+ * uma junção ao JOIN principal do {@link ReservaTableModel}, mantendo a paginação por chave.
+ * Por padrão só tab_reservas é consultada; a busca no arquivo ({@link ArquivoReservas}) é explícita.
+ * @author Marcos Vinicius
+ */
+public class BuscaReservas {
+
+    public enum Tipo { VAZIA, CPF, DIGITOS, PLACA, TEXTO }
+
+    private static final Pattern PLACA = Pattern.compile("[A-Z]{3}-?[0-9][A-Z0-9][0-9]{2}");
+    private static final Pattern PREFIXO_PLACA = Pattern.compile("[A-Z]{3}-?[A-Z0-9]{0,4}");
+    private static final Pattern CPF_FORMATADO = Pattern.compile("[0-9]{3}\\.?[0-9]{3}\\.?[0-9]{3}-?[0-9]{2}");
+    private static final Pattern DIGITOS = Pattern.compile("[0-9.\\-]+");
+
+    // Termos menores que o innodb_ft_min_token_size padrão (3) não entram no índice FULLTEXT
+    private static final int TAMANHO_MINIMO_FULLTEXT = 3;
+
+    // %s: tab_reservas ou a união com o arquivo (ReservaDAO.FONTE_COM_ARQUIVO)
+    private static final String IDS_POR_CLIENTE = "SELECT rc.id FROM %s rc JOIN tab_clientes cc ON cc.id = rc.id_cliente WHERE ";
+    private static final String IDS_POR_VEICULO = "SELECT rv.id FROM %s rv JOIN tab_veiculos vv ON vv.id = rv.id_veiculo WHERE ";
+    private static final String IDS_POR_RESERVA = "SELECT rr.id FROM %s rr WHERE ";
+
+    /**
+     * Identifica o que o usuário digitou.
+     */
+    public static Tipo classificar(String texto) {
+        if (texto == null || texto.trim().isEmpty()) return Tipo.VAZIA;
+        String t = texto.trim().toUpperCase(Locale.ROOT);
+        if (CPF_FORMATADO.matcher(t).matches()) return Tipo.CPF;
+        if (DIGITOS.matcher(t).matches()) return Tipo.DIGITOS;
+        if (PLACA.matcher(t).matches()) return Tipo.PLACA;
+        return Tipo.TEXTO;
+    }
+
+    /**
+     * Monta o filtro do {@link ReservaTableModel} para o texto digitado (só reservas ativas).
+     */
+    public static ReservaDAO.Filtro montarFiltro(String texto) {
+        return montarFiltro(texto, false);
+    }
+
+    /**
+     * Monta o filtro do {@link ReservaTableModel} para o texto digitado.
+     * @param comArquivo Inclui as reservas arquivadas.
+     */
+    public static ReservaDAO.Filtro montarFiltro(String texto, boolean comArquivo) {
+        ReservaDAO.Filtro todos = comArquivo ? ReservaDAO.Filtro.TODOS_COM_ARQUIVO : ReservaDAO.Filtro.TODOS;
+        Tipo tipo = classificar(texto);
+        if (tipo == Tipo.VAZIA) return todos;
+
+        String t = texto.trim();
+        String fonte = comArquivo ? ReservaDAO.FONTE_COM_ARQUIVO : "tab_reservas";
+        String porCliente = String.format(IDS_POR_CLIENTE, fonte), porReserva = String.format(IDS_POR_RESERVA, fonte);
+        List<String> consultas = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+
+        switch (tipo) {
+            case CPF: {
+                consultas.add(porCliente + "cc.cpf = ?");
+                parametros.add(somenteDigitos(t));
+                break;
+            }
+            case DIGITOS: {
+                String digitos = somenteDigitos(t);
+                if (digitos.isEmpty()) return todos;
+                consultas.add(porCliente + "cc.cpf LIKE ?");
+                parametros.add(digitos + "%");
+                if (digitos.length() <= 9) {
+                    consultas.add(porReserva + "rr.id = ?");
+                    parametros.add(Integer.parseInt(digitos));
+                }
+                break;
+            }
+            case PLACA: {
+                String placa = t.toUpperCase(Locale.ROOT).replace("-", "");
+                consultas.add(porReserva + "rr.placa IN (?, ?)");
+                parametros.add(placa);
+                parametros.add(placa.substring(0, 3) + "-" + placa.substring(3));
+                break;
+            }
+            default: {
+                adicionarTexto(t, fonte, consultas, parametros);
+                if (consultas.isEmpty()) return todos;
+            }
+        }
+
+        String juncao = " JOIN (" + String.join(" UNION ", consultas) + ") busca ON busca.id = r.id";
+        return new ReservaDAO.Filtro(juncao, null, parametros, comArquivo);
+    }
+
+    private static void adicionarTexto(String texto, String fonte, List<String> consultas, List<Object> parametros) {
+        StringBuilder booleano = new StringBuilder();
+        List<String> curtos = new ArrayList<>();
+        for (String termo : texto.split("\\s+")) {
+            // Remove operadores do modo booleano para não alterarem a semântica da busca
+            String limpo = termo.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpo.isEmpty()) continue;
+            if (limpo.length() >= TAMANHO_MINIMO_FULLTEXT) booleano.append('+').append(limpo).append("* ");
+            else curtos.add(limpo);
+        }
+
+        // Termos curtos (ex: "A3" em "A3 Preto") não estão no índice FULLTEXT: entram como prefixo de
+        // palavra, em E com o MATCH, para não serem ignorados nem ampliarem o resultado
+        String expressao = booleano.toString().trim();
+        List<Object> parametrosCliente = new ArrayList<>(), parametrosVeiculo = new ArrayList<>();
+        List<String> condicoesCliente = new ArrayList<>(), condicoesVeiculo = new ArrayList<>();
+        if (!expressao.isEmpty()) {
+            condicoesCliente.add("MATCH(cc.nome) AGAINST (? IN BOOLEAN MODE)");
+            parametrosCliente.add(expressao);
+            condicoesVeiculo.add("MATCH(vv.marca, vv.modelo, vv.cor) AGAINST (? IN BOOLEAN MODE)");
+            parametrosVeiculo.add(expressao);
+        }
+        for (String curto : curtos) {
+            condicoesCliente.add(prefixoDePalavra(curto, parametrosCliente, "cc.nome"));
+            condicoesVeiculo.add(prefixoDePalavra(curto, parametrosVeiculo, "vv.marca", "vv.modelo"));
+        }
+        if (!condicoesCliente.isEmpty()) {
+            consultas.add(String.format(IDS_POR_CLIENTE, fonte) + String.join(" AND ", condicoesCliente));
+            parametros.addAll(parametrosCliente);
+            consultas.add(String.format(IDS_POR_VEICULO, fonte) + String.join(" AND ", condicoesVeiculo));
+            parametros.addAll(parametrosVeiculo);
+        }
+
+        String maiusculo = texto.toUpperCase(Locale.ROOT);
+        if (PREFIXO_PLACA.matcher(maiusculo).matches()) {
+            consultas.add(String.format(IDS_POR_RESERVA, fonte) + "rr.placa LIKE ?");
+            parametros.add(maiusculo + "%");
+        }
+    }
+
+    // Alguma das colunas com uma palavra começando pelo termo ("x%" ou "% x%")
+    private static String prefixoDePalavra(String termo, List<Object> parametros, String... colunas) {
+        String escapado = termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        List<String> alternativas = new ArrayList<>();
+        for (String coluna : colunas) {
+            alternativas.add(coluna + " LIKE ?");
+            alternativas.add(coluna + " LIKE ?");
+            parametros.add(escapado + "%");
+            parametros.add("% " + escapado + "%");
+        }
+        return "(" + String.join(" OR ", alternativas) + ")";
+    }
+
+    private static String somenteDigitos(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') sb.append(c);
+        }
+        return sb.toString();
+    }
+}
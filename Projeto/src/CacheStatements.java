@@ -0,0 +1,150 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de PreparedStatements de uma conexão física do {@link PoolConexoes}.
+ * <p>
+ * A chave é o texto SQL (o "formato" da consulta). Como os DAOs usam SQL fixo com
+ * parâmetros '?', cada formato é preparado uma única vez por conexão e o servidor
+ * reaproveita o plano (com {@code useServerPrepStmts=true} o driver usa statements
+ * preparados no servidor).
+ * <p>
+ * O statement entregue é um proxy: {@code close()} apenas limpa os parâmetros e o
+ * devolve ao cache. Ao devolver a conexão ao pool, todos os statements emprestados
+ * também são liberados, mesmo os que não foram fechados. Statements fora do cache
+ * (avulsos) são preparados e fechados pelo {@link PoolConexoes}.
+ * @author Marcos Vinicius
+ */
+public class CacheStatements {
+    private final Connection conexao;
+    private final int capacidade;
+    private final Map<String, Entrada> entradas;
+    private long acertos, faltas;
+
+    public CacheStatements(Connection conexao, int capacidade) {
+        this.conexao = conexao;
+        this.capacidade = capacidade;
+        this.entradas = new LinkedHashMap<>(capacidade, 0.75f, true);
+    }
+
+    /**
+     * Retorna o statement do cache para o SQL, preparando-o se necessário.
+     * @return null se o mesmo SQL já estiver em uso neste empréstimo (quem chama prepara um avulso).
+     */
+    public synchronized PreparedStatement obter(String sql) throws SQLException {
+        Entrada e = entradas.get(sql);
+        if (e != null && e.emUso) return null;
+        if (e == null) {
+            faltas++;
+            e = new Entrada(conexao.prepareStatement(sql));
+            entradas.put(sql, e);
+            removerExcedentes();
+        } else {
+            acertos++;
+        }
+        e.emUso = true;
+        return e.proxy;
+    }
+
+    /**
+     * Prepara antecipadamente os formatos informados (aquecimento da conexão).
+     */
+    public synchronized void preparar(Iterable<String> sqls) {
+        for (String sql : sqls) {
+            if (entradas.containsKey(sql)) continue;
+            try {
+                entradas.put(sql, new Entrada(conexao.prepareStatement(sql)));
+                removerExcedentes();
+            } catch (SQLException ex) {
+                System.err.println("Cache: não foi possível preparar [" + sql + "]: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Libera todos os statements emprestados (chamado quando a conexão volta ao pool).
+     */
+    public synchronized void liberarTodos() {
+        for (Entrada e : entradas.values()) {
+            if (e.emUso) {
+                e.emUso = false;
+                try { e.real.clearParameters(); } catch (SQLException ignored) { }
+            }
+        }
+    }
+
+    /**
+     * Fecha de fato todos os statements (chamado quando a conexão física é descartada).
+     */
+    public synchronized void fechar() {
+        for (Entrada e : entradas.values()) fecharReal(e);
+        entradas.clear();
+    }
+
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    public synchronized long getFaltas() {
+        return faltas;
+    }
+
+    private void removerExcedentes() {
+        if (entradas.size() <= capacidade) return;
+        List<String> remover = new ArrayList<>();
+        Iterator<Map.Entry<String, Entrada>> it = entradas.entrySet().iterator();
+        int excesso = entradas.size() - capacidade;
+        while (it.hasNext() && remover.size() < excesso) {
+            Map.Entry<String, Entrada> menosUsada = it.next();
+            if (!menosUsada.getValue().emUso) remover.add(menosUsada.getKey());
+        }
+        for (String sql : remover) fecharReal(entradas.remove(sql));
+    }
+
+    private static void fecharReal(Entrada e) {
+        try { e.real.close(); } catch (SQLException ignored) { }
+    }
+
+    private final class Entrada {
+        final PreparedStatement real;
+        final PreparedStatement proxy;
+        boolean emUso;
+
+        Entrada(PreparedStatement real) {
+            this.real = real;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                synchronized (CacheStatements.this) {
+                                    if (emUso) {
+                                        emUso = false;
+                                        real.clearParameters();
+                                    }
+                                }
+                                return null;
+                            case "isClosed":
+                                return !emUso || real.isClosed();
+                            case "equals":
+                                return p == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(p);
+                            default:
+                                try {
+                                    return method.invoke(real, args);
+                                } catch (InvocationTargetException ex) {
+                                    throw ex.getCause();
+                                }
+                        }
+                    });
+        }
+    }
+}
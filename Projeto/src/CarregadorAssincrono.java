@@ -0,0 +1,201 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Executa consultas ao banco fora da thread do Swing (EDT).
+ * <p>
+ * Cada tela possui um carregador. Fluxo de uma carga:
+ * <ol>
+ * <li>Na EDT, a tela chama {@link #carregar(Callable, Consumer)}; a carga anterior
+ * ainda em andamento é cancelada e o indicador de "carregando" é exibido.</li>
+ * <li>A busca roda em uma thread virtual.</li>
+ * <li>O resultado é publicado de volta na EDT, apenas se nenhuma carga mais nova
+ * tiver sido iniciada nesse meio tempo (resultados atrasados são descartados).</li>
+ * </ol>
+ * A thread da carga não é interrompida: em uma thread virtual, a interrupção fecha o socket
+ * bloqueado na leitura e mataria a conexão física do pool no meio da consulta. O cancelamento
+ * marca a carga como cancelada ({@link #cargaCancelada()}; o pool recusa novas conexões a ela) e
+ * chama {@code Statement.cancel()} nas consultas em andamento, que o {@link PoolConexoes}
+ * vincula à carga ({@link #aoCancelar(Runnable)}).
+ * @author Marcos Vinicius
+ */
+public class CarregadorAssincrono {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Todos os carregadores vivos, para cancelar as cargas ao trocar de tela
+    private static final Set<CarregadorAssincrono> ATIVOS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    // Carga que está rodando na thread atual (para o pool vincular os statements a ela)
+    private static final ThreadLocal<Carga> CARGA_ATUAL = new ThreadLocal<>();
+
+    private final JComponent painel;
+    private final JLabel indicador;
+    private long geracao;
+    private Future<?> tarefaAtual;
+    private Carga cargaAtual;
+
+    /**
+     * @param painel Tela dona das cargas (recebe o cursor de espera).
+     * @param indicador Label exibido enquanto a carga está em andamento (pode ser null).
+     */
+    public CarregadorAssincrono(JComponent painel, JLabel indicador) {
+        this.painel = painel;
+        this.indicador = indicador;
+        if (indicador != null) indicador.setVisible(false);
+        ATIVOS.add(this);
+    }
+
+    /**
+     * Inicia uma carga, substituindo a anterior. Deve ser chamado na EDT.
+     * Erros são apenas registrados no console.
+     */
+    public <T> void carregar(Callable<T> busca, Consumer<T> publicar) {
+        carregar(busca, publicar, Throwable::printStackTrace);
+    }
+
+    /**
+     * Inicia uma carga, substituindo a anterior. Deve ser chamado na EDT.
+     * @param busca Executada em segundo plano (JDBC, mapeamento de linhas).
+     * @param publicar Executada na EDT com o resultado (atualização do TableModel).
+     * @param aoFalhar Executada na EDT se a busca lançar exceção.
+     */
+    public <T> void carregar(Callable<T> busca, Consumer<T> publicar, Consumer<Exception> aoFalhar) {
+        cancelar();
+        final long minhaGeracao = ++geracao;
+        mostrarCarregando(true);
+        final Carga carga = new Carga();
+        cargaAtual = carga;
+
+        tarefaAtual = EXECUTOR.submit(() -> {
+            CARGA_ATUAL.set(carga);
+            try {
+                T resultado = busca.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (minhaGeracao != geracao) return; // Superada por uma carga mais nova
+                    mostrarCarregando(false);
+                    publicar.accept(resultado);
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (minhaGeracao != geracao) return;
+                    mostrarCarregando(false);
+                    aoFalhar.accept(e);
+                });
+            } finally {
+                CARGA_ATUAL.remove();
+            }
+        });
+    }
+
+    /**
+     * Cancela a carga em andamento (o resultado dela será descartado). Deve ser chamado na EDT.
+     */
+    public void cancelar() {
+        geracao++;
+        if (tarefaAtual != null) {
+            tarefaAtual.cancel(false); // Só impede o início; a que já roda para pelo Statement.cancel()
+            tarefaAtual = null;
+        }
+        if (cargaAtual != null) {
+            cargaAtual.cancelada = true;
+            // Statement.cancel() abre uma conexão própria no driver: fora da EDT
+            EXECUTOR.submit(cargaAtual::cancelar);
+            cargaAtual = null;
+        }
+        mostrarCarregando(false);
+    }
+
+    /**
+     * Executa uma tarefa avulsa no mesmo executor de threads virtuais
+     * (ex: páginas do {@link ReservaTableModel}), sem cancelar a carga atual.
+     */
+    public static Future<?> submeter(Runnable tarefa) {
+        return EXECUTOR.submit(tarefa);
+    }
+
+    /**
+     * Executa uma gravação (reserva, devolução, edição) em segundo plano, fora de qualquer carga:
+     * ela não é cancelada por cargas novas nem pela navegação ({@link #cancelarTodos()}), pois
+     * interromper um INSERT/COMMIT deixaria o atendente sem saber se a operação foi gravada.
+     * O retorno sempre chega à EDT.
+     * @param publicar Executada na EDT com o resultado.
+     * @param aoFalhar Executada na EDT se a gravação lançar exceção.
+     */
+    public static <T> void gravar(Callable<T> gravacao, Consumer<T> publicar, Consumer<Exception> aoFalhar) {
+        EXECUTOR.submit(() -> {
+            try {
+                T resultado = gravacao.call();
+                SwingUtilities.invokeLater(() -> publicar.accept(resultado));
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> aoFalhar.accept(e));
+            }
+        });
+    }
+
+    /**
+     * Registra uma ação a executar se a carga que roda na thread atual for cancelada
+     * (usado pelo {@link PoolConexoes} para cancelar statements em andamento).
+     * @return Ação que desfaz o registro; deve ser chamada antes de o recurso ser reutilizado.
+     *         Fora de uma carga, nada é registrado.
+     */
+    static Runnable aoCancelar(Runnable acao) {
+        Carga carga = CARGA_ATUAL.get();
+        return carga == null ? () -> { } : carga.registrar(acao);
+    }
+
+    /**
+     * Se a carga que roda na thread atual já foi cancelada (false fora de uma carga).
+     */
+    static boolean cargaCancelada() {
+        Carga carga = CARGA_ATUAL.get();
+        return carga != null && carga.cancelada;
+    }
+
+    /**
+     * Cancela as cargas de todas as telas (usado na navegação entre telas).
+     */
+    public static void cancelarTodos() {
+        CarregadorAssincrono[] copia;
+        synchronized (ATIVOS) { copia = ATIVOS.toArray(new CarregadorAssincrono[0]); }
+        for (CarregadorAssincrono c : copia) c.cancelar();
+    }
+
+    private void mostrarCarregando(boolean carregando) {
+        painel.setCursor(carregando ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
+        if (indicador != null) indicador.setVisible(carregando);
+    }
+
+    /**
+     * Ações de cancelamento de uma carga. Registro, remoção e cancelamento usam a mesma
+     * trava: depois que a remoção retorna, a ação nunca mais será executada.
+     */
+    private static final class Carga {
+        private final Set<Runnable> acoes = new HashSet<>();
+        private volatile boolean cancelada;
+
+        synchronized Runnable registrar(Runnable acao) {
+            if (cancelada) return () -> { };
+            acoes.add(acao);
+            return () -> remover(acao);
+        }
+
+        private synchronized void remover(Runnable acao) {
+            acoes.remove(acao);
+        }
+
+        synchronized void cancelar() {
+            cancelada = true;
+            for (Runnable acao : acoes) acao.run();
+            acoes.clear();
+        }
+    }
+}
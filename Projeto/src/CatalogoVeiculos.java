@@ -0,0 +1,206 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache em memória do catálogo de veículos (tab_veiculos), compartilhado pelo
+ * Dashboard e pela tela de Nova Reserva.
+ * <p>
+ * {@link Veiculo#getQuantidade()} é o tamanho da frota ({@link VeiculoDAO}); as unidades livres em cada período são calculadas
+ * por {@link DisponibilidadeVeiculos} a partir das reservas.
+ * <p>
+ * Funcionamento:
+ * <ul>
+ * <li>O catálogo é um <strong>snapshot imutável</strong> (lista não modificável), trocado
+ * por inteiro a cada alteração. Os objetos {@link Veiculo} do snapshot não devem ser alterados.</li>
+ * <li>Edições feitas nesta estação (cadastro, edição, exclusão) geram um
+ * novo snapshot por cópia (copy-on-write) e incrementam a versão, sem ir ao banco.</li>
+ * <li>Após o TTL, o snapshot atual continua sendo servido e uma recarga é disparada em
+ * segundo plano para capturar alterações de outras estações. Se houver uma edição local
+ * enquanto a consulta roda, o resultado (que pode não conter a edição) é descartado e a
+ * consulta é refeita.</li>
+ * <li>Filtros e ordenação por marca/modelo/id são feitos em memória.</li>
+ * </ul>
+ * @author Marcos Vinicius
+ */
+public final class CatalogoVeiculos {
+    private static final long TTL_MS = 60_000;
+    private static final int TENTATIVAS_RECARGA = 3;
+
+    private record Snapshot(List<Veiculo> veiculos, long versao, long carregadoEm) { }
+
+    private static volatile Snapshot atual;
+    private static final AtomicBoolean recarregando = new AtomicBoolean();
+    private static final Object TRAVA_CARGA = new Object();
+    // Edições locais e invalidações desde o início (protegido pela trava da classe)
+    private static long alteracoesLocais;
+
+    private CatalogoVeiculos() { }
+
+    /**
+     * Retorna o catálogo completo em ordem de id. Só acessa o banco na primeira chamada
+     * (ou após {@link #invalidar()}); depois do TTL revalida em segundo plano.
+     */
+    public static List<Veiculo> obter() throws SQLException {
+        Snapshot s = atual;
+        if (s == null) {
+            synchronized (TRAVA_CARGA) {
+                s = atual;
+                if (s == null) s = recarregar();
+            }
+        } else if (System.currentTimeMillis() - s.carregadoEm() > TTL_MS && recarregando.compareAndSet(false, true)) {
+            CarregadorAssincrono.submeter(() -> {
+                try { recarregar(); }
+                catch (SQLException e) { System.err.println("Catálogo: falha ao revalidar: " + e.getMessage()); }
+                finally { recarregando.set(false); }
+            });
+        }
+        return s.veiculos();
+    }
+
+    /**
+     * Versão do snapshot atual (muda a cada recarga ou edição local). 0 se ainda não carregado.
+     */
+    public static long getVersao() {
+        Snapshot s = atual;
+        return s == null ? 0 : s.versao();
+    }
+
+    /**
+     * Filtra e ordena em memória com a mesma semântica das consultas do {@link VeiculoDAO}
+     * (LIKE '%texto%' sem diferenciar maiúsculas e acentos).
+     */
+    public static List<Veiculo> filtrar(VeiculoDAO.Filtro filtro, String texto) throws SQLException {
+        List<Veiculo> todos = obter();
+        boolean temFiltro = texto != null && !texto.trim().isEmpty();
+        String busca = temFiltro ? normalizar(texto) : null;
+
+        List<Veiculo> resultado = new ArrayList<>();
+        for (Veiculo v : todos) {
+            if (!temFiltro) { resultado.add(v); continue; }
+            switch (filtro) {
+                case GERAL:
+                    if (normalizar(v.getMarca()).contains(busca) || normalizar(v.getModelo()).contains(busca)) resultado.add(v);
+                    break;
+                case MARCA:
+                    if (normalizar(v.getMarca()).contains(busca)) resultado.add(v);
+                    break;
+                case MODELO:
+                    if (normalizar(v.getModelo()).contains(busca)) resultado.add(v);
+                    break;
+                case ID:
+                    if (String.valueOf(v.getId()).equals(texto.trim())) resultado.add(v);
+                    break;
+            }
+        }
+
+        Comparator<Veiculo> porId = Comparator.comparingInt(Veiculo::getId);
+        switch (filtro) {
+            case MARCA: resultado.sort(Comparator.comparing((Veiculo v) -> normalizar(v.getMarca())).thenComparing(porId)); break;
+            case MODELO: resultado.sort(Comparator.comparing((Veiculo v) -> normalizar(v.getModelo())).thenComparing(porId)); break;
+            default: break; // O snapshot já está em ordem de id
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta o snapshot; a próxima leitura vai ao banco.
+     */
+    public static synchronized void invalidar() {
+        alteracoesLocais++;
+        atual = null;
+    }
+
+    // --- Edições locais (copy-on-write) ---
+
+    public static void registrarInclusao(Veiculo v) {
+        alterar(lista -> {
+            lista.add(copiar(v));
+            lista.sort(Comparator.comparingInt(Veiculo::getId));
+            return lista;
+        });
+    }
+
+    public static void registrarAlteracao(Veiculo v) {
+        alterar(lista -> {
+            lista.replaceAll(existente -> existente.getId() == v.getId() ? copiar(v) : existente);
+            return lista;
+        });
+    }
+
+    public static void registrarExclusao(int id) {
+        alterar(lista -> {
+            lista.removeIf(v -> v.getId() == id);
+            return lista;
+        });
+    }
+
+    private static synchronized void alterar(UnaryOperator<List<Veiculo>> edicao) {
+        alteracoesLocais++; // Mesmo sem cache: uma carga em andamento pode não conter a edição
+        Snapshot s = atual;
+        if (s == null) return; // Nada em cache: a próxima leitura já virá atualizada do banco
+        List<Veiculo> nova = edicao.apply(new ArrayList<>(s.veiculos()));
+        atual = new Snapshot(Collections.unmodifiableList(nova), s.versao() + 1, s.carregadoEm());
+    }
+
+    private static Snapshot recarregar() throws SQLException {
+        for (int tentativa = 1; ; tentativa++) {
+            long alteracoesAntes = alteracoesLocais();
+            Snapshot s = publicar(consultar(), alteracoesAntes, tentativa == TENTATIVAS_RECARGA);
+            if (s != null) return s;
+        }
+    }
+
+    private static synchronized long alteracoesLocais() {
+        return alteracoesLocais;
+    }
+
+    private static List<Veiculo> consultar() throws SQLException {
+        // A consulta roda fora da trava para não bloquear edições locais feitas na EDT
+        List<Veiculo> veiculos;
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) {
+                // Sem banco: a lista do instantâneo do modo offline, se houver
+                veiculos = ModoOffline.veiculos();
+                if (veiculos == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            } else {
+                veiculos = new VeiculoDAO(conn).listar(VeiculoDAO.Filtro.GERAL, null);
+            }
+        }
+        return veiculos;
+    }
+
+    /**
+     * Publica o resultado de uma consulta, se nenhuma edição local aconteceu desde que ela começou.
+     * @param ultimaTentativa Com edições no meio: mantém o snapshot atual (que já as contém) ou, sem
+     *        snapshot, publica o resultado já vencido, para a próxima leitura revalidar.
+     * @return null se a consulta deve ser refeita.
+     */
+    private static synchronized Snapshot publicar(List<Veiculo> veiculos, long alteracoesAntes, boolean ultimaTentativa) {
+        Snapshot anterior = atual;
+        boolean alterado = alteracoesLocais != alteracoesAntes;
+        if (alterado && !ultimaTentativa) return null;
+        if (alterado && anterior != null) return anterior;
+        Snapshot novo = new Snapshot(Collections.unmodifiableList(veiculos),
+                anterior == null ? 1 : anterior.versao() + 1, alterado ? 0 : System.currentTimeMillis());
+        atual = novo;
+        return novo;
+    }
+
+    private static Veiculo copiar(Veiculo v) {
+        return new Veiculo(v.getAno(), v.getId(), v.getMarca(), v.getModelo(), v.getCor(), v.getQuantidade());
+    }
+
+    private static String normalizar(String texto) {
+        if (texto == null) return "";
+        String semAcento = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,166 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Acesso a dados da tabela tab_clientes.
+ * <p>
+ * As datas trafegam como String no formato do idioma atual (igual ao modelo {@link Cliente})
+ * e são convertidas aqui com o {@link DateUtil}.
+ * @author Marcos Vinicius
+ */
+public class ClienteDAO {
+
+    /**
+     * Filtros da tela de clientes, na mesma ordem do combo.
+     */
+    public enum Filtro { GERAL, NOME, CPF }
+
+    /**
+     * Cliente já validado para inserção em lote (CPF só com dígitos, data convertida).
+     */
+    public record NovoCliente(String nome, String cpf, java.sql.Date nascimento) { }
+
+    private static final String SELECT = "SELECT id, nome, cpf, data_nasc FROM tab_clientes";
+
+    // [filtro][0 = sem texto, 1 = com texto]
+    private static final String[][] SQL_LISTAR = {
+            { SELECT + " ORDER BY id ASC",   SELECT + " WHERE nome LIKE ? OR cpf LIKE ? ORDER BY id ASC" },
+            { SELECT + " ORDER BY nome ASC", SELECT + " WHERE nome LIKE ? ORDER BY nome ASC" },
+            { SELECT + " ORDER BY cpf ASC",  SELECT + " WHERE cpf LIKE ? ORDER BY cpf ASC" }
+    };
+    static final String SQL_BUSCAR_CPF = SELECT + " WHERE cpf = ?";
+    static final String SQL_INSERIR = "INSERT INTO tab_clientes (nome, cpf, data_nasc) VALUES (?,?,?)";
+    static final String SQL_ATUALIZAR = "UPDATE tab_clientes SET nome=?, data_nasc=? WHERE id=?";
+    static final String SQL_EXCLUIR = "DELETE FROM tab_clientes WHERE id=?";
+    static final String SQL_LISTAR_CPFS = "SELECT cpf FROM tab_clientes";
+
+    private final Connection conn;
+
+    public ClienteDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    public List<Cliente> listar(Filtro filtro, String texto) throws SQLException {
+        boolean temFiltro = texto != null && !texto.trim().isEmpty();
+        try (PreparedStatement pst = conn.prepareStatement(SQL_LISTAR[filtro.ordinal()][temFiltro ? 1 : 0])) {
+            if (temFiltro) {
+                String buscaLike = "%" + texto + "%";
+                pst.setString(1, buscaLike);
+                if (filtro == Filtro.GERAL) pst.setString(2, buscaLike);
+            }
+            List<Cliente> clientes = new ArrayList<>();
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) clientes.add(mapear(rs));
+            }
+            return clientes;
+        }
+    }
+
+    /**
+     * @return O cliente com o CPF exato, ou null se não existir.
+     */
+    public Cliente buscarPorCpf(String cpf) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_BUSCAR_CPF)) {
+            pst.setString(1, cpf);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? mapear(rs) : null;
+            }
+        }
+    }
+
+    public void inserir(Cliente c) throws SQLException, ParseException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_INSERIR)) {
+            pst.setString(1, c.getNome());
+            pst.setString(2, c.getCpf());
+            pst.setDate(3, DateUtil.converterEValidarData(c.getData_nasc()));
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Atualiza nome e nascimento (o CPF é fixo após o cadastro).
+     */
+    public void atualizar(Cliente c) throws SQLException, ParseException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_ATUALIZAR)) {
+            pst.setString(1, c.getNome());
+            pst.setDate(2, DateUtil.converterEValidarData(c.getData_nasc()));
+            pst.setInt(3, c.getId());
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Insere os clientes com um único envio JDBC (batch). A transação fica com quem chama.
+     * @throws java.sql.BatchUpdateException Se alguma linha falhar (ex: CPF cadastrado por outra estação).
+     */
+    public void inserirLote(List<NovoCliente> clientes) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_INSERIR)) {
+            for (NovoCliente c : clientes) {
+                pst.setString(1, c.nome());
+                pst.setString(2, c.cpf());
+                pst.setDate(3, c.nascimento());
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
+
+    /**
+     * Insere um único cliente já validado (usado para isolar a linha que falhou em um lote).
+     */
+    public void inserir(NovoCliente c) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_INSERIR)) {
+            pst.setString(1, c.nome());
+            pst.setString(2, c.cpf());
+            pst.setDate(3, c.nascimento());
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Todos os CPFs cadastrados (para detectar duplicados na importação sem uma consulta por linha).
+     */
+    public Set<String> listarCpfs() throws SQLException {
+        Set<String> cpfs = new HashSet<>();
+        try (PreparedStatement pst = conn.prepareStatement(SQL_LISTAR_CPFS);
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next()) cpfs.add(rs.getString(1));
+        }
+        return cpfs;
+    }
+
+    public void excluir(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_EXCLUIR)) {
+            pst.setInt(1, id);
+            pst.executeUpdate();
+        }
+    }
+
+    static Cliente mapear(ResultSet rs) throws SQLException {
+        Cliente c = new Cliente();
+        c.setId(rs.getInt("id"));
+        c.setNome(rs.getString("nome"));
+        c.setCpf(rs.getString("cpf"));
+        // Conversão de data do SQL para String usando o utilitário
+        java.sql.Date dataSQL = rs.getDate("data_nasc");
+        c.setData_nasc(dataSQL != null ? DateUtil.formatarData(dataSQL) : "");
+        return c;
+    }
+
+    /**
+     * Formatos de SQL fixos deste DAO (aquecimento do cache de statements).
+     */
+    static List<String> sqlFixos() {
+        List<String> sqls = new ArrayList<>();
+        for (String[] variantes : SQL_LISTAR) { sqls.add(variantes[0]); sqls.add(variantes[1]); }
+        sqls.addAll(List.of(SQL_BUSCAR_CPF, SQL_INSERIR, SQL_ATUALIZAR, SQL_EXCLUIR, SQL_LISTAR_CPFS));
+        return sqls;
+    }
+}
@@ -1,9 +1,13 @@
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.io.File;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Tela de gerenciamento de Clientes.
@@ -12,11 +16,14 @@ import java.sql.*;
  * @author Marcos Vinicius
  */
 public class ClienteFrame extends JPanel {
+    private static final int COL_ACOES = 4;
+
     private JTable tabelaClientes;
     private DefaultTableModel modeloClientes;
     private Main parentFrame;
     private JTextField txtBuscaCliente;
     private JComboBox<String> cmbFiltro;
+    private CarregadorAssincrono carregador;
 
     public ClienteFrame(Main parentFrame) {
         this.parentFrame = parentFrame;
@@ -27,11 +34,13 @@ public class ClienteFrame extends JPanel {
         header.setBackground(new Color(245,245,245));
         header.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
 
-        JButton btnVoltar = new JButton(LanguageManager.get("menu.back"));
+        JButton btnVoltar = new JButton();
+        LanguageManager.vincular(btnVoltar::setText, "menu.back");
         Main.GlobalStyles.styleButton(btnVoltar, Color.GRAY);
         btnVoltar.addActionListener(e -> parentFrame.mostrarDashboard());
 
-        JLabel lblTitulo = new JLabel(LanguageManager.get("client.title"), SwingConstants.CENTER);
+        JLabel lblTitulo = new JLabel("", SwingConstants.CENTER);
+        LanguageManager.vincular(lblTitulo::setText, "client.title");
         lblTitulo.setFont(new Font("Arial", Font.BOLD, 22));
 
         header.add(btnVoltar, BorderLayout.WEST);
@@ -39,20 +48,25 @@ public class ClienteFrame extends JPanel {
         add(header, BorderLayout.NORTH);
 
         JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JButton btnNovo = new JButton(LanguageManager.get("client.new"));
+        JButton btnNovo = new JButton();
+        LanguageManager.vincular(btnNovo::setText, "client.new");
         Main.GlobalStyles.styleButton(btnNovo, Main.GlobalStyles.COLOR_GREEN);
         btnNovo.addActionListener(e -> cadastrarCliente());
 
+        JButton btnImportar = new JButton();
+        LanguageManager.vincular(btnImportar::setText, "client.import");
+        Main.GlobalStyles.styleButton(btnImportar, Main.GlobalStyles.COLOR_BLUE);
+        btnImportar.addActionListener(e -> importarClientes());
+
         toolbar.add(btnNovo);
+        toolbar.add(btnImportar);
         toolbar.add(Box.createHorizontalStrut(20));
-        toolbar.add(new JLabel(" | " + LanguageManager.get("client.search") + ": "));
+        JLabel lblBusca = new JLabel();
+        LanguageManager.vincular(t -> lblBusca.setText(" | " + t + ": "), "client.search");
+        toolbar.add(lblBusca);
 
-        String[] opcoes = {
-                LanguageManager.get("filter.all"),
-                LanguageManager.get("filter.client.name"),
-                LanguageManager.get("filter.client.cpf")
-        };
-        cmbFiltro = new JComboBox<>(opcoes);
+        cmbFiltro = new JComboBox<>();
+        LanguageManager.vincularOpcoes(cmbFiltro, "filter.all", "filter.client.name", "filter.client.cpf");
         cmbFiltro.setBackground(Color.WHITE);
         toolbar.add(cmbFiltro);
 
@@ -70,33 +84,38 @@ public class ClienteFrame extends JPanel {
                 }
             }
         });
-        cmbFiltro.addActionListener(e -> txtBuscaCliente.setText(""));
+        // Busca enquanto digita (com debounce); Enter e o botão buscam na hora
+        BuscaDinamica busca = new BuscaDinamica(txtBuscaCliente, cmbFiltro::getSelectedIndex, this::carregarClientes);
+        cmbFiltro.addActionListener(e -> { txtBuscaCliente.setText(""); busca.executarAgora(); });
 
-        JButton btnBusca = new JButton(LanguageManager.get("client.search"));
+        JButton btnBusca = new JButton();
+        LanguageManager.vincular(btnBusca::setText, "client.search");
         Main.GlobalStyles.styleButton(btnBusca, Main.GlobalStyles.COLOR_BLUE);
-        btnBusca.addActionListener(e -> carregarClientes(txtBuscaCliente.getText()));
-        txtBuscaCliente.addActionListener(e -> carregarClientes(txtBuscaCliente.getText()));
+        btnBusca.addActionListener(e -> busca.executarAgora());
+        txtBuscaCliente.addActionListener(e -> busca.executarAgora());
 
-        toolbar.add(txtBuscaCliente); toolbar.add(btnBusca);
+        JLabel lblCarregando = new JLabel();
+        LanguageManager.vincular(lblCarregando::setText, "msg.loading");
+        carregador = new CarregadorAssincrono(this, lblCarregando);
+
+        toolbar.add(txtBuscaCliente); toolbar.add(btnBusca); toolbar.add(lblCarregando);
 
         JPanel panelTabela = new JPanel(new BorderLayout());
         panelTabela.add(toolbar, BorderLayout.NORTH);
 
-        String[] cols = {
-                LanguageManager.get("col.id"),
-                LanguageManager.get("col.name"),
-                LanguageManager.get("col.cpf"),
-                LanguageManager.get("col.birth"),
-                LanguageManager.get("col.actions")
-        };
+        // Identificadores das colunas são as chaves de tradução; o título vem do idioma atual
+        String[] cols = {"col.id", "col.name", "col.cpf", "col.birth", "col.actions"};
 
         modeloClientes = new DefaultTableModel(null, cols) {
+            @Override public String getColumnName(int col) {
+                return LanguageManager.get(super.getColumnName(col));
+            }
             @Override public boolean isCellEditable(int row, int col) {
-                String nomeColuna = getColumnName(col);
-                return nomeColuna.equals(LanguageManager.get("col.actions"));
+                return col == COL_ACOES;
             }
         };
         tabelaClientes = new JTable(modeloClientes);
+        LanguageManager.vincularCabecalho(tabelaClientes);
         tabelaClientes.setRowHeight(35);
         tabelaClientes.putClientProperty("JTable.autoStartsEdit", Boolean.TRUE);
 
@@ -104,67 +123,100 @@ public class ClienteFrame extends JPanel {
         center.setHorizontalAlignment(SwingConstants.CENTER);
         for(int i=0; i<4; i++) tabelaClientes.getColumnModel().getColumn(i).setCellRenderer(center);
 
-        tabelaClientes.getColumn(LanguageManager.get("col.actions")).setCellRenderer(new ButtonsRenderer());
-        tabelaClientes.getColumn(LanguageManager.get("col.actions")).setCellEditor(new ButtonsEditor(new JCheckBox()));
+        tabelaClientes.getColumnModel().getColumn(COL_ACOES).setCellRenderer(new ButtonsRenderer());
+        tabelaClientes.getColumnModel().getColumn(COL_ACOES).setCellEditor(new ButtonsEditor(new JCheckBox()));
 
         panelTabela.add(new JScrollPane(tabelaClientes), BorderLayout.CENTER);
         panelTabela.setBorder(BorderFactory.createEmptyBorder(10,20,20,20));
         add(panelTabela, BorderLayout.CENTER);
     }
 
+    /**
+     * Recarrega a tabela de clientes em segundo plano ({@link CarregadorAssincrono}).
+     * Uma busca nova cancela a consulta anterior ainda em andamento no banco.
+     * @param filtroTexto Texto digitado na busca (null para listar todos).
+     */
     public void carregarClientes(String filtroTexto) {
-        modeloClientes.setRowCount(0);
-        Connection conn = Main.Conexao.conectar();
-        if(conn == null) return;
-        try {
-            String sql = "SELECT * FROM tab_clientes";
-            int tipoFiltro = cmbFiltro.getSelectedIndex();
-            boolean temFiltro = filtroTexto != null && !filtroTexto.trim().isEmpty();
-
-            if (temFiltro) {
-                switch (tipoFiltro) {
-                    case 0: sql += " WHERE nome LIKE ? OR cpf LIKE ?"; break;
-                    case 1: sql += " WHERE nome LIKE ?"; break;
-                    case 2: sql += " WHERE cpf LIKE ?"; break;
-                }
-            }
-            switch (tipoFiltro) {
-                case 1: sql += " ORDER BY nome ASC"; break;
-                case 2: sql += " ORDER BY cpf ASC"; break;
-                default: sql += " ORDER BY id ASC"; break;
-            }
-
-            PreparedStatement pst = conn.prepareStatement(sql);
-            if (temFiltro) {
-                String buscaLike = "%" + filtroTexto + "%";
-                if (tipoFiltro == 0) { pst.setString(1, buscaLike); pst.setString(2, buscaLike); }
-                else { pst.setString(1, buscaLike); }
-            }
-
-            ResultSet rs = pst.executeQuery();
-
-            while(rs.next()) {
-                // 1. Instancia o objeto e preenche com dados do banco
-                Cliente c = new Cliente();
-                c.setId(rs.getInt("id"));
-                c.setNome(rs.getString("nome"));
-                c.setCpf(rs.getString("cpf"));
-
-                // Conversão de data do SQL para String usando o utilitário
-                java.sql.Date dataSQL = rs.getDate("data_nasc");
-                c.setData_nasc(dataSQL != null ? DateUtil.formatarData(dataSQL) : "");
-
-                // 2. Usa os Getters do objeto para preencher a linha da tabela
+        int tipoFiltro = cmbFiltro.getSelectedIndex();
+        carregador.carregar(() -> MetricasConsultas.medir("clientes.listar", () -> buscarClientes(filtroTexto, tipoFiltro)), clientes -> {
+            modeloClientes.setRowCount(0);
+            // Formata visualmente todos os CPFs de uma vez
+            String[] cpfs = new String[clientes.size()];
+            for (int i = 0; i < cpfs.length; i++) cpfs[i] = clientes.get(i).getCpf();
+            String[] formatados = ValidadorCPF.formatarTodos(cpfs);
+            for (int i = 0; i < cpfs.length; i++) {
+                Cliente c = clientes.get(i);
+                // Usa os Getters do objeto para preencher a linha da tabela
                 modeloClientes.addRow(new Object[]{
                         c.getId(),
                         c.getNome(),
-                        ValidadorCPF.formatarCPF(c.getCpf()), // Formata visualmente
+                        formatados[i],
                         c.getData_nasc(),
                         null // Coluna de ações
                 });
             }
-            conn.close();
-        } catch(Exception e) { e.printStackTrace(); }
+        });
+    }
+
+    /**
+     * Executa a consulta de clientes (chamado fora da EDT).
+     */
+    private List<Cliente> buscarClientes(String filtroTexto, int tipoFiltro) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            // Sem banco: busca no instantâneo do modo offline (vazio se não houver)
+            if(conn == null) return ModoOffline.clientes(ClienteDAO.Filtro.values()[tipoFiltro], filtroTexto);
+            return new ClienteDAO(conn).listar(ClienteDAO.Filtro.values()[tipoFiltro], filtroTexto);
+        }
+    }
+
+    /**
+     * Importa clientes de um arquivo CSV em segundo plano ({@link ImportadorClientes}),
+     * com barra de progresso e opção de cancelar.
+     */
+    private void importarClientes() {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("CSV", "csv", "txt"));
+        if (seletor.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        File arquivo = seletor.getSelectedFile();
+        long tamanho = Math.max(1, arquivo.length());
+        ProgressMonitor monitor = new ProgressMonitor(this, LanguageManager.get("import.title"), arquivo.getName(), 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        ImportadorClientes importador = new ImportadorClientes(arquivo.toPath());
+        Timer verificarCancelamento = new Timer(250, null);
+        verificarCancelamento.addActionListener(e -> {
+            if (!monitor.isCanceled()) return;
+            verificarCancelamento.stop();
+            importador.cancelar(); // Sem interromper: a conexão e o batch em curso terminam normalmente
+        });
+        verificarCancelamento.start();
+
+        CarregadorAssincrono.submeter(() -> {
+            try {
+                ImportadorClientes.Resultado r = importador.importar(bytes ->
+                        SwingUtilities.invokeLater(() -> monitor.setProgress((int) Math.min(99, bytes * 100 / tamanho))));
+                SwingUtilities.invokeLater(() -> {
+                    verificarCancelamento.stop();
+                    monitor.close();
+                    carregarClientes(null);
+                    String resumo = LanguageManager.get("import.read") + " " + r.lidas() + "\n"
+                            + LanguageManager.get("import.imported") + " " + r.importadas() + "\n"
+                            + LanguageManager.get("import.rejected") + " " + r.rejeitadas() + "\n"
+                            + LanguageManager.get("import.time") + " " + r.duracaoMs() + " ms"
+                            + (r.relatorio() != null ? "\n" + LanguageManager.get("import.report") + " " + r.relatorio() : "");
+                    JOptionPane.showMessageDialog(this, resumo, LanguageManager.get("import.title"), JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    verificarCancelamento.stop();
+                    monitor.close();
+                    JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + ex.getMessage(),
+                            LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
+                });
+            }
+        });
     }
 
     private void validarCampos(JTextField nome, JTextField cpf, JTextField data) {
@@ -209,13 +261,10 @@ public class ClienteFrame extends JPanel {
             }
 
             try {
-                Connection conn = Main.Conexao.conectar();
-                PreparedStatement pst = conn.prepareStatement("INSERT INTO tab_clientes (nome, cpf, data_nasc) VALUES (?,?,?)");
-                pst.setString(1, nome.getText());
-                pst.setString(2, cpf.getText());
-                pst.setDate(3, DateUtil.converterEValidarData(data.getText()));
-                pst.executeUpdate();
-                conn.close();
+                try (Connection conn = Main.Conexao.conectar()) {
+                    if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                    new ClienteDAO(conn).inserir(new Cliente(cpf.getText(), nome.getText(), 0, data.getText()));
+                }
                 carregarClientes(null);
                 JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
                 break;
@@ -251,17 +300,25 @@ public class ClienteFrame extends JPanel {
         p.add(new JLabel(LanguageManager.get("col.birth")+" ("+formatoData+"):")); p.add(data);
 
         if(JOptionPane.showConfirmDialog(this, p, LanguageManager.get("client.dialog.edit"), JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
-            try {
-                Connection conn = Main.Conexao.conectar();
-                PreparedStatement pst = conn.prepareStatement("UPDATE tab_clientes SET nome=?, data_nasc=? WHERE id=?");
-                pst.setString(1, nome.getText());
-                pst.setDate(2, DateUtil.converterEValidarData(data.getText()));
-                pst.setInt(3, idAtual);
-                pst.executeUpdate();
-                conn.close();
+            String novoNome = nome.getText(), novaData = data.getText();
+            // Gravação e diário (que espera o fsync) fora da EDT
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            CarregadorAssincrono.gravar(() -> {
+                try (Connection conn = Main.Conexao.conectar()) {
+                    if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                    new ClienteDAO(conn).atualizar(new Cliente(cpfAtual, novoNome, idAtual, novaData));
+                }
+                DiarioEventos.registrar(DiarioEventos.Tipo.CLIENTE_EDITADO, DiarioEventos.dados("id", idAtual, "cpf", cpfAtual,
+                        "nome", novoNome, "nascimento", DateUtil.lerData(novaData).toString()));
+                return idAtual;
+            }, salvo -> {
+                setCursor(null);
                 carregarClientes(null);
                 JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
-            } catch(Exception e) { tratarErroBD(e); }
+            }, e -> {
+                setCursor(null);
+                tratarErroBD(e);
+            });
         }
     }
 
@@ -311,9 +368,10 @@ public class ClienteFrame extends JPanel {
                     String nome = (String) tabelaClientes.getValueAt(r, 1);
                     if(JOptionPane.showConfirmDialog(null, LanguageManager.get("btn.delete") + " '" + nome + "'?", LanguageManager.get("title.attention"), JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
                         try {
-                            Connection conn = Main.Conexao.conectar();
-                            conn.createStatement().execute("DELETE FROM tab_clientes WHERE id="+id);
-                            conn.close();
+                            try (Connection conn = Main.Conexao.conectar()) {
+                                if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                                new ClienteDAO(conn).excluir(id);
+                            }
                             carregarClientes(null);
                             JOptionPane.showMessageDialog(null, LanguageManager.get("msg.deleted"));
                         } catch(Exception ex) { tratarErroBD(ex); }
@@ -6,25 +6,31 @@ import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.SQLException;
 
 /**
  * Painel principal (Dashboard) para gerenciamento da frota de veículos.
  * <p>
  * Funcionalidades:
  * <ul>
+ * <li>Indicadores da frota no topo ({@link IndicadoresFrota}).</li>
  * <li>Tabela CRUD de Veículos.</li>
  * <li>Filtros dinâmicos (Marca, Modelo, ID).</li>
  * <li>Botões de Ação dentro da tabela (Editar/Excluir).</li>
  * </ul>
  */
 class DashboardPanel extends JPanel {
+    private static final int COL_ACOES = 6;
+
     private Main main;
     private DefaultTableModel modelo;
     private JTable tabela;
     private JTextField txtBusca;
     private JComboBox<String> cmbFiltro;
+    private CarregadorAssincrono carregador;
+    private CarregadorAssincrono carregadorIndicadores;
+    private JLabel lblFrota, lblEmUso, lblLivres, lblAtrasadas, lblAbertas, lblUtilizacao;
+    private IndicadoresFrota.Resumo resumo;
 
     public DashboardPanel(Main main) {
         this.main = main;
@@ -34,11 +40,16 @@ class DashboardPanel extends JPanel {
         menu.setBackground(Color.WHITE);
         menu.setBorder(BorderFactory.createMatteBorder(0,0,2,0, new Color(200,200,200)));
 
-        JButton btnCad = new JButton(LanguageManager.get("dash.btn.new"));
-        JButton btnCli = new JButton(LanguageManager.get("menu.client"));
-        JButton btnReserva = new JButton(LanguageManager.get("menu.reserve"));
-        JButton btnVer = new JButton(LanguageManager.get("menu.view"));
-        JButton btnSair = new JButton(LanguageManager.get("menu.exit"));
+        JButton btnCad = new JButton();
+        JButton btnCli = new JButton();
+        JButton btnReserva = new JButton();
+        JButton btnVer = new JButton();
+        JButton btnSair = new JButton();
+        LanguageManager.vincular(btnCad::setText, "dash.btn.new");
+        LanguageManager.vincular(btnCli::setText, "menu.client");
+        LanguageManager.vincular(btnReserva::setText, "menu.reserve");
+        LanguageManager.vincular(btnVer::setText, "menu.view");
+        LanguageManager.vincular(btnSair::setText, "menu.exit");
 
         Main.GlobalStyles.styleButton(btnCad, Main.GlobalStyles.COLOR_BLUE);
         Main.GlobalStyles.styleButton(btnCli, Main.GlobalStyles.COLOR_YELLOW, Color.BLACK);
@@ -60,15 +71,12 @@ class DashboardPanel extends JPanel {
         corpo.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
         JPanel painelBusca = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        painelBusca.add(new JLabel(LanguageManager.get("dash.filter")));
+        JLabel lblFiltro = new JLabel();
+        LanguageManager.vincular(lblFiltro::setText, "dash.filter");
+        painelBusca.add(lblFiltro);
 
-        String[] opcoes = {
-                LanguageManager.get("filter.all"),
-                LanguageManager.get("filter.brand"),
-                LanguageManager.get("filter.model"),
-                LanguageManager.get("filter.id")
-        };
-        cmbFiltro = new JComboBox<>(opcoes);
+        cmbFiltro = new JComboBox<>();
+        LanguageManager.vincularOpcoes(cmbFiltro, "filter.all", "filter.brand", "filter.model", "filter.id");
         cmbFiltro.setBackground(Color.WHITE);
 
         txtBusca = new JTextField(30);
@@ -80,33 +88,44 @@ class DashboardPanel extends JPanel {
                 else if (tipo == 1 || tipo == 2) { if (Character.isDigit(c)) e.consume(); }
             }
         });
-        cmbFiltro.addActionListener(e -> txtBusca.setText(""));
+        // Busca enquanto digita (com debounce); Enter e o botão buscam na hora
+        BuscaDinamica busca = new BuscaDinamica(txtBusca, cmbFiltro::getSelectedIndex, texto -> {
+            // ID inválido (ex: texto colado) só é avisado na busca explícita
+            if (cmbFiltro.getSelectedIndex() == 3 && !texto.trim().isEmpty() && !texto.trim().matches("\\d+")) return;
+            carregarDados(texto);
+        });
+        cmbFiltro.addActionListener(e -> { txtBusca.setText(""); busca.executarAgora(); });
 
-        JButton btnBusca = new JButton(LanguageManager.get("dash.btn.search"));
+        JButton btnBusca = new JButton();
+        LanguageManager.vincular(btnBusca::setText, "dash.btn.search");
         Main.GlobalStyles.styleButton(btnBusca, Main.GlobalStyles.COLOR_BLUE);
         btnBusca.addActionListener(e -> carregarDados(txtBusca.getText()));
         txtBusca.addActionListener(e -> carregarDados(txtBusca.getText()));
 
-        painelBusca.add(cmbFiltro); painelBusca.add(txtBusca); painelBusca.add(btnBusca);
-        corpo.add(painelBusca, BorderLayout.NORTH);
-
-        String[] cols = {
-                LanguageManager.get("col.id"),
-                LanguageManager.get("col.brand"),
-                LanguageManager.get("col.model"),
-                LanguageManager.get("col.color"),
-                LanguageManager.get("col.year"),
-                LanguageManager.get("col.qty"),
-                LanguageManager.get("col.actions")
-        };
+        JLabel lblCarregando = new JLabel();
+        LanguageManager.vincular(lblCarregando::setText, "msg.loading");
+        carregador = new CarregadorAssincrono(this, lblCarregando);
+
+        painelBusca.add(cmbFiltro); painelBusca.add(txtBusca); painelBusca.add(btnBusca); painelBusca.add(lblCarregando);
+
+        JPanel topo = new JPanel(new BorderLayout(10, 10));
+        topo.add(criarPainelIndicadores(), BorderLayout.NORTH);
+        topo.add(painelBusca, BorderLayout.SOUTH);
+        corpo.add(topo, BorderLayout.NORTH);
+
+        // Identificadores das colunas são as chaves de tradução; o título vem do idioma atual
+        String[] cols = {"col.id", "col.brand", "col.model", "col.color", "col.year", "col.qty", "col.actions"};
 
         modelo = new DefaultTableModel(null, cols) {
+            @Override public String getColumnName(int col) {
+                return LanguageManager.get(super.getColumnName(col));
+            }
             @Override public boolean isCellEditable(int row, int col) {
-                String nomeColuna = getColumnName(col);
-                return nomeColuna.equals(LanguageManager.get("col.actions"));
+                return col == COL_ACOES;
             }
         };
         tabela = new JTable(modelo);
+        LanguageManager.vincularCabecalho(tabela);
         tabela.setRowHeight(35);
         tabela.putClientProperty("JTable.autoStartsEdit", Boolean.TRUE);
 
@@ -114,67 +133,104 @@ class DashboardPanel extends JPanel {
         center.setHorizontalAlignment(SwingConstants.CENTER);
         for(int i=0; i<6; i++) tabela.getColumnModel().getColumn(i).setCellRenderer(center);
 
-        tabela.getColumn(LanguageManager.get("col.actions")).setCellRenderer(new ButtonsRenderer());
-        tabela.getColumn(LanguageManager.get("col.actions")).setCellEditor(new ButtonsEditor(new JCheckBox()));
+        tabela.getColumnModel().getColumn(COL_ACOES).setCellRenderer(new ButtonsRenderer());
+        tabela.getColumnModel().getColumn(COL_ACOES).setCellEditor(new ButtonsEditor(new JCheckBox()));
 
         corpo.add(new JScrollPane(tabela), BorderLayout.CENTER);
         add(corpo, BorderLayout.CENTER);
     }
 
+    private JPanel criarPainelIndicadores() {
+        lblFrota = new JLabel("-", SwingConstants.CENTER);
+        lblEmUso = new JLabel("-", SwingConstants.CENTER);
+        lblLivres = new JLabel("-", SwingConstants.CENTER);
+        lblAtrasadas = new JLabel("-", SwingConstants.CENTER);
+        lblAbertas = new JLabel("-", SwingConstants.CENTER);
+        lblAtrasadas.setForeground(Main.GlobalStyles.COLOR_RED);
+
+        JPanel cartoes = new JPanel(new GridLayout(1, 5, 10, 0));
+        cartoes.add(cartaoIndicador(lblFrota, "dash.kpi.fleet"));
+        cartoes.add(cartaoIndicador(lblEmUso, "dash.kpi.in.use"));
+        cartoes.add(cartaoIndicador(lblLivres, "dash.kpi.free"));
+        cartoes.add(cartaoIndicador(lblAtrasadas, "dash.kpi.overdue"));
+        cartoes.add(cartaoIndicador(lblAbertas, "dash.kpi.open"));
+
+        lblUtilizacao = new JLabel(" ");
+        JPanel painel = new JPanel(new BorderLayout(0, 5));
+        painel.add(cartoes, BorderLayout.CENTER);
+        painel.add(lblUtilizacao, BorderLayout.SOUTH);
+
+        carregadorIndicadores = new CarregadorAssincrono(painel, null);
+        LanguageManager.vincular(this::exibirIndicadores);
+        return painel;
+    }
+
+    private static JPanel cartaoIndicador(JLabel valor, String chave) {
+        valor.setFont(new Font("Arial", Font.BOLD, 22));
+        JLabel titulo = new JLabel("", SwingConstants.CENTER);
+        LanguageManager.vincular(titulo::setText, chave);
+        JPanel cartao = new JPanel(new BorderLayout());
+        cartao.setBackground(Color.WHITE);
+        cartao.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createLineBorder(new Color(200,200,200)),
+                BorderFactory.createEmptyBorder(5, 10, 5, 10)));
+        cartao.add(valor, BorderLayout.CENTER);
+        cartao.add(titulo, BorderLayout.SOUTH);
+        return cartao;
+    }
+
     /**
-     * Busca dados no banco e preenche a tabela.
-     * Constrói a query SQL dinamicamente baseada nos filtros selecionados.
-     * @param filtroTexto Texto digitado pelo usuário na barra de busca.
+     * Atualiza os indicadores da frota. Os contadores são mantidos em memória pelo
+     * {@link IndicadoresFrota}; só há ida ao banco no primeiro acesso do dia ou no recálculo periódico.
      */
-    public void carregarDados(String filtroTexto) {
-        modelo.setRowCount(0);
-        Connection conn = Main.Conexao.conectar();
-        if(conn == null) return;
-        try {
-            String sql = "SELECT * FROM tab_veiculos";
-            int tipoFiltro = cmbFiltro.getSelectedIndex();
-            boolean temFiltro = filtroTexto != null && !filtroTexto.trim().isEmpty();
-
-            if (temFiltro) {
-                switch (tipoFiltro) {
-                    case 0: sql += " WHERE marca LIKE ? OR modelo LIKE ?"; break;
-                    case 1: sql += " WHERE marca LIKE ?"; break;
-                    case 2: sql += " WHERE modelo LIKE ?"; break;
-                    case 3:
-                        if (!filtroTexto.matches("\\d+")) {
-                            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error.id"));
-                            return;
-                        }
-                        sql += " WHERE id = ?"; break;
-                }
-            }
-            switch (tipoFiltro) {
-                case 1: sql += " ORDER BY marca ASC"; break;
-                case 2: sql += " ORDER BY modelo ASC"; break;
-                default: sql += " ORDER BY id ASC"; break;
-            }
+    public void atualizarIndicadores() {
+        carregadorIndicadores.carregar(() -> MetricasConsultas.medir("dashboard.indicadores", IndicadoresFrota::obter), r -> {
+            resumo = r;
+            exibirIndicadores();
+        });
+    }
 
-            PreparedStatement pst = conn.prepareStatement(sql);
-            if (temFiltro) {
-                String buscaLike = "%" + filtroTexto + "%";
-                if(tipoFiltro == 0) { pst.setString(1, buscaLike); pst.setString(2, buscaLike); }
-                else if(tipoFiltro == 3) { pst.setInt(1, Integer.parseInt(filtroTexto)); }
-                else { pst.setString(1, buscaLike); }
-            }
+    // Também chamado na troca de idioma (o texto de utilização é composto)
+    private void exibirIndicadores() {
+        IndicadoresFrota.Resumo r = resumo;
+        if (r == null) return;
+        lblFrota.setText(String.valueOf(r.frota()));
+        lblEmUso.setText(String.valueOf(r.emUso()));
+        lblLivres.setText(String.valueOf(r.livres()));
+        lblAtrasadas.setText(String.valueOf(r.atrasadas()));
+        lblAbertas.setText(String.valueOf(r.reservasAbertas()));
+
+        // Os modelos mais utilizados na linha; todos na dica
+        StringBuilder linha = new StringBuilder(LanguageManager.get("dash.kpi.utilization")).append(": ");
+        StringBuilder dica = new StringBuilder("<html>");
+        for (int i = 0; i < r.porModelo().size(); i++) {
+            IndicadoresFrota.Modelo m = r.porModelo().get(i);
+            String texto = m.nome() + " " + m.emUso() + "/" + m.frota() + " (" + m.percentual() + "%)";
+            if (i < 5) linha.append(i == 0 ? "" : "  ·  ").append(texto);
+            dica.append(texto).append("<br>");
+        }
+        lblUtilizacao.setText(linha.toString());
+        lblUtilizacao.setToolTipText(dica.append("</html>").toString());
+    }
 
-            ResultSet rs = pst.executeQuery();
+    /**
+     * Preenche a tabela a partir do {@link CatalogoVeiculos} (filtro e ordenação em memória).
+     * Só há ida ao banco na primeira carga ou na revalidação do cache, por isso a busca
+     * roda em segundo plano ({@link CarregadorAssincrono}).
+     * @param filtroTexto Texto digitado pelo usuário na barra de busca.
+     */
+    public void carregarDados(String filtroTexto) {
+        int tipoFiltro = cmbFiltro.getSelectedIndex();
+        boolean temFiltro = filtroTexto != null && !filtroTexto.trim().isEmpty();
 
-            while(rs.next()) {
-                // 1. Cria o objeto Modelo
-                Veiculo v = new Veiculo();
-                v.setId(rs.getInt("id"));
-                v.setMarca(rs.getString("marca"));
-                v.setModelo(rs.getString("modelo"));
-                v.setCor(rs.getString("cor"));
-                v.setAno(rs.getInt("ano"));
-                v.setQuantidade(rs.getInt("quantidade"));
+        if (temFiltro && tipoFiltro == 3 && !filtroTexto.matches("\\d+")) {
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error.id"));
+            return;
+        }
 
-                // 2. Joga na tabela via Getters
+        carregador.carregar(() -> MetricasConsultas.medir("dashboard.veiculos",
+                () -> CatalogoVeiculos.filtrar(VeiculoDAO.Filtro.values()[tipoFiltro], filtroTexto)), veiculos -> {
+            modelo.setRowCount(0);
+            for (Veiculo v : veiculos) {
                 modelo.addRow(new Object[]{
                         v.getId(),
                         v.getMarca(),
@@ -185,8 +241,7 @@ class DashboardPanel extends JPanel {
                         null
                 });
             }
-            conn.close();
-        } catch(Exception e) { e.printStackTrace(); }
+        });
     }
 
     private void validarSoNumeros(JTextField... campos) {
@@ -224,17 +279,25 @@ class DashboardPanel extends JPanel {
             try {
                 if(ano.getText().isEmpty() || qtd.getText().isEmpty()) throw new Exception(LanguageManager.get("msg.error.numeric"));
 
-                Connection conn = Main.Conexao.conectar();
-                PreparedStatement pst = conn.prepareStatement("INSERT INTO tab_veiculos (marca, modelo, cor, ano, quantidade) VALUES (?,?,?,?,?)");
-                pst.setString(1, marca.getText());
-                pst.setString(2, modelo.getText());
-                pst.setString(3, cor.getText());
-                pst.setInt(4, Integer.parseInt(ano.getText()));
-                pst.setInt(5, Integer.parseInt(qtd.getText()));
-                pst.executeUpdate();
-                conn.close();
-                carregarDados(null);
-                JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
+                Veiculo v = new Veiculo(Integer.parseInt(ano.getText()), 0, marca.getText(), modelo.getText(),
+                        cor.getText(), Integer.parseInt(qtd.getText()));
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                CarregadorAssincrono.gravar(() -> {
+                    try (Connection conn = Main.Conexao.conectar()) {
+                        if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                        new VeiculoDAO(conn).inserir(v);
+                        CatalogoVeiculos.registrarInclusao(v);
+                    }
+                    return v;
+                }, salvo -> {
+                    setCursor(null);
+                    carregarDados(null);
+                    atualizarIndicadores();
+                    JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
+                }, ex -> {
+                    setCursor(null);
+                    tratarErroBD(ex);
+                });
             } catch(Exception ex) {
                 tratarErroBD(ex);
             }
@@ -270,20 +333,28 @@ class DashboardPanel extends JPanel {
             try {
                 if(ano.getText().isEmpty() || qtd.getText().isEmpty()) throw new Exception(LanguageManager.get("msg.error.numeric"));
 
-                Connection conn = Main.Conexao.conectar();
-                String sql = "UPDATE tab_veiculos SET marca=?, modelo=?, cor=?, ano=?, quantidade=? WHERE id=?";
-                PreparedStatement pst = conn.prepareStatement(sql);
-                pst.setString(1, marca.getText());
-                pst.setString(2, modelo.getText());
-                pst.setString(3, cor.getText());
-                pst.setInt(4, Integer.parseInt(ano.getText()));
-                pst.setInt(5, Integer.parseInt(qtd.getText()));
-                pst.setInt(6, idAtual);
-
-                pst.executeUpdate();
-                conn.close();
-                carregarDados(null);
-                JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
+                Veiculo v = new Veiculo(Integer.parseInt(ano.getText()), idAtual, marca.getText(), modelo.getText(),
+                        cor.getText(), Integer.parseInt(qtd.getText()));
+                // Gravação e diário (que espera o fsync) fora da EDT
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                CarregadorAssincrono.gravar(() -> {
+                    try (Connection conn = Main.Conexao.conectar()) {
+                        if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                        new VeiculoDAO(conn).atualizar(v);
+                        CatalogoVeiculos.registrarAlteracao(v);
+                    }
+                    DiarioEventos.registrar(DiarioEventos.Tipo.VEICULO_EDITADO, DiarioEventos.dados("id", idAtual, "marca", v.getMarca(),
+                            "modelo", v.getModelo(), "cor", v.getCor(), "ano", v.getAno(), "quantidade", v.getQuantidade()));
+                    return v;
+                }, salvo -> {
+                    setCursor(null);
+                    carregarDados(null);
+                    atualizarIndicadores();
+                    JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
+                }, ex -> {
+                    setCursor(null);
+                    tratarErroBD(ex);
+                });
             } catch(Exception ex) { tratarErroBD(ex); }
         }
     }
@@ -334,13 +405,23 @@ class DashboardPanel extends JPanel {
                     int id = (int) tabela.getValueAt(r, 0);
                     String mod = (String) tabela.getValueAt(r, 2);
                     if(JOptionPane.showConfirmDialog(null, LanguageManager.get("btn.delete") + " '" + mod + "'?", LanguageManager.get("title.attention"), JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                        try {
-                            Connection conn = Main.Conexao.conectar();
-                            conn.createStatement().execute("DELETE FROM tab_veiculos WHERE id="+id);
-                            conn.close();
+                        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                        CarregadorAssincrono.gravar(() -> {
+                            try (Connection conn = Main.Conexao.conectar()) {
+                                if(conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                                new VeiculoDAO(conn).excluir(id);
+                                CatalogoVeiculos.registrarExclusao(id);
+                            }
+                            return id;
+                        }, excluido -> {
+                            setCursor(null);
                             carregarDados(null);
+                            atualizarIndicadores();
                             JOptionPane.showMessageDialog(null, LanguageManager.get("msg.deleted"));
-                        } catch(Exception ex) { tratarErroBD(ex); }
+                        }, ex -> {
+                            setCursor(null);
+                            tratarErroBD(ex);
+                        });
                     }
                 }
                 fireEditingStopped();
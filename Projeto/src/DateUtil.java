@@ -1,19 +1,44 @@
-import java.text.SimpleDateFormat;
 import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.zone.ZoneRules;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilitário para manipulação e conversão de datas.
  * <p>
  * Esta classe resolve o problema de incompatibilidade entre:
  * 1. String da Interface (ex: "25/12/2023")
- * 2. Objeto de Data do Java (java.util.Date)
+ * 2. Objeto de Data do Java ({@link LocalDate})
  * 3. Objeto de Data do SQL (java.sql.Date)
  * <p>
  * Ela utiliza o {@link LanguageManager} para garantir que a data seja interpretada
  * corretamente de acordo com o país (dia antes do mês ou vice-versa).
+ * <p>
+ * Os formatadores são {@link DateTimeFormatter} imutáveis (seguros entre threads), criados uma vez
+ * por padrão de data e reaproveitados; a conversão de java.sql.Date é feita pelo dia epoch,
+ * sem Calendar.
  * @author Marcos Vinicius
  */
 public class DateUtil {
+    private static final long MS_POR_DIA = 86_400_000L;
+
+    /**
+     * Leitor (aceita dia/mês com 1 ou 2 dígitos, ano com 4) e formatador (sempre 2 dígitos) de um padrão.
+     */
+    private record Formatos(String padrao, DateTimeFormatter leitor, DateTimeFormatter formatador) { }
+
+    private static final Map<String, Formatos> CACHE = new ConcurrentHashMap<>();
+    private static volatile Formatos atuais;
+    private static final ZoneRules FUSO = ZoneId.systemDefault().getRules();
 
     /**
      * Converte uma String digitada pelo usuário para um objeto java.sql.Date.
@@ -23,13 +48,20 @@ public class DateUtil {
      * @throws ParseException Se o texto não for uma data válida.
      */
     public static java.sql.Date converterEValidarData(String dataString) throws ParseException {
-        // Pega o formato dinâmico (dd/MM/yyyy ou MM/dd/yyyy)
-        String pattern = LanguageManager.getDateFormat();
-        SimpleDateFormat formato = new SimpleDateFormat(pattern);
+        return java.sql.Date.valueOf(lerData(dataString));
+    }
 
-        formato.setLenient(false);
-        java.util.Date dataUtil = formato.parse(dataString);
-        return new java.sql.Date(dataUtil.getTime());
+    /**
+     * Converte o texto digitado (formato do idioma atual) para {@link LocalDate}.
+     * @throws ParseException Se o texto não for uma data válida (ex: 31/02).
+     */
+    public static LocalDate lerData(String dataString) throws ParseException {
+        if (dataString == null) throw new ParseException("Data vazia", 0);
+        try {
+            return LocalDate.from(formatos().leitor().parse(dataString.trim()));
+        } catch (DateTimeParseException e) {
+            throw new ParseException(e.getMessage(), e.getErrorIndex());
+        }
     }
 
     /**
@@ -40,8 +72,74 @@ public class DateUtil {
      */
     public static String formatarData(java.sql.Date data) {
         if (data == null) return "";
-        String pattern = LanguageManager.getDateFormat();
-        SimpleDateFormat formato = new SimpleDateFormat(pattern);
-        return formato.format(data);
+        return formatos().formatador().format(LocalDate.ofEpochDay(paraDiaEpoch(data)));
+    }
+
+    /**
+     * Formata uma {@link LocalDate} no formato do idioma atual (ex: datas padrão dos formulários).
+     */
+    public static String formatar(LocalDate data) {
+        return data == null ? "" : formatos().formatador().format(data);
+    }
+
+    /**
+     * Formata uma coluna inteira (ex: uma página do histórico). Datas repetidas em sequência,
+     * comuns em uma página, reaproveitam a String anterior.
+     */
+    public static String[] formatarTodas(java.sql.Date[] datas) {
+        DateTimeFormatter formatador = formatos().formatador();
+        String[] textos = new String[datas.length];
+        long diaAnterior = Long.MIN_VALUE;
+        String textoAnterior = "";
+        for (int i = 0; i < datas.length; i++) {
+            if (datas[i] == null) { textos[i] = ""; continue; }
+            long dia = paraDiaEpoch(datas[i]);
+            if (dia != diaAnterior) {
+                textoAnterior = formatador.format(LocalDate.ofEpochDay(dia));
+                diaAnterior = dia;
+            }
+            textos[i] = textoAnterior;
+        }
+        return textos;
+    }
+
+    /**
+     * Dia epoch (dias desde 01/01/1970) de um java.sql.Date, que o driver entrega como
+     * meia-noite no fuso local.
+     */
+    public static long paraDiaEpoch(java.sql.Date data) {
+        long ms = data.getTime();
+        long deslocamento = FUSO.getOffset(Instant.ofEpochMilli(ms)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(ms + deslocamento, MS_POR_DIA);
+    }
+
+    private static Formatos formatos() {
+        String padrao = LanguageManager.getDateFormat();
+        Formatos f = atuais;
+        if (f == null || !f.padrao().equals(padrao)) {
+            f = CACHE.computeIfAbsent(padrao, DateUtil::criarFormatos);
+            atuais = f;
+        }
+        return f;
+    }
+
+    // Monta leitor e formatador a partir de padrões como "dd/MM/yyyy" ou "MM/dd/yyyy"
+    private static Formatos criarFormatos(String padrao) {
+        DateTimeFormatterBuilder leitor = new DateTimeFormatterBuilder();
+        for (int i = 0; i < padrao.length(); ) {
+            char c = padrao.charAt(i);
+            int fim = i;
+            while (fim < padrao.length() && padrao.charAt(fim) == c) fim++;
+            switch (c) {
+                case 'd' -> leitor.appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE);
+                case 'M' -> leitor.appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE);
+                case 'y' -> leitor.appendValue(ChronoField.YEAR, 4);
+                default -> leitor.appendLiteral(padrao.substring(i, fim));
+            }
+            i = fim;
+        }
+        // STRICT rejeita datas inexistentes (31/02), como o setLenient(false) do SimpleDateFormat
+        DateTimeFormatter formatador = DateTimeFormatter.ofPattern(padrao.replace('y', 'u')).withResolverStyle(ResolverStyle.STRICT);
+        return new Formatos(padrao, leitor.toFormatter().withResolverStyle(ResolverStyle.STRICT), formatador);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diário local, só de acréscimo, dos eventos da estação: reserva criada, reserva devolvida,
+ * veículo editado e cliente editado. Serve para auditoria ({@link #main}), já que no banco as
+ * linhas são alteradas no lugar e não guardam histórico. Os caches da estação
+ * ({@link CatalogoVeiculos}, {@link DisponibilidadeVeiculos}, {@link IndicadoresFrota}) não são
+ * remontados a partir do diário: eles vêm do banco, que também contém as operações das outras estações.
+ * <p>
+ * Formato:
+ * <ul>
+ * <li>Segmentos de tamanho fixo ({@code -Dlocamais.diario.segmentoMb}, padrão 8) mapeados em
+ * memória, em {@code -Dlocamais.diario.dir} (padrão {@code ~/.locamais/diario}). O nome do arquivo
+ * é a sequência do primeiro evento; um segmento cheio é gravado em disco e o próximo é criado.</li>
+ * <li>Cada registro: tamanho dos dados, CRC32C, sequência, instante, tipo e os dados em JSON.
+ * Um registro com CRC inválido (gravação interrompida por queda de energia) marca o fim do diário.</li>
+ * </ul>
+ * Gravação em grupo: {@link #registrar} copia o registro para o mapeamento e espera a thread
+ * {@code diario-gravacao} confirmar o {@code force()}; eventos que chegam enquanto um
+ * {@code force()} está em andamento são gravados juntos no seguinte, então várias threads
+ * (telas, API) pagam um único fsync. Um diretório pertence a um único processo por vez
+ * ({@code diario.lock}); aplicação e API na mesma máquina usam diretórios diferentes.
+ * <p>
+ * O banco continua sendo a fonte da verdade: o evento é registrado após o commit e uma falha no
+ * diário só é registrada no log, sem desfazer a operação.
+ * @author Marcos Vinicius
+ */
+public final class DiarioEventos {
+    private static final int MAGICO = 0x4C4D4431; // "LMD1"
+    private static final int CABECALHO_SEGMENTO = 4;
+    // tamanho (4) + crc (4) + sequência (8) + instante (8) + tipo (1)
+    private static final int CABECALHO_REGISTRO = 25;
+    private static final long ESPERA_GRAVACAO_MS = 2_000;
+
+    public enum Tipo {
+        RESERVA_CRIADA(1), RESERVA_DEVOLVIDA(2), VEICULO_EDITADO(3), CLIENTE_EDITADO(4);
+
+        final byte codigo;
+
+        Tipo(int codigo) {
+            this.codigo = (byte) codigo;
+        }
+
+        static Tipo deCodigo(byte codigo) {
+            for (Tipo t : values()) if (t.codigo == codigo) return t;
+            return null;
+        }
+    }
+
+    /**
+     * Evento lido do diário.
+     */
+    public record Evento(long sequencia, Instant instante, Tipo tipo, Map<String, Object> dados) { }
+
+    private final Path diretorio;
+    private final int tamanhoSegmento;
+    private final Object trava = new Object();
+    private final FileLock dono; // Mantém o diretório reservado enquanto o processo estiver aberto
+    private MappedByteBuffer segmento;   // guardado por trava
+    private long proximaSequencia;       // guardado por trava
+    private long escrita;                // última sequência copiada para o mapeamento (guardado por trava)
+    private long gravada;                // última sequência confirmada em disco (guardado por trava)
+
+    private static final class Holder {
+        static final DiarioEventos INSTANCIA = abrirPadrao();
+
+        private static DiarioEventos abrirPadrao() {
+            Path dir = Path.of(System.getProperty("locamais.diario.dir", Path.of(System.getProperty("user.home"), ".locamais", "diario").toString()));
+            try {
+                return new DiarioEventos(dir, Integer.getInteger("locamais.diario.segmentoMb", 8) * 1024 * 1024);
+            } catch (IOException e) {
+                System.err.println("Diário de eventos desativado: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    DiarioEventos(Path diretorio, int tamanhoSegmento) throws IOException {
+        this.diretorio = diretorio;
+        this.tamanhoSegmento = tamanhoSegmento;
+        Files.createDirectories(diretorio);
+        FileChannel canalTrava = FileChannel.open(diretorio.resolve("diario.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock trava;
+        try { trava = canalTrava.tryLock(); }
+        catch (OverlappingFileLockException e) { trava = null; } // Já aberto nesta JVM
+        dono = trava;
+        if (dono == null) {
+            canalTrava.close();
+            throw new IOException("diretório " + diretorio + " em uso por outro processo");
+        }
+        List<Path> segmentos = listarSegmentos(diretorio);
+        if (segmentos.isEmpty()) {
+            proximaSequencia = 1;
+            segmento = criarSegmento(1);
+        } else {
+            // Continua do último registro válido do último segmento
+            Path ultimo = segmentos.get(segmentos.size() - 1);
+            segmento = mapear(ultimo, FileChannel.MapMode.READ_WRITE, tamanhoSegmento);
+            long[] fim = {sequenciaInicial(ultimo) - 1};
+            int posicao = percorrer(segmento, e -> fim[0] = e.sequencia());
+            proximaSequencia = fim[0] + 1;
+            limparCauda(segmento, posicao);
+            segmento.position(posicao);
+        }
+        escrita = gravada = proximaSequencia - 1;
+
+        Thread gravador = new Thread(this::gravarEmGrupo, "diario-gravacao");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    /**
+     * Registra um evento no diário padrão da estação e espera a gravação em disco.
+     * Falhas são apenas registradas no log.
+     */
+    public static void registrar(Tipo tipo, Map<String, Object> dados) {
+        DiarioEventos diario = Holder.INSTANCIA;
+        if (diario == null) return;
+        try {
+            diario.acrescentar(tipo, dados);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Diário de eventos: falha ao registrar " + tipo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Monta os dados de um evento a partir de pares chave/valor, na ordem informada.
+     */
+    public static Map<String, Object> dados(Object... chavesValores) {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < chavesValores.length; i += 2) dados.put(String.valueOf(chavesValores[i]), chavesValores[i + 1]);
+        return dados;
+    }
+
+    /**
+     * Acrescenta o evento e espera até que ele (e os que chegaram junto) esteja em disco.
+     * @return Sequência atribuída ao evento.
+     */
+    long acrescentar(Tipo tipo, Map<String, Object> dados) throws IOException {
+        byte[] json = Json.escrever(dados).getBytes(StandardCharsets.UTF_8);
+        int tamanho = CABECALHO_REGISTRO + json.length;
+        if (tamanho > tamanhoSegmento - CABECALHO_SEGMENTO) throw new IOException("Evento maior que o segmento: " + tamanho + " bytes");
+        long sequencia;
+        synchronized (trava) {
+            if (segmento.remaining() < tamanho) rotacionar();
+            sequencia = proximaSequencia++;
+            ByteBuffer corpo = ByteBuffer.allocate(tamanho - 8);
+            corpo.putLong(sequencia).putLong(System.currentTimeMillis()).put(tipo.codigo).put(json);
+            CRC32C crc = new CRC32C();
+            crc.update(corpo.array());
+            segmento.putInt(json.length).putInt((int) crc.getValue()).put(corpo.array());
+            escrita = sequencia;
+            trava.notifyAll();
+            aguardarGravacao(sequencia);
+        }
+        return sequencia;
+    }
+
+    // Chamado com a trava: o segmento cheio vai para o disco antes de o próximo ser usado
+    private void rotacionar() throws IOException {
+        segmento.force();
+        gravada = escrita;
+        segmento = criarSegmento(proximaSequencia);
+    }
+
+    // Chamado com a trava (wait a libera enquanto o gravador trabalha)
+    private void aguardarGravacao(long sequencia) throws IOException {
+        long limite = System.currentTimeMillis() + ESPERA_GRAVACAO_MS;
+        while (gravada < sequencia) {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) throw new IOException("tempo esgotado aguardando a gravação em disco do evento " + sequencia);
+            try {
+                trava.wait(restante);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+
+    // Thread de gravação: um force() por rodada cobre todos os eventos escritos até ali
+    private void gravarEmGrupo() {
+        while (true) {
+            MappedByteBuffer alvo;
+            long ate;
+            synchronized (trava) {
+                while (escrita <= gravada) {
+                    try { trava.wait(); }
+                    catch (InterruptedException e) { return; }
+                }
+                alvo = segmento;
+                ate = escrita;
+            }
+            alvo.force();
+            synchronized (trava) {
+                gravada = Math.max(gravada, ate);
+                trava.notifyAll();
+            }
+        }
+    }
+
+    private MappedByteBuffer criarSegmento(long primeiraSequencia) throws IOException {
+        Path arquivo = diretorio.resolve(String.format("diario-%020d.seg", primeiraSequencia));
+        MappedByteBuffer mapa = mapear(arquivo, FileChannel.MapMode.READ_WRITE, tamanhoSegmento);
+        mapa.putInt(MAGICO);
+        return mapa;
+    }
+
+    // Bytes após o último registro válido (registro incompleto de uma queda) são zerados
+    private static void limparCauda(MappedByteBuffer mapa, int posicao) {
+        for (int i = posicao; i < mapa.limit() && i < posicao + CABECALHO_REGISTRO; i++) {
+            if (mapa.get(i) != 0) {
+                for (int j = posicao; j < mapa.limit(); j++) mapa.put(j, (byte) 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reproduz em ordem os eventos de todos os segmentos do diretório, a partir de uma sequência.
+     * A leitura é sequencial sobre os arquivos mapeados e para no primeiro registro inválido.
+     * @return Última sequência lida (ou {@code desde - 1} se não houver eventos).
+     */
+    public static long reproduzir(Path diretorio, long desde, Consumer<Evento> consumidor) throws IOException {
+        List<Path> segmentos = listarSegmentos(diretorio);
+        long[] ultima = {desde - 1};
+        for (int i = 0; i < segmentos.size(); i++) {
+            // Segmento inteiro anterior à sequência pedida: nem é lido
+            if (i + 1 < segmentos.size() && sequenciaInicial(segmentos.get(i + 1)) <= desde) continue;
+            Path arquivo = segmentos.get(i);
+            MappedByteBuffer mapa = mapear(arquivo, FileChannel.MapMode.READ_ONLY, 0);
+            percorrer(mapa, e -> {
+                if (e.sequencia() < desde) return;
+                ultima[0] = e.sequencia();
+                consumidor.accept(e);
+            });
+        }
+        return ultima[0];
+    }
+
+    // Lê os registros válidos a partir do início do segmento; retorna a posição após o último
+    private static int percorrer(ByteBuffer mapa, Consumer<Evento> consumidor) throws IOException {
+        if (mapa.limit() < CABECALHO_SEGMENTO || mapa.getInt(0) != MAGICO) throw new IOException("Segmento de diário inválido");
+        int pos = CABECALHO_SEGMENTO;
+        CRC32C crc = new CRC32C();
+        while (pos + CABECALHO_REGISTRO <= mapa.limit()) {
+            int tamanhoDados = mapa.getInt(pos);
+            if (tamanhoDados <= 0 || pos + CABECALHO_REGISTRO + tamanhoDados > mapa.limit()) break;
+            ByteBuffer corpo = mapa.slice(pos + 8, CABECALHO_REGISTRO - 8 + tamanhoDados);
+            crc.reset();
+            crc.update(corpo.duplicate());
+            if ((int) crc.getValue() != mapa.getInt(pos + 4)) break;
+            Tipo tipo = Tipo.deCodigo(corpo.get(16));
+            if (tipo != null) {
+                byte[] json = new byte[tamanhoDados];
+                corpo.get(CABECALHO_REGISTRO - 8, json);
+                consumidor.accept(new Evento(corpo.getLong(0), Instant.ofEpochMilli(corpo.getLong(8)), tipo,
+                        Json.lerObjeto(new String(json, StandardCharsets.UTF_8))));
+            }
+            pos += CABECALHO_REGISTRO + tamanhoDados;
+        }
+        return pos;
+    }
+
+    private static MappedByteBuffer mapear(Path arquivo, FileChannel.MapMode modo, int tamanho) throws IOException {
+        boolean escrita = modo == FileChannel.MapMode.READ_WRITE;
+        try (FileChannel canal = escrita
+                ? FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois que o canal é fechado
+            if (escrita && canal.size() < tamanho) {
+                try (RandomAccessFile raf = new RandomAccessFile(arquivo.toFile(), "rw")) { raf.setLength(tamanho); }
+            }
+            return canal.map(modo, 0, Math.max(canal.size(), escrita ? tamanho : 0));
+        }
+    }
+
+    private static List<Path> listarSegmentos(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) return List.of();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            // Nomes com a sequência em 20 dígitos: a ordem alfabética é a ordem dos eventos
+            return arquivos.filter(p -> p.getFileName().toString().matches("diario-\\d{20}\\.seg")).sorted().toList();
+        }
+    }
+
+    private static long sequenciaInicial(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(7, 27));
+    }
+
+    /**
+     * Auditoria: imprime os eventos do diário como JSON, um por linha.
+     * <p>
+     * Uso: {@code java DiarioEventos [diretorio] [--desde sequencia] [--tipo RESERVA_CRIADA] [--resumo]}
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(System.getProperty("user.home"), ".locamais", "diario");
+        long desde = 1;
+        Tipo filtro = null;
+        boolean resumo = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--desde" -> desde = Long.parseLong(args[++i]);
+                case "--tipo" -> filtro = Tipo.valueOf(args[++i]);
+                case "--resumo" -> resumo = true;
+                default -> dir = Path.of(args[i]);
+            }
+        }
+        Tipo tipoFiltro = filtro;
+        boolean soResumo = resumo;
+        Map<Tipo, Integer> contagem = new EnumMap<>(Tipo.class);
+        long ultima = reproduzir(dir, desde, e -> {
+            if (tipoFiltro != null && e.tipo() != tipoFiltro) return;
+            contagem.merge(e.tipo(), 1, Integer::sum);
+            if (soResumo) return;
+            Map<String, Object> linha = new LinkedHashMap<>();
+            linha.put("seq", e.sequencia());
+            linha.put("instante", e.instante().toString());
+            linha.put("tipo", e.tipo().name());
+            linha.put("dados", e.dados());
+            System.out.println(Json.escrever(linha));
+        });
+        System.err.println("Eventos por tipo: " + contagem + "; última sequência " + ultima);
+    }
+}
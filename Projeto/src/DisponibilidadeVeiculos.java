@@ -0,0 +1,262 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Disponibilidade dos veículos por período ("quantos Compass estão livres do dia 10 ao 15?").
+ * <p>
+ * A frota de cada veículo vem do {@link CatalogoVeiculos} ({@link VeiculoDAO}); as unidades ocupadas em
+ * cada dia vêm das reservas em aberto ({@link ReservaDAO#listarOcupacoes}):
+ * <ul>
+ * <li>Uma reserva ocupa uma unidade nos dias {@code [retirada, entrega)}: no dia da entrega a
+ * unidade já pode sair de novo (reservas no mesmo dia ocupam um dia).</li>
+ * <li>Uma reserva atrasada ('Em atrazo', ou 'Utilizando' com a entrega já vencida) ocupa a unidade
+ * sem data de fim, até ser devolvida.</li>
+ * </ul>
+ * O {@link Indice} guarda, por veículo, um array de ocupação por dia a partir de hoje (montado com
+ * um array de diferenças e soma acumulada). Livres no período = frota − atrasadas − maior ocupação
+ * diária no período: uma varredura de poucas posições de array, sem ir ao banco.
+ * <p>
+ * O índice segue o mesmo modelo do {@link CatalogoVeiculos}: snapshot imutável, reservas feitas nesta
+ * estação entram por cópia, e após o TTL ele é remontado em segundo plano (descartando a consulta se uma
+ * reserva foi registrada enquanto ela rodava). A palavra final é sempre
+ * do {@link ServicoReserva}, que refaz a verificação no banco com a linha do veículo bloqueada.
+ * @author Marcos Vinicius
+ */
+public final class DisponibilidadeVeiculos {
+    private static final long TTL_MS = 60_000;
+    private static final int TENTATIVAS_RECARGA = 3;
+
+    private static volatile Indice atual;
+    private static final AtomicBoolean recarregando = new AtomicBoolean();
+    private static final Object TRAVA_CARGA = new Object();
+    // Reservas registradas e invalidações desde o início (protegido pela trava da classe)
+    private static long alteracoesLocais;
+
+    private DisponibilidadeVeiculos() { }
+
+    /**
+     * Ocupação por dia de cada veículo (imutável).
+     */
+    static final class Indice {
+        private final long hoje;
+        private final Map<Integer, Agenda> agendas;
+        private final long carregadoEm;
+
+        private Indice(long hoje, Map<Integer, Agenda> agendas, long carregadoEm) {
+            this.hoje = hoje;
+            this.agendas = agendas;
+            this.carregadoEm = carregadoEm;
+        }
+
+        /**
+         * Maior número de unidades ocupadas em algum dia de {@code [retirada, devolucao)}.
+         */
+        int ocupadas(int idVeiculo, LocalDate retirada, LocalDate devolucao) {
+            Agenda a = agendas.get(idVeiculo);
+            if (a == null) return 0;
+            long[] dias = periodo(retirada.toEpochDay(), devolucao.toEpochDay(), hoje);
+            int maior = 0;
+            int fim = (int) Math.min(dias[1] - hoje, a.porDia.length);
+            for (int i = (int) (dias[0] - hoje); i < fim; i++) {
+                if (a.porDia[i] > maior) maior = a.porDia[i];
+            }
+            return a.semFim + maior;
+        }
+
+        // Cópia com mais uma reserva (apenas o array do veículo é copiado)
+        Indice comReserva(int idVeiculo, LocalDate retirada, LocalDate devolucao) {
+            Map<Integer, Agenda> copia = new HashMap<>(agendas);
+            Agenda a = copia.getOrDefault(idVeiculo, new Agenda(0, new int[0]));
+            long[] dias = periodo(retirada.toEpochDay(), devolucao.toEpochDay(), hoje);
+            int[] porDia = Arrays.copyOf(a.porDia, (int) Math.max(a.porDia.length, dias[1] - hoje));
+            for (int i = (int) (dias[0] - hoje); i < dias[1] - hoje; i++) porDia[i]++;
+            copia.put(idVeiculo, new Agenda(a.semFim, porDia));
+            return new Indice(hoje, Collections.unmodifiableMap(copia), carregadoEm);
+        }
+    }
+
+    /**
+     * @param semFim Reservas atrasadas (ocupam uma unidade em todos os dias).
+     * @param porDia Unidades ocupadas em cada dia a partir de hoje (posição 0).
+     */
+    private record Agenda(int semFim, int[] porDia) { }
+
+    /**
+     * Monta o índice a partir das reservas em aberto.
+     * @param hoje Primeiro dia do índice; ocupações de dias anteriores são ignoradas.
+     */
+    static Indice indexar(List<ReservaDAO.Ocupacao> ocupacoes, LocalDate hoje) {
+        long dia0 = hoje.toEpochDay();
+        Map<Integer, Integer> semFim = new HashMap<>();
+        Map<Integer, int[]> diferencas = new HashMap<>();
+        for (ReservaDAO.Ocupacao o : ocupacoes) {
+            // 'Utilizando' com a entrega vencida é um atraso que a varredura ainda não marcou
+            if (o.atrasada() || o.entrega().toEpochDay() < dia0) {
+                semFim.merge(o.idVeiculo(), 1, Integer::sum);
+                continue;
+            }
+            long[] dias = periodo(o.retirada().toEpochDay(), o.entrega().toEpochDay(), dia0);
+            int ini = (int) (dias[0] - dia0), fim = (int) (dias[1] - dia0);
+            int[] dif = diferencas.get(o.idVeiculo());
+            if (dif == null || dif.length <= fim) {
+                dif = dif == null ? new int[Math.max(fim + 1, 64)] : Arrays.copyOf(dif, Math.max(fim + 1, dif.length * 2));
+                diferencas.put(o.idVeiculo(), dif);
+            }
+            dif[ini]++;
+            dif[fim]--;
+        }
+
+        Map<Integer, Agenda> agendas = new HashMap<>();
+        for (Map.Entry<Integer, int[]> e : diferencas.entrySet()) {
+            int[] dif = e.getValue();
+            int ultimo = dif.length - 1;
+            while (ultimo >= 0 && dif[ultimo] == 0) ultimo--; // Corta os dias livres do fim
+            int[] porDia = new int[ultimo + 1];
+            int acumulado = 0;
+            for (int i = 0; i < porDia.length; i++) porDia[i] = acumulado += dif[i];
+            agendas.put(e.getKey(), new Agenda(semFim.getOrDefault(e.getKey(), 0), porDia));
+        }
+        for (Map.Entry<Integer, Integer> e : semFim.entrySet()) agendas.putIfAbsent(e.getKey(), new Agenda(e.getValue(), new int[0]));
+        return new Indice(dia0, Collections.unmodifiableMap(agendas), System.currentTimeMillis());
+    }
+
+    // Dias [inicio, fim) da ocupação, a partir de hoje e com pelo menos um dia
+    private static long[] periodo(long retirada, long entrega, long hoje) {
+        long inicio = Math.max(retirada, hoje);
+        long fim = Math.max(entrega, retirada + 1);
+        return new long[]{inicio, Math.max(fim, inicio)};
+    }
+
+    /**
+     * Unidades do veículo livres em todos os dias do período.
+     * @param frota Tamanho da frota ({@link Veiculo#getQuantidade()}).
+     */
+    static int livres(Indice indice, int idVeiculo, int frota, LocalDate retirada, LocalDate devolucao) {
+        return Math.max(0, frota - indice.ocupadas(idVeiculo, retirada, devolucao));
+    }
+
+    /**
+     * Unidades do veículo livres em todos os dias de {@code [retirada, devolucao)}.
+     */
+    public static int livres(int idVeiculo, LocalDate retirada, LocalDate devolucao) throws SQLException {
+        for (Veiculo v : CatalogoVeiculos.obter()) {
+            if (v.getId() == idVeiculo) return livres(obter(), idVeiculo, v.getQuantidade(), retirada, devolucao);
+        }
+        return 0;
+    }
+
+    /**
+     * Veículo com unidades livres em todos os dias do período.
+     */
+    public record Livre(Veiculo veiculo, int livres) { }
+
+    /**
+     * Veículos com ao menos uma unidade livre no período, em ordem de id.
+     */
+    public static List<Livre> listar(LocalDate retirada, LocalDate devolucao) throws SQLException {
+        Indice indice = obter();
+        List<Livre> livres = new ArrayList<>();
+        for (Veiculo v : CatalogoVeiculos.obter()) {
+            int n = livres(indice, v.getId(), v.getQuantidade(), retirada, devolucao);
+            if (n > 0) livres.add(new Livre(v, n));
+        }
+        return livres;
+    }
+
+    /**
+     * Veículos com ao menos uma unidade livre no período, no formato do combo da tela de reservas.
+     */
+    public static List<ComboBoxItem> disponiveis(LocalDate retirada, LocalDate devolucao) throws SQLException {
+        String sufixo = LanguageManager.get("reserve.free");
+        List<ComboBoxItem> itens = new ArrayList<>();
+        for (Livre l : listar(retirada, devolucao)) {
+            Veiculo v = l.veiculo();
+            itens.add(new ComboBoxItem(v.getId(), v.getMarca() + " - " + v.getModelo() + " (" + v.getCor() + ") - " + l.livres() + " " + sufixo));
+        }
+        return itens;
+    }
+
+    /**
+     * Inclui no índice uma reserva confirmada nesta estação (sem ir ao banco).
+     */
+    public static synchronized void registrarReserva(int idVeiculo, LocalDate retirada, LocalDate devolucao) {
+        alteracoesLocais++; // Mesmo sem índice: uma carga em andamento pode não conter a reserva
+        Indice i = atual;
+        if (i != null) atual = i.comReserva(idVeiculo, retirada, devolucao);
+    }
+
+    /**
+     * Descarta o índice (ex: após uma devolução ou um conflito); a próxima consulta o remonta.
+     */
+    public static synchronized void invalidar() {
+        alteracoesLocais++;
+        atual = null;
+    }
+
+    private static Indice obter() throws SQLException {
+        Indice i = atual;
+        if (i == null || i.hoje != LocalDate.now().toEpochDay()) {
+            synchronized (TRAVA_CARGA) {
+                i = atual;
+                if (i == null || i.hoje != LocalDate.now().toEpochDay()) i = recarregar();
+            }
+        } else if (System.currentTimeMillis() - i.carregadoEm > TTL_MS && recarregando.compareAndSet(false, true)) {
+            CarregadorAssincrono.submeter(() -> {
+                try { recarregar(); }
+                catch (SQLException e) { System.err.println("Disponibilidade: falha ao revalidar: " + e.getMessage()); }
+                finally { recarregando.set(false); }
+            });
+        }
+        return i;
+    }
+
+    private static Indice recarregar() throws SQLException {
+        for (int tentativa = 1; ; tentativa++) {
+            long alteracoesAntes = alteracoesLocais();
+            Indice i = publicar(indexar(consultar(), LocalDate.now()), alteracoesAntes, tentativa == TENTATIVAS_RECARGA);
+            if (i != null) return i;
+        }
+    }
+
+    private static synchronized long alteracoesLocais() {
+        return alteracoesLocais;
+    }
+
+    private static List<ReservaDAO.Ocupacao> consultar() throws SQLException {
+        // A consulta roda fora da trava para não bloquear o registro de reservas
+        List<ReservaDAO.Ocupacao> ocupacoes;
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) {
+                // Sem banco: instantâneo do modo offline mais as reservas na fila desta estação
+                ocupacoes = ModoOffline.ocupacoes();
+                if (ocupacoes == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            } else {
+                ocupacoes = new ReservaDAO(conn).listarOcupacoes(null);
+            }
+        }
+        return ocupacoes;
+    }
+
+    /**
+     * Publica o índice de uma consulta, se nenhuma reserva foi registrada nem o índice invalidado desde que ela começou.
+     * @param ultimaTentativa Com alterações no meio: mantém o índice atual (que já as contém) ou, sem
+     *        índice, publica o novo já vencido, para a próxima leitura remontá-lo.
+     * @return null se a consulta deve ser refeita.
+     */
+    private static synchronized Indice publicar(Indice novo, long alteracoesAntes, boolean ultimaTentativa) {
+        Indice anterior = atual;
+        boolean alterado = alteracoesLocais != alteracoesAntes;
+        if (alterado && !ultimaTentativa) return null;
+        if (alterado && anterior != null && anterior.hoje == novo.hoje) return anterior;
+        atual = alterado ? new Indice(novo.hoje, novo.agendas, 0) : novo;
+        return atual;
+    }
+}
@@ -0,0 +1,449 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exportação do histórico de reservas (com cliente e veículo) para CSV ou XLSX, para a
+ * contabilidade, em memória constante mesmo com milhões de linhas.
+ * <p>
+ * Pipeline:
+ * <ul>
+ * <li>As reservas com retirada no período são lidas em fluxo ({@code fetchSize = Integer.MIN_VALUE}
+ * no driver do MySQL: uma linha por vez, sem carregar o resultado inteiro), em uma conexão
+ * dedicada fora do pool ({@link PoolConexoes#abrirDedicada}), primeiro de tab_reservas e depois,
+ * se pedido, de tab_reservas_arquivo ({@link ArquivoReservas}).</li>
+ * <li>Cada linha é escrita direto no arquivo por um writer com buffer, reaproveitando o mesmo
+ * objeto de linha; nada é acumulado.</li>
+ * <li>XLSX: o pacote é gerado em fluxo com {@link ZipOutputStream} e células de texto embutidas
+ * (sem tabela de strings compartilhadas, que cresceria com o arquivo). Passando de
+ * {@value #LINHAS_POR_PLANILHA} linhas, limite do Excel, continua em uma planilha nova.</li>
+ * </ul>
+ * {@link #cancelar()} interrompe a exportação: a consulta é cancelada no servidor e o arquivo
+ * parcial é removido. A thread não deve ser interrompida: o canal do arquivo e o socket do driver
+ * seriam fechados no meio da escrita e a exportação terminaria em erro, não cancelada.
+ * @author Marcos Vinicius
+ */
+public class ExportadorReservas {
+    // Limite de linhas de uma planilha do Excel, contando o cabeçalho
+    static final int LINHAS_POR_PLANILHA = 1_048_576;
+    private static final int INTERVALO_PROGRESSO = 1000;
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final String SQL_PERIODO = " WHERE r.data_reserva BETWEEN ? AND ?";
+    private static final String SQL_EXPORTAR = ReservaDAO.SQL_COLUNAS + ReservaDAO.SQL_JOIN + SQL_PERIODO;
+    private static final String SQL_EXPORTAR_ARQUIVO = ReservaDAO.SQL_COLUNAS
+            + ReservaDAO.SQL_JOIN.replace("FROM tab_reservas r", "FROM tab_reservas_arquivo r") + SQL_PERIODO;
+    private static final String SQL_CONTAR = "SELECT COUNT(*) FROM tab_reservas WHERE data_reserva BETWEEN ? AND ?";
+    private static final String SQL_CONTAR_ARQUIVO = "SELECT COUNT(*) FROM tab_reservas_arquivo WHERE data_reserva BETWEEN ? AND ?";
+
+    public enum Formato {
+        CSV, XLSX;
+
+        /**
+         * Formato pela extensão do arquivo (CSV se não for .xlsx).
+         */
+        public static Formato doArquivo(Path arquivo) {
+            return arquivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xlsx") ? XLSX : CSV;
+        }
+    }
+
+    /**
+     * Resumo da exportação.
+     * @param cancelada true se foi interrompida (o arquivo parcial já foi removido).
+     */
+    public record Resultado(long linhas, Path arquivo, boolean cancelada, long duracaoMs) { }
+
+    private final Path destino;
+    private final LocalDate de, ate;
+    private final boolean comArquivo;
+    private volatile boolean cancelada;
+    private volatile PreparedStatement emAndamento;
+
+    /**
+     * @param de Primeiro dia de retirada (inclusive).
+     * @param ate Último dia de retirada (inclusive).
+     * @param comArquivo Inclui as reservas arquivadas.
+     */
+    public ExportadorReservas(Path destino, LocalDate de, LocalDate ate, boolean comArquivo) {
+        this.destino = destino;
+        this.de = de;
+        this.ate = ate;
+        this.comArquivo = comArquivo;
+    }
+
+    /**
+     * Quantidade de reservas do período (para a barra de progresso; chamar fora da EDT).
+     */
+    public long contar() throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            long total = contar(conn, SQL_CONTAR);
+            if (comArquivo) total += contar(conn, SQL_CONTAR_ARQUIVO);
+            return total;
+        }
+    }
+
+    private long contar(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            pst.setDate(1, java.sql.Date.valueOf(de));
+            pst.setDate(2, java.sql.Date.valueOf(ate));
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Pede o cancelamento da exportação em andamento (de qualquer thread, exceto a EDT:
+     * {@code Statement.cancel()} abre uma conexão própria no driver).
+     */
+    public void cancelar() {
+        cancelada = true;
+        PreparedStatement pst = emAndamento;
+        if (pst == null) return;
+        try { pst.cancel(); } catch (SQLException ignored) { } // A consulta pode já ter terminado
+    }
+
+    /**
+     * Executa a exportação (chamar fora da EDT).
+     * @param aoProgredir Recebe a quantidade de linhas já escritas.
+     */
+    public Resultado exportar(LongConsumer aoProgredir) throws IOException, SQLException {
+        long inicio = System.currentTimeMillis();
+        long linhas = 0;
+        try (Connection conn = Main.Conexao.getPool().abrirDedicada();
+             Saida saida = Formato.doArquivo(destino) == Formato.XLSX ? new Xlsx(destino) : new Csv(destino)) {
+            saida.cabecalho(cabecalho());
+            Linha linha = new Linha();
+            for (String sql : comArquivo ? new String[]{SQL_EXPORTAR, SQL_EXPORTAR_ARQUIVO} : new String[]{SQL_EXPORTAR}) {
+                if (cancelada) break;
+                try (PreparedStatement pst = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pst.setFetchSize(Integer.MIN_VALUE); // Fluxo linha a linha no Connector/J
+                    pst.setDate(1, java.sql.Date.valueOf(de));
+                    pst.setDate(2, java.sql.Date.valueOf(ate));
+                    emAndamento = pst;
+                    try (ResultSet rs = pst.executeQuery()) {
+                        while (rs.next()) {
+                            if (cancelada) {
+                                // Sem o cancelamento no servidor, fechar o ResultSet leria o restante do fluxo
+                                pst.cancel();
+                                break;
+                            }
+                            linha.ler(rs);
+                            saida.linha(linha);
+                            if (++linhas % INTERVALO_PROGRESSO == 0) aoProgredir.accept(linhas);
+                        }
+                    } finally {
+                        emAndamento = null;
+                    }
+                }
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(destino);
+            // Depois do pedido de cancelamento, a consulta interrompida no servidor chega como erro
+            if (cancelada) return new Resultado(linhas, destino, true, System.currentTimeMillis() - inicio);
+            throw e;
+        }
+        if (cancelada) Files.deleteIfExists(destino);
+        else aoProgredir.accept(linhas);
+        return new Resultado(linhas, destino, cancelada, System.currentTimeMillis() - inicio);
+    }
+
+    private static String[] cabecalho() {
+        return new String[]{
+                LanguageManager.get("col.id"), LanguageManager.get("col.cpf"), LanguageManager.get("col.name"),
+                LanguageManager.get("col.brand"), LanguageManager.get("col.model"), LanguageManager.get("col.color"),
+                LanguageManager.get("col.plate"), LanguageManager.get("reserve.pickup"), LanguageManager.get("reserve.return"),
+                LanguageManager.get("reserve.status")
+        };
+    }
+
+    // Linha reaproveitada a cada registro lido; datas como dia epoch (-1 = sem data)
+    private static final class Linha {
+        int id;
+        String cpf, nome, marca, modelo, cor, placa, situacao;
+        long retirada, entrega;
+
+        void ler(ResultSet rs) throws SQLException {
+            id = rs.getInt("id");
+            cpf = ValidadorCPF.formatarCPF(rs.getString("cpf"));
+            nome = rs.getString("nome");
+            marca = rs.getString("marca");
+            modelo = rs.getString("modelo");
+            cor = rs.getString("cor");
+            placa = rs.getString("placa");
+            retirada = dia(rs.getDate("data_reserva"));
+            entrega = dia(rs.getDate("data_entrega"));
+            situacao = rs.getString("situacao");
+        }
+
+        private static long dia(java.sql.Date data) {
+            return data == null ? -1 : DateUtil.paraDiaEpoch(data);
+        }
+    }
+
+    private interface Saida extends Closeable {
+        void cabecalho(String[] titulos) throws IOException;
+
+        void linha(Linha l) throws IOException;
+    }
+
+    /**
+     * CSV com ';' e BOM (abre direto no Excel em português), datas no formato do idioma.
+     */
+    private static final class Csv implements Saida {
+        private final BufferedWriter out;
+        // Datas repetidas em sequência reaproveitam o texto anterior
+        private long diaAnterior = Long.MIN_VALUE;
+        private String textoAnterior = "";
+
+        Csv(Path destino) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(destino), StandardCharsets.UTF_8), TAMANHO_BUFFER);
+            out.write('\uFEFF');
+        }
+
+        @Override
+        public void cabecalho(String[] titulos) throws IOException {
+            for (int i = 0; i < titulos.length; i++) {
+                if (i > 0) out.write(';');
+                campo(titulos[i]);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void linha(Linha l) throws IOException {
+            out.write(Integer.toString(l.id));
+            out.write(';'); campo(l.cpf);
+            out.write(';'); campo(l.nome);
+            out.write(';'); campo(l.marca);
+            out.write(';'); campo(l.modelo);
+            out.write(';'); campo(l.cor);
+            out.write(';'); campo(l.placa);
+            out.write(';'); out.write(data(l.retirada));
+            out.write(';'); out.write(data(l.entrega));
+            out.write(';'); campo(l.situacao);
+            out.write("\r\n");
+        }
+
+        private void campo(String valor) throws IOException {
+            if (valor == null) return;
+            boolean aspas = false;
+            for (int i = 0; i < valor.length() && !aspas; i++) {
+                char c = valor.charAt(i);
+                aspas = c == ';' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!aspas) { out.write(valor); return; }
+            out.write('"');
+            out.write(valor.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        private String data(long dia) {
+            if (dia < 0) return "";
+            if (dia != diaAnterior) {
+                textoAnterior = DateUtil.formatar(LocalDate.ofEpochDay(dia));
+                diaAnterior = dia;
+            }
+            return textoAnterior;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Pacote SpreadsheetML mínimo escrito em fluxo: as planilhas primeiro e, no fim, o
+     * workbook e os índices do pacote (só então se sabe quantas planilhas foram criadas).
+     */
+    private static final class Xlsx implements Saida {
+        private static final String[] COLUNAS = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J"};
+        // Dia epoch 0 (01/01/1970) no sistema de datas do Excel
+        private static final long DIA_EXCEL_1970 = 25569;
+        private static final String CABECALHO_PLANILHA = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>";
+        private static final String FIM_PLANILHA = "</sheetData></worksheet>";
+
+        private final ZipOutputStream zip;
+        private final Writer out;
+        private String[] titulos;
+        private int planilhas;
+        private int linhaAtual; // Linha (base 1) da planilha atual
+
+        Xlsx(Path destino) throws IOException {
+            OutputStream arquivo = Files.newOutputStream(destino);
+            zip = new ZipOutputStream(arquivo);
+            // O writer nunca é fechado antes do zip: só esvaziado ao fim de cada entrada
+            out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        }
+
+        @Override
+        public void cabecalho(String[] titulos) throws IOException {
+            this.titulos = titulos;
+            novaPlanilha();
+        }
+
+        private void novaPlanilha() throws IOException {
+            if (planilhas > 0) fecharEntrada(FIM_PLANILHA);
+            planilhas++;
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + planilhas + ".xml"));
+            out.write(CABECALHO_PLANILHA);
+            linhaAtual = 1;
+            out.write("<row r=\"1\">");
+            for (int i = 0; i < titulos.length; i++) texto(i, titulos[i]);
+            out.write("</row>");
+        }
+
+        @Override
+        public void linha(Linha l) throws IOException {
+            if (linhaAtual == LINHAS_POR_PLANILHA) novaPlanilha();
+            linhaAtual++;
+            out.write("<row r=\"");
+            out.write(Integer.toString(linhaAtual));
+            out.write("\">");
+            numero(0, l.id);
+            texto(1, l.cpf);
+            texto(2, l.nome);
+            texto(3, l.marca);
+            texto(4, l.modelo);
+            texto(5, l.cor);
+            texto(6, l.placa);
+            data(7, l.retirada);
+            data(8, l.entrega);
+            texto(9, l.situacao);
+            out.write("</row>");
+        }
+
+        private void referencia(int coluna) throws IOException {
+            out.write("<c r=\"");
+            out.write(COLUNAS[coluna]);
+            out.write(Integer.toString(linhaAtual));
+            out.write('"');
+        }
+
+        private void texto(int coluna, String valor) throws IOException {
+            if (valor == null) return;
+            referencia(coluna);
+            out.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            escapar(valor);
+            out.write("</t></is></c>");
+        }
+
+        private void numero(int coluna, long valor) throws IOException {
+            referencia(coluna);
+            out.write("><v>");
+            out.write(Long.toString(valor));
+            out.write("</v></c>");
+        }
+
+        // Número de série do Excel com o estilo de data (s="1" em styles.xml)
+        private void data(int coluna, long dia) throws IOException {
+            if (dia < 0) return;
+            referencia(coluna);
+            out.write(" s=\"1\"><v>");
+            out.write(Long.toString(dia + DIA_EXCEL_1970));
+            out.write("</v></c>");
+        }
+
+        private void escapar(String valor) throws IOException {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                switch (c) {
+                    case '&' -> out.write("&amp;");
+                    case '<' -> out.write("&lt;");
+                    case '>' -> out.write("&gt;");
+                    default -> {
+                        // Caracteres de controle não são permitidos em XML 1.0
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') out.write(c);
+                    }
+                }
+            }
+        }
+
+        private void fecharEntrada(String fim) throws IOException {
+            out.write(fim);
+            out.flush();
+            zip.closeEntry();
+        }
+
+        private void entrada(String nome, String conteudo) throws IOException {
+            zip.putNextEntry(new ZipEntry(nome));
+            fecharEntrada(conteudo);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (planilhas > 0) {
+                    fecharEntrada(FIM_PLANILHA);
+                    escreverPacote();
+                }
+            } finally {
+                out.close(); // Fecha o zip (diretório central) e o arquivo
+            }
+        }
+
+        private void escreverPacote() throws IOException {
+            StringBuilder tipos = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+            StringBuilder folhas = new StringBuilder();
+            StringBuilder relacoes = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+            for (int i = 1; i <= planilhas; i++) {
+                tipos.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                        .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+                folhas.append("<sheet name=\"").append(LanguageManager.get("export.sheet")).append(planilhas > 1 ? " " + i : "")
+                        .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+                relacoes.append("<Relationship Id=\"rId").append(i)
+                        .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                        .append(i).append(".xml\"/>");
+            }
+            relacoes.append("<Relationship Id=\"rId").append(planilhas + 1)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                    .append("</Relationships>");
+            tipos.append("</Types>");
+
+            entrada("[Content_Types].xml", tipos.toString());
+            entrada("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            entrada("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                    + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>"
+                    + folhas + "</sheets></workbook>");
+            entrada("xl/_rels/workbook.xml.rels", relacoes.toString());
+            // Estilo 1: data no formato curto do Excel (numFmtId 14, segue o idioma de quem abre)
+            entrada("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                    + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                    + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                    + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                    + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                    + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                    + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                    + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                    + "</styleSheet>");
+        }
+    }
+}
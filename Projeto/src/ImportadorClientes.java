@@ -0,0 +1,240 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongConsumer;
+
+/**
+ * Importação de clientes em massa a partir de um arquivo CSV ({@code nome;cpf;data_nasc}).
+ * <p>
+ * Pipeline:
+ * <ol>
+ * <li>O arquivo é lido em fluxo, em lotes de {@link #TAMANHO_LOTE} linhas (nunca inteiro na memória).</li>
+ * <li>Cada lote é validado em paralelo (CPF com {@link ValidadorCPF}, data com {@link DateUtil}),
+ * enquanto o lote anterior é gravado.</li>
+ * <li>Duplicados são detectados em memória: contra os CPFs já cadastrados (carregados uma vez)
+ * e contra as linhas anteriores do próprio arquivo.</li>
+ * <li>Cada lote é gravado com um batch JDBC em uma transação própria. Se o batch falhar
+ * (ex: CPF cadastrado por outra estação no meio da importação), o lote é desfeito e
+ * regravado linha a linha para isolar as linhas com problema.</li>
+ * </ol>
+ * As linhas recusadas vão para um relatório {@code <arquivo>-rejeitados.csv} ao lado do original.
+ * O separador (';' ou ',') é detectado na primeira linha; a primeira linha é ignorada se for cabeçalho.
+ * @author Marcos Vinicius
+ */
+public class ImportadorClientes {
+    public static final int TAMANHO_LOTE = 1000;
+    private static final int TAMANHO_MAXIMO_NOME = 100; // tab_clientes.nome varchar(100)
+
+    /**
+     * Resumo da importação.
+     * @param relatorio Arquivo com as linhas recusadas (null se nenhuma foi recusada).
+     */
+    public record Resultado(long lidas, long importadas, long rejeitadas, Path relatorio, long duracaoMs) { }
+
+    // Linha como lida do arquivo
+    private record Bruta(long numero, String texto) { }
+
+    // Linha depois da validação: cliente preenchido ou motivo da recusa
+    private record Linha(long numero, String conteudo, ClienteDAO.NovoCliente cliente, String motivo) {
+        static Linha recusada(long numero, String conteudo, String motivo) {
+            return new Linha(numero, conteudo, null, motivo);
+        }
+    }
+
+    private final Path arquivo;
+    private final Path relatorio;
+    private BufferedWriter saidaRelatorio;
+    private long importadas;
+    private long rejeitadas;
+    private volatile boolean cancelado;
+
+    public ImportadorClientes(Path arquivo) {
+        this.arquivo = arquivo;
+        String nome = arquivo.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        this.relatorio = arquivo.resolveSibling(nome + "-rejeitados.csv");
+    }
+
+    /**
+     * Pede o cancelamento da importação; pode ser chamado de qualquer thread. A importação
+     * para ao fim do lote atual e os lotes já gravados permanecem.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * Executa a importação (chamar fora da EDT). Ver {@link #cancelar()}.
+     * @param aoProgredir Recebe a quantidade aproximada de bytes já lidos do arquivo.
+     */
+    public Resultado importar(LongConsumer aoProgredir) throws IOException, SQLException {
+        long inicio = System.currentTimeMillis();
+        long lidas = 0, bytes = 0, numero = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8);
+             Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            ClienteDAO dao = new ClienteDAO(conn);
+            Set<String> noBanco = dao.listarCpfs();
+            Set<String> noArquivo = new HashSet<>();
+
+            char separador = ';';
+            List<Bruta> brutas = new ArrayList<>(TAMANHO_LOTE);
+            CompletableFuture<List<Linha>> pendente = null;
+            String texto;
+            while (true) {
+                texto = in.readLine();
+                if (texto != null) {
+                    numero++;
+                    bytes += texto.length() + 1;
+                    if (numero == 1) {
+                        if (texto.startsWith("\uFEFF")) texto = texto.substring(1); // BOM do Excel
+                        separador = texto.indexOf(';') >= 0 ? ';' : ',';
+                        if (texto.toLowerCase(Locale.ROOT).contains("cpf")) continue; // Cabeçalho
+                    }
+                    if (!texto.isBlank()) brutas.add(new Bruta(numero, texto));
+                    if (brutas.size() < TAMANHO_LOTE) continue;
+                }
+                if (cancelado) break;
+
+                // Valida o lote atual em paralelo enquanto grava o anterior
+                CompletableFuture<List<Linha>> proximo = validarEmParalelo(brutas, separador);
+                lidas += brutas.size();
+                brutas = new ArrayList<>(TAMANHO_LOTE);
+                if (pendente != null) gravar(dao, conn, aguardar(pendente), noBanco, noArquivo);
+                pendente = proximo;
+                aoProgredir.accept(bytes);
+                if (texto == null) break;
+            }
+            if (pendente != null && !cancelado) {
+                gravar(dao, conn, aguardar(pendente), noBanco, noArquivo);
+            }
+        } finally {
+            if (saidaRelatorio != null) saidaRelatorio.close();
+        }
+        return new Resultado(lidas, importadas, rejeitadas, rejeitadas > 0 ? relatorio : null,
+                System.currentTimeMillis() - inicio);
+    }
+
+    private static CompletableFuture<List<Linha>> validarEmParalelo(List<Bruta> brutas, char separador) {
+        return CompletableFuture.supplyAsync(() -> brutas.parallelStream()
+                .map(b -> validar(b.numero(), b.texto(), separador))
+                .toList()); // Stream ordenado: a ordem do arquivo é preservada
+    }
+
+    private static Linha validar(long numero, String conteudo, char separador) {
+        List<String> campos = dividir(conteudo, separador);
+        if (campos.size() < 3) return Linha.recusada(numero, conteudo, LanguageManager.get("import.reject.format"));
+
+        String nome = campos.get(0).trim();
+        if (nome.isEmpty() || nome.length() > TAMANHO_MAXIMO_NOME) {
+            return Linha.recusada(numero, conteudo, LanguageManager.get("import.reject.name"));
+        }
+        long chave = ValidadorCPF.paraChave(campos.get(1));
+        if (!ValidadorCPF.isValida(chave)) return Linha.recusada(numero, conteudo, LanguageManager.get("msg.error.cpf"));
+        String cpf = ValidadorCPF.paraTexto(chave);
+        try {
+            java.sql.Date nascimento = DateUtil.converterEValidarData(campos.get(2).trim());
+            return new Linha(numero, conteudo, new ClienteDAO.NovoCliente(nome, cpf, nascimento), null);
+        } catch (ParseException e) {
+            return Linha.recusada(numero, conteudo, LanguageManager.get("import.reject.date"));
+        }
+    }
+
+    /**
+     * Remove duplicados e grava as linhas válidas do lote em uma transação.
+     */
+    private void gravar(ClienteDAO dao, Connection conn, List<Linha> linhas, Set<String> noBanco, Set<String> noArquivo)
+            throws SQLException, IOException {
+        List<ClienteDAO.NovoCliente> lote = new ArrayList<>(linhas.size());
+        List<Linha> origem = new ArrayList<>(linhas.size());
+        for (Linha l : linhas) {
+            if (l.motivo() != null) { rejeitar(l.numero(), l.conteudo(), l.motivo()); continue; }
+            String cpf = l.cliente().cpf();
+            if (noBanco.contains(cpf)) { rejeitar(l.numero(), l.conteudo(), LanguageManager.get("import.reject.duplicate.db")); continue; }
+            if (!noArquivo.add(cpf)) { rejeitar(l.numero(), l.conteudo(), LanguageManager.get("import.reject.duplicate.file")); continue; }
+            lote.add(l.cliente());
+            origem.add(l);
+        }
+        if (lote.isEmpty()) return;
+
+        conn.setAutoCommit(false);
+        try {
+            dao.inserirLote(lote);
+            conn.commit();
+            importadas += lote.size();
+        } catch (SQLException e) {
+            conn.rollback();
+            // Regrava linha a linha: só as linhas com problema ficam de fora
+            for (int i = 0; i < lote.size(); i++) {
+                try {
+                    dao.inserir(lote.get(i));
+                    importadas++;
+                } catch (SQLIntegrityConstraintViolationException dup) {
+                    rejeitar(origem.get(i).numero(), origem.get(i).conteudo(), LanguageManager.get("import.reject.duplicate.db"));
+                } catch (SQLException erro) {
+                    rejeitar(origem.get(i).numero(), origem.get(i).conteudo(), erro.getMessage());
+                }
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void rejeitar(long numero, String conteudo, String motivo) throws IOException {
+        if (saidaRelatorio == null) {
+            saidaRelatorio = Files.newBufferedWriter(relatorio, StandardCharsets.UTF_8);
+            saidaRelatorio.write(LanguageManager.get("import.report.header"));
+            saidaRelatorio.newLine();
+        }
+        rejeitadas++;
+        saidaRelatorio.write(numero + ";\"" + motivo.replace("\"", "\"\"") + "\";" + conteudo);
+        saidaRelatorio.newLine();
+    }
+
+    private static <T> T aguardar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /**
+     * Divide uma linha CSV respeitando campos entre aspas (ex: "Silva, João").
+     */
+    static List<String> dividir(String linha, char separador) {
+        List<String> campos = new ArrayList<>(3);
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '"') {
+                if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') { atual.append('"'); i++; }
+                else entreAspas = !entreAspas;
+            } else if (c == separador && !entreAspas) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
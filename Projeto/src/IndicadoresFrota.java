@@ -0,0 +1,198 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Indicadores da frota exibidos no topo do Dashboard (reservas em aberto, veículos em uso,
+ * livres hoje, atrasos e utilização por modelo).
+ * <p>
+ * Em vez de varrer {@code tab_reservas} a cada abertura do Dashboard, são mantidos contadores
+ * por veículo ({@link ReservaDAO.Contagem}):
+ * <ul>
+ * <li>Reservas e devoluções feitas nesta estação ajustam os contadores do veículo na hora
+ * ({@link #registrarReserva}, {@link #registrarDevolucao}), por cópia (copy-on-write).</li>
+ * <li>O tamanho da frota vem do {@link CatalogoVeiculos}, que já reflete o cadastro e a
+ * edição de veículos.</li>
+ * <li>A cada {@code -Dlocamais.indicadores.intervalo} minutos (padrão 10), e na virada do dia,
+ * os contadores são recalculados por uma única consulta agregada
+ * ({@link ReservaDAO#contarAbertas}), corrigindo o desvio causado por outras estações e por
+ * reservas futuras que passam a estar em uso.</li>
+ * </ul>
+ * Um ajuste local feito durante um recálculo pode ou não estar na contagem (depende de o commit ter
+ * vindo antes ou depois da consulta): o resultado é descartado e a consulta refeita, em vez de
+ * reaplicar o ajuste e contá-lo duas vezes.
+ * @author Marcos Vinicius
+ */
+public final class IndicadoresFrota {
+    private static final long INTERVALO_MS = Long.getLong("locamais.indicadores.intervalo", 10) * 60_000;
+    private static final int TENTATIVAS_RECALCULO = 3;
+
+    /**
+     * Utilização de um modelo (marca + modelo, somando as cores).
+     */
+    public record Modelo(String nome, int frota, int emUso) {
+        public int percentual() {
+            return frota <= 0 ? 0 : Math.round(100f * emUso / frota);
+        }
+    }
+
+    /**
+     * Indicadores da frota hoje.
+     * @param porModelo Em ordem decrescente de utilização.
+     */
+    public record Resumo(int frota, int emUso, int livres, int atrasadas, int reservasAbertas, List<Modelo> porModelo) { }
+
+    private record Estado(long dia, Map<Integer, ReservaDAO.Contagem> porVeiculo, long recalculadoEm) { }
+
+    private static volatile Estado atual;
+    private static final AtomicBoolean recalculando = new AtomicBoolean();
+    private static final Object TRAVA_CARGA = new Object();
+    // Ajustes locais e invalidações desde o início (guardado por IndicadoresFrota.class)
+    private static long alteracoesLocais;
+
+    private IndicadoresFrota() { }
+
+    /**
+     * Monta o resumo a partir dos contadores e do catálogo. Só acessa o banco na primeira
+     * chamada do dia (ou após {@link #invalidar()}); depois do intervalo recalcula em segundo plano.
+     */
+    public static Resumo obter() throws SQLException {
+        return resumir(estado().porVeiculo(), CatalogoVeiculos.obter());
+    }
+
+    static Resumo resumir(Map<Integer, ReservaDAO.Contagem> porVeiculo, List<Veiculo> veiculos) {
+        int frota = 0, emUso = 0, livres = 0, atrasadas = 0, abertas = 0;
+        Map<String, int[]> modelos = new LinkedHashMap<>();
+        for (Veiculo v : veiculos) {
+            ReservaDAO.Contagem c = porVeiculo.get(v.getId());
+            int usoVeiculo = c == null ? 0 : c.emUso();
+            frota += v.getQuantidade();
+            emUso += usoVeiculo;
+            livres += Math.max(0, v.getQuantidade() - usoVeiculo);
+            int[] m = modelos.computeIfAbsent(v.getMarca() + " " + v.getModelo(), k -> new int[2]);
+            m[0] += v.getQuantidade();
+            m[1] += usoVeiculo;
+        }
+        for (ReservaDAO.Contagem c : porVeiculo.values()) {
+            atrasadas += c.atrasadas();
+            abertas += c.abertas();
+        }
+        List<Modelo> porModelo = new ArrayList<>(modelos.size());
+        modelos.forEach((nome, m) -> porModelo.add(new Modelo(nome, m[0], m[1])));
+        porModelo.sort(Comparator.comparingInt(Modelo::percentual).reversed().thenComparing(Modelo::nome));
+        return new Resumo(frota, emUso, livres, atrasadas, abertas, Collections.unmodifiableList(porModelo));
+    }
+
+    /**
+     * Reserva confirmada nesta estação.
+     */
+    public static void registrarReserva(int idVeiculo, LocalDate retirada) {
+        boolean emUso = !retirada.isAfter(LocalDate.now());
+        ajustar(new ReservaDAO.Contagem(idVeiculo, 1, emUso ? 1 : 0, 0));
+    }
+
+    /**
+     * Reserva devolvida nesta estação.
+     * @param devolvida Período e situação da reserva antes da devolução.
+     */
+    public static void registrarDevolucao(ReservaDAO.Ocupacao devolvida) {
+        LocalDate hoje = LocalDate.now();
+        boolean emUso = !devolvida.retirada().isAfter(hoje);
+        boolean atrasada = devolvida.atrasada() || devolvida.entrega().isBefore(hoje);
+        ajustar(new ReservaDAO.Contagem(devolvida.idVeiculo(), -1, emUso ? -1 : 0, atrasada ? -1 : 0));
+    }
+
+    /**
+     * Descarta os contadores; a próxima leitura recalcula no banco.
+     */
+    public static synchronized void invalidar() {
+        alteracoesLocais++;
+        atual = null;
+    }
+
+    private static synchronized void ajustar(ReservaDAO.Contagem delta) {
+        alteracoesLocais++; // Mesmo sem cache: um recálculo em andamento pode não conter o ajuste
+        Estado e = atual;
+        if (e == null) return; // Nada em cache: o próximo recálculo já virá do banco
+        atual = new Estado(e.dia(), somar(e.porVeiculo(), List.of(delta)), e.recalculadoEm());
+    }
+
+    private static Map<Integer, ReservaDAO.Contagem> somar(Map<Integer, ReservaDAO.Contagem> base, List<ReservaDAO.Contagem> deltas) {
+        Map<Integer, ReservaDAO.Contagem> copia = new HashMap<>(base);
+        for (ReservaDAO.Contagem d : deltas) {
+            ReservaDAO.Contagem a = copia.get(d.idVeiculo());
+            int abertas = (a == null ? 0 : a.abertas()) + d.abertas();
+            if (abertas <= 0) { copia.remove(d.idVeiculo()); continue; } // Desvio: corrigido no próximo recálculo
+            copia.put(d.idVeiculo(), new ReservaDAO.Contagem(d.idVeiculo(), abertas,
+                    Math.max(0, (a == null ? 0 : a.emUso()) + d.emUso()), Math.max(0, (a == null ? 0 : a.atrasadas()) + d.atrasadas())));
+        }
+        return Collections.unmodifiableMap(copia);
+    }
+
+    private static Estado estado() throws SQLException {
+        Estado e = atual;
+        if (e == null || e.dia() != LocalDate.now().toEpochDay()) {
+            synchronized (TRAVA_CARGA) {
+                e = atual;
+                if (e == null || e.dia() != LocalDate.now().toEpochDay()) e = recalcular();
+            }
+        } else if (System.currentTimeMillis() - e.recalculadoEm() > INTERVALO_MS && recalculando.compareAndSet(false, true)) {
+            CarregadorAssincrono.submeter(() -> {
+                try { recalcular(); }
+                catch (SQLException ex) { System.err.println("Indicadores: falha ao recalcular: " + ex.getMessage()); }
+                finally { recalculando.set(false); }
+            });
+        }
+        return e;
+    }
+
+    private static Estado recalcular() throws SQLException {
+        for (int tentativa = 1; ; tentativa++) {
+            long alteracoesAntes = alteracoesLocais();
+            LocalDate hoje = LocalDate.now();
+            Estado e = publicar(hoje, contar(hoje), alteracoesAntes, tentativa == TENTATIVAS_RECALCULO);
+            if (e != null) return e;
+        }
+    }
+
+    private static synchronized long alteracoesLocais() {
+        return alteracoesLocais;
+    }
+
+    private static List<ReservaDAO.Contagem> contar(LocalDate hoje) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            return MetricasConsultas.medir("indicadores.recalcular", () -> new ReservaDAO(conn).contarAbertas(hoje));
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * Publica a contagem, se nenhum ajuste local aconteceu desde que a consulta começou.
+     * @param ultimaTentativa Com ajustes no meio: mantém os contadores atuais do dia (que já os contêm)
+     *        ou, sem eles, publica a contagem já vencida, para a próxima leitura recalcular.
+     * @return null se a consulta deve ser refeita.
+     */
+    private static synchronized Estado publicar(LocalDate hoje, List<ReservaDAO.Contagem> contagens, long alteracoesAntes, boolean ultimaTentativa) {
+        Estado anterior = atual;
+        boolean alterado = alteracoesLocais != alteracoesAntes;
+        if (alterado && !ultimaTentativa) return null;
+        if (alterado && anterior != null && anterior.dia() == hoje.toEpochDay()) return anterior;
+        Map<Integer, ReservaDAO.Contagem> porVeiculo = new HashMap<>();
+        for (ReservaDAO.Contagem c : contagens) porVeiculo.put(c.idVeiculo(), c);
+        Estado novo = new Estado(hoje.toEpochDay(), Collections.unmodifiableMap(porVeiculo), alterado ? 0 : System.currentTimeMillis());
+        atual = novo;
+        return novo;
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura e escrita de JSON para o {@link ServidorApi}, sem dependências externas.
+ * <p>
+ * Tipos suportados: {@link Map} (objeto), {@link Collection} (array), {@link String},
+ * {@link Number}, {@link Boolean} e null. Na leitura, números inteiros viram {@link Long}
+ * e os demais {@link Double}; objetos preservam a ordem das chaves.
+ * @author Marcos Vinicius
+ */
+public final class Json {
+    // Limite de aninhamento na leitura (corpo malicioso com "[[[[..." não estoura a pilha)
+    private static final int PROFUNDIDADE_MAXIMA = 32;
+
+    private Json() { }
+
+    public static String escrever(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escrever(sb, valor);
+        return sb.toString();
+    }
+
+    private static void escrever(StringBuilder sb, Object valor) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String s) {
+            texto(sb, s);
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof Map<?, ?> mapa) {
+            sb.append('{');
+            boolean primeiro = true;
+            for (Map.Entry<?, ?> e : mapa.entrySet()) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                texto(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                escrever(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (valor instanceof Collection<?> lista) {
+            sb.append('[');
+            boolean primeiro = true;
+            for (Object item : lista) {
+                if (!primeiro) sb.append(',');
+                primeiro = false;
+                escrever(sb, item);
+            }
+            sb.append(']');
+        } else {
+            texto(sb, valor.toString());
+        }
+    }
+
+    private static void texto(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Lê um documento JSON.
+     * @throws IllegalArgumentException Se o texto não for JSON válido.
+     */
+    public static Object ler(String json) {
+        Leitor l = new Leitor(json);
+        Object valor = l.valor(0);
+        l.espacos();
+        if (l.pos != json.length()) throw l.erro("conteúdo após o fim do documento");
+        return valor;
+    }
+
+    /**
+     * Lê um documento que deve ser um objeto JSON.
+     * @throws IllegalArgumentException Se o texto não for um objeto JSON válido.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> lerObjeto(String json) {
+        Object valor = ler(json);
+        if (!(valor instanceof Map)) throw new IllegalArgumentException("JSON: era esperado um objeto");
+        return (Map<String, Object>) valor;
+    }
+
+    private static final class Leitor {
+        private final String s;
+        private int pos;
+
+        Leitor(String s) {
+            this.s = s;
+        }
+
+        Object valor(int profundidade) {
+            if (profundidade > PROFUNDIDADE_MAXIMA) throw erro("aninhamento excessivo");
+            espacos();
+            if (pos >= s.length()) throw erro("fim inesperado");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return objeto(profundidade);
+                case '[': return lista(profundidade);
+                case '"': return texto();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return numero();
+                    throw erro("caractere inesperado '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> objeto(int profundidade) {
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            pos++;
+            espacos();
+            if (consumir('}')) return mapa;
+            do {
+                espacos();
+                if (pos >= s.length() || s.charAt(pos) != '"') throw erro("era esperada uma chave");
+                String chave = texto();
+                espacos();
+                if (!consumir(':')) throw erro("era esperado ':'");
+                mapa.put(chave, valor(profundidade + 1));
+                espacos();
+            } while (consumir(','));
+            if (!consumir('}')) throw erro("era esperado '}'");
+            return mapa;
+        }
+
+        private List<Object> lista(int profundidade) {
+            List<Object> lista = new ArrayList<>();
+            pos++;
+            espacos();
+            if (consumir(']')) return lista;
+            do {
+                lista.add(valor(profundidade + 1));
+                espacos();
+            } while (consumir(','));
+            if (!consumir(']')) throw erro("era esperado ']'");
+            return lista;
+        }
+
+        private String texto() {
+            StringBuilder sb = new StringBuilder();
+            pos++; // Aspas de abertura
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') { sb.append(c); continue; }
+                if (pos >= s.length()) break;
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw erro("escape \\u incompleto");
+                        try { sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16)); }
+                        catch (NumberFormatException ex) { throw erro("escape \\u inválido"); }
+                        pos += 4;
+                        break;
+                    default: throw erro("escape inválido");
+                }
+            }
+            throw erro("texto sem aspas de fechamento");
+        }
+
+        private Number numero() {
+            int inicio = pos;
+            if (s.charAt(pos) == '-') pos++;
+            boolean inteiro = true;
+            while (pos < s.length()) {
+                char c = s.charAt(pos);
+                if (c >= '0' && c <= '9') pos++;
+                else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') { inteiro = false; pos++; }
+                else break;
+            }
+            String numero = s.substring(inicio, pos);
+            try {
+                return inteiro ? (Number) Long.parseLong(numero) : (Number) Double.parseDouble(numero);
+            } catch (NumberFormatException e) {
+                throw erro("número inválido");
+            }
+        }
+
+        private Object literal(String palavra, Object valor) {
+            if (!s.startsWith(palavra, pos)) throw erro("valor inválido");
+            pos += palavra.length();
+            return valor;
+        }
+
+        private boolean consumir(char c) {
+            if (pos < s.length() && s.charAt(pos) == c) { pos++; return true; }
+            return false;
+        }
+
+        void espacos() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException erro(String motivo) {
+            return new IllegalArgumentException("JSON inválido na posição " + pos + ": " + motivo);
+        }
+    }
+}
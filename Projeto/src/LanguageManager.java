@@ -1,5 +1,15 @@
+import javax.swing.*;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Gerencia a internacionalização (i18n) da aplicação Loca Mais.
@@ -10,22 +20,38 @@ import java.util.ResourceBundle;
  * <li>Carregar o arquivo .properties correto (messages_pt_BR, messages_en_US, etc).</li>
  * <li>Fornecer as strings traduzidas para a interface.</li>
  * <li>Determinar o formato de data (dd/MM vs MM/dd) baseado na cultura.</li>
+ * <li>Avisar as telas quando o idioma muda, para que troquem os textos sem serem recriadas.</li>
  * </ul>
+ * Cada idioma é lido uma única vez para uma tabela imutável (chave → texto), e a troca de
+ * idioma apenas substitui a referência da tabela atual. Assim {@link #get(String)} pode ser
+ * chamado de qualquer thread (ex: importação em segundo plano) sem sincronização.
  * @author Marcos Vinicius
  */
 public class LanguageManager {
-    private static Locale currentLocale = new Locale("pt", "BR");
-    private static ResourceBundle messages = ResourceBundle.getBundle("messages", currentLocale);
+
+    /**
+     * Textos de um idioma, já resolvidos (inclusive os herdados do arquivo padrão).
+     */
+    private record Tabela(Locale locale, Map<String, String> textos, String formatoData) { }
+
+    private static final Map<Locale, Tabela> TABELAS = new ConcurrentHashMap<>();
+    private static volatile Tabela atual = tabela(new Locale("pt", "BR"));
+
+    // Componentes das telas que são atualizados a cada troca de idioma (executados na EDT)
+    private static final List<Runnable> OUVINTES = new CopyOnWriteArrayList<>();
 
     /**
      * Altera o idioma da aplicação em tempo de execução.
-     * Após chamar este método, a interface deve ser recarregada para surtir efeito.
+     * Os textos vinculados ({@link #vincular}) são atualizados na EDT, sem recriar as telas.
      * @param language Código do idioma (ex: "en", "pt", "es")
      * @param country Código do país (ex: "US", "BR", "ES")
      */
     public static void setLanguage(String language, String country) {
-        currentLocale = new Locale(language, country);
-        messages = ResourceBundle.getBundle("messages", currentLocale);
+        Tabela nova = tabela(new Locale(language, country));
+        if (nova == atual) return;
+        atual = nova;
+        if (EventQueue.isDispatchThread()) notificar();
+        else SwingUtilities.invokeLater(LanguageManager::notificar);
     }
 
     /**
@@ -34,11 +60,8 @@ public class LanguageManager {
      * @return O texto traduzido ou a própria chave entre "???" caso não encontre.
      */
     public static String get(String key) {
-        try {
-            return messages.getString(key);
-        } catch (Exception e) {
-            return "???" + key + "???";
-        }
+        String texto = key == null ? null : atual.textos().get(key);
+        return texto != null ? texto : "???" + key + "???";
     }
 
     /**
@@ -46,7 +69,7 @@ public class LanguageManager {
      * Útil para componentes que precisam saber se é EN, PT, etc.
      */
     public static Locale getLocale() {
-        return currentLocale;
+        return atual.locale();
     }
 
     /**
@@ -60,9 +83,79 @@ public class LanguageManager {
      * @return String contendo o pattern de data.
      */
     public static String getDateFormat() {
-        if (currentLocale.getLanguage().equals("en")) {
-            return "MM/dd/yyyy";
+        return atual.formatoData();
+    }
+
+    /**
+     * Aplica o texto da chave agora e novamente a cada troca de idioma.
+     * <pre>LanguageManager.vincular(btnVoltar::setText, "menu.back");</pre>
+     * Destinado aos componentes fixos das telas (que vivem enquanto a aplicação estiver aberta);
+     * diálogos temporários devem apenas chamar {@link #get(String)}.
+     */
+    public static void vincular(Consumer<String> destino, String chave) {
+        vincular(() -> destino.accept(get(chave)));
+    }
+
+    /**
+     * Executa a atualização agora e novamente a cada troca de idioma (textos compostos,
+     * ex: rótulo com o formato de data).
+     */
+    public static void vincular(Runnable atualizar) {
+        atualizar.run();
+        OUVINTES.add(atualizar);
+    }
+
+    /**
+     * Preenche o combo com as chaves informadas e exibe o texto traduzido de cada uma.
+     * Os itens continuam sendo as chaves (a tela usa o índice selecionado), então a troca de
+     * idioma não altera a seleção nem dispara os eventos do combo.
+     */
+    public static void vincularOpcoes(JComboBox<String> combo, String... chaves) {
+        combo.setModel(new DefaultComboBoxModel<>(chaves));
+        // Um renderer novo faz o combo recalcular a largura para os textos do novo idioma
+        vincular(() -> combo.setRenderer(new RendererTraduzido()));
+    }
+
+    /**
+     * Atualiza os títulos das colunas da tabela a cada troca de idioma, a partir do
+     * {@code getColumnName} do TableModel (que deve traduzir com {@link #get(String)}).
+     * A estrutura da tabela (larguras, renderers, editores) é mantida.
+     */
+    public static void vincularCabecalho(JTable tabela) {
+        OUVINTES.add(() -> {
+            TableColumnModel colunas = tabela.getColumnModel();
+            for (int i = 0; i < colunas.getColumnCount(); i++) {
+                TableColumn coluna = colunas.getColumn(i);
+                coluna.setHeaderValue(tabela.getModel().getColumnName(coluna.getModelIndex()));
+            }
+            if (tabela.getTableHeader() != null) tabela.getTableHeader().repaint();
+        });
+    }
+
+    private static void notificar() {
+        for (Runnable ouvinte : OUVINTES) ouvinte.run();
+    }
+
+    private static Tabela tabela(Locale locale) {
+        return TABELAS.computeIfAbsent(locale, LanguageManager::carregar);
+    }
+
+    // Lê o arquivo do idioma (e os pais, pelo ResourceBundle) para um mapa imutável
+    private static Tabela carregar(Locale locale) {
+        ResourceBundle bundle = ResourceBundle.getBundle("messages", locale);
+        Map<String, String> textos = new HashMap<>();
+        for (String chave : bundle.keySet()) textos.put(chave, bundle.getString(chave));
+        String formatoData = locale.getLanguage().equals("en") ? "MM/dd/yyyy" : "dd/MM/yyyy";
+        return new Tabela(locale, Map.copyOf(textos), formatoData);
+    }
+
+    /**
+     * Exibe itens que são chaves de tradução.
+     */
+    private static class RendererTraduzido extends DefaultListCellRenderer {
+        @Override
+        public Component getListCellRendererComponent(JList<?> lista, Object valor, int indice, boolean selecionado, boolean foco) {
+            return super.getListCellRendererComponent(lista, valor == null ? null : get(valor.toString()), indice, selecionado, foco);
         }
-        return "dd/MM/yyyy";
     }
-}
\ No newline at end of file
+}
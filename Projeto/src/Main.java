@@ -4,6 +4,8 @@ import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Classe Principal da aplicação Loca Mais.
@@ -22,20 +24,31 @@ public class Main extends JFrame {
     // Gerenciador de layout para alternar entre painéis (telas)
     private CardLayout cardLayout;
     private JPanel mainContainer;
+    // Faixa acima das telas enquanto a estação está sem banco ou com operações na fila do ModoOffline
+    private JLabel lblOffline;
 
-    // Referências para os painéis da aplicação
+    // Referências para os painéis da aplicação (exceto o login, criados na primeira navegação)
     private LoginPanel loginPanel;
     private DashboardPanel dashboardPanel;
     private ClienteFrame clientePanel;
     private ReservaFrame reservaPanel;
     private ReservaViewFrame reservaViewPanel;
 
+    // Classes das telas criadas sob demanda, carregadas em segundo plano enquanto o usuário faz login
+    private static final String[] CLASSES_TELAS = {
+            "DashboardPanel", "ClienteFrame", "ReservaFrame", "ReservaViewFrame", "ReservaTableModel",
+            "CatalogoVeiculos", "BuscaDinamica", "BuscaReservas", "ServicoReserva", "DateUtil", "ValidadorCPF",
+            "javax.swing.JTable", "javax.swing.table.DefaultTableModel", "javax.swing.table.DefaultTableCellRenderer",
+            "javax.swing.JScrollPane", "javax.swing.DefaultCellEditor", "javax.swing.JOptionPane"
+    };
+
     /**
      * Construtor da Janela Principal.
-     * Configura as propriedades do JFrame e inicializa todas as telas.
+     * Configura as propriedades do JFrame e exibe a tela de login; as demais telas são
+     * criadas na primeira vez em que forem abertas.
      */
     public Main() {
-        setTitle(LanguageManager.get("app.title"));
+        LanguageManager.vincular(this::setTitle, "app.title");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
 
@@ -44,71 +57,168 @@ public class Main extends JFrame {
 
         // Instancia os painéis passando 'this' para permitir navegação
         loginPanel = new LoginPanel(this);
-        dashboardPanel = new DashboardPanel(this);
-        clientePanel = new ClienteFrame(this);
-        reservaPanel = new ReservaFrame(this);
-        reservaViewPanel = new ReservaViewFrame(this);
-
         mainContainer.add(loginPanel, "LOGIN");
-        mainContainer.add(dashboardPanel, "DASHBOARD");
-        mainContainer.add(clientePanel, "CLIENTES");
-        mainContainer.add(reservaPanel, "NOVA_RESERVA");
-        mainContainer.add(reservaViewPanel, "VER_RESERVAS");
 
-        add(mainContainer);
+        lblOffline = new JLabel("", SwingConstants.CENTER);
+        lblOffline.setOpaque(true);
+        lblOffline.setBackground(GlobalStyles.COLOR_YELLOW);
+        lblOffline.setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+        lblOffline.setVisible(false);
+        LanguageManager.vincular(this::atualizarAvisoOffline);
+        ModoOffline.aoMudar(() -> SwingUtilities.invokeLater(this::atualizarAvisoOffline));
+        ModoOffline.aoSincronizar(s -> {
+            if (!s.conflitos().isEmpty()) SwingUtilities.invokeLater(() -> mostrarConflitos(s));
+        });
+
+        add(lblOffline, BorderLayout.NORTH);
+        add(mainContainer, BorderLayout.CENTER);
         cardLayout.show(mainContainer, "LOGIN");
         setVisible(true);
+        TempoInicializacao.marcar(TempoInicializacao.Etapa.JANELA_VISIVEL);
     }
 
     public void mostrarDashboard() {
+        CarregadorAssincrono.cancelarTodos();
+        if (dashboardPanel == null) dashboardPanel = adicionarTela(new DashboardPanel(this), "DASHBOARD");
         dashboardPanel.carregarDados(null);
+        dashboardPanel.atualizarIndicadores();
         cardLayout.show(mainContainer, "DASHBOARD");
     }
     public void mostrarClientes() {
+        CarregadorAssincrono.cancelarTodos();
+        if (clientePanel == null) clientePanel = adicionarTela(new ClienteFrame(this), "CLIENTES");
         clientePanel.carregarClientes(null);
         cardLayout.show(mainContainer, "CLIENTES");
     }
     public void mostrarNovaReserva() {
+        CarregadorAssincrono.cancelarTodos();
+        if (reservaPanel == null) reservaPanel = adicionarTela(new ReservaFrame(this), "NOVA_RESERVA");
         reservaPanel.atualizarDadosIniciais();
         cardLayout.show(mainContainer, "NOVA_RESERVA");
     }
     public void mostrarVerReservas() {
+        CarregadorAssincrono.cancelarTodos();
+        if (reservaViewPanel == null) reservaViewPanel = adicionarTela(new ReservaViewFrame(this), "VER_RESERVAS");
         reservaViewPanel.carregarReservas(null);
         cardLayout.show(mainContainer, "VER_RESERVAS");
     }
-    public void fazerLogout() {
-        cardLayout.show(mainContainer, "LOGIN");
+
+    private void atualizarAvisoOffline() {
+        int pendentes = ModoOffline.pendentes();
+        boolean offline = ModoOffline.isAtivo();
+        lblOffline.setVisible(offline || pendentes > 0);
+        lblOffline.setText((offline ? LanguageManager.get("offline.banner") : LanguageManager.get("offline.banner.syncing"))
+                + " " + LanguageManager.get("offline.banner.pending") + " " + pendentes);
+    }
+
+    // Operações feitas offline que o banco recusou: o atendente precisa resolver com o cliente
+    private void mostrarConflitos(ModoOffline.Sincronizacao s) {
+        JOptionPane.showMessageDialog(this, LanguageManager.get("offline.conflict.title") + "\n\n" + String.join("\n", s.conflitos()),
+                LanguageManager.get("title.error"), JOptionPane.WARNING_MESSAGE);
+    }
+
+    private <T extends JPanel> T adicionarTela(T tela, String nome) {
+        mainContainer.add(tela, nome);
+        return tela;
     }
 
     /**
-     * Reinicia a aplicação (útil para troca de idioma).
-     * */
-    public void reiniciarAplicacao() {
-        dispose();
-        new Main();
+     * Pré-aquecimento em segundo plano, iniciado após a primeira pintura do login:
+     * abre as conexões mínimas do pool (já com os statements dos DAOs preparados) e carrega
+     * as classes das telas, para que o primeiro acesso a cada uma seja rápido.
+     * Os componentes Swing em si só são criados na EDT, na primeira navegação.
+     * As migrações de esquema pendentes ({@link MigracoesBanco}) também são aplicadas aqui.
+     */
+    void preAquecer() {
+        MigracoesBanco.aplicarEmSegundoPlano();
+        CarregadorAssincrono.submeter(() -> {
+            Conexao.getPool().preencherMinimo();
+            if (Conexao.getPool().getEstatisticas().ociosas() > 0) TempoInicializacao.marcar(TempoInicializacao.Etapa.POOL_AQUECIDO);
+        });
+        CarregadorAssincrono.submeter(() -> {
+            ClassLoader carregador = Main.class.getClassLoader();
+            for (String classe : CLASSES_TELAS) {
+                try { Class.forName(classe, true, carregador); }
+                catch (ClassNotFoundException e) { System.err.println("Pré-carga: classe não encontrada " + classe); }
+            }
+            TempoInicializacao.marcar(TempoInicializacao.Etapa.TELAS_PREPARADAS);
+        });
+    }
+    public void fazerLogout() {
+        CarregadorAssincrono.cancelarTodos();
+        cardLayout.show(mainContainer, "LOGIN");
     }
 
     public static void main(String[] args) {
+        TempoInicializacao.marcar(TempoInicializacao.Etapa.MAIN);
         SwingUtilities.invokeLater(() -> new Main());
     }
 
 
     /**
      * Classe interna para gerenciamento da conexão JDBC.
-     * Utiliza o driver MySQL.
+     * Utiliza o driver MySQL e entrega conexões de um {@link PoolConexoes}.
+     * <p>
+     * As conexões devem ser sempre devolvidas com try-with-resources:
+     * <pre>try (Connection conn = Main.Conexao.conectar()) { ... }</pre>
      */
     public static class Conexao {
-        private static final String URL = "jdbc:mysql://localhost:3306/locamais";
-        private static final String USER = "root";
-        private static final String PASSWORD = "";
+        // useServerPrepStmts: statements preparados no servidor (plano reaproveitado pelo CacheStatements)
+        // rewriteBatchedStatements: um batch de INSERT vira um único INSERT multi-valores (importação)
+        // connectTimeout: servidor inacessível é detectado em segundos (ModoOffline), sem esperar o timeout do TCP
+        // -Dlocamais.db.* sobrescreve os padrões (ex: base descartável do teste de carga)
+        private static final String URL = System.getProperty("locamais.db.url",
+                "jdbc:mysql://localhost:3306/locamais?useServerPrepStmts=true&rewriteBatchedStatements=true&connectTimeout=3000");
+        private static final String USER = System.getProperty("locamais.db.usuario", "root");
+        private static final String PASSWORD = System.getProperty("locamais.db.senha", "");
+
+        private static final int POOL_MIN = 2;
+        private static final int POOL_MAX = Math.max(POOL_MIN, Integer.getInteger("locamais.db.conexoes", 10));
+        private static final long POOL_OCIOSO_MS = 5 * 60_000;
+        private static final long POOL_VAZAMENTO_MS = 30_000;
+        private static final long POOL_ESPERA_MS = 5_000;
+        private static final int POOL_CACHE_STATEMENTS = 64;
+
+        // Holder: o pool só é criado no primeiro uso
+        private static final class Holder {
+            static final PoolConexoes POOL = criarPool();
+
+            private static PoolConexoes criarPool() {
+                PoolConexoes pool = new PoolConexoes(URL, USER, PASSWORD, POOL_MIN, POOL_MAX,
+                        POOL_OCIOSO_MS, POOL_VAZAMENTO_MS, POOL_ESPERA_MS, POOL_CACHE_STATEMENTS);
+                // Variantes fixas dos DAOs são preparadas assim que cada conexão é aberta
+                List<String> sqls = new ArrayList<>();
+                sqls.addAll(VeiculoDAO.sqlFixos());
+                sqls.addAll(ClienteDAO.sqlFixos());
+                sqls.addAll(ReservaDAO.sqlFixos());
+                sqls.addAll(UsuarioDAO.sqlFixos());
+                pool.setSqlAquecimento(sqls);
+                pool.setEsperaPorBloqueio(ServicoReserva.ESPERA_BLOQUEIO_S);
+                return pool;
+            }
+        }
 
         /**
-         * Estabelece uma conexão com o banco de dados.
-         * @return Connection objeto de conexão ou null se falhar.
+         * Obtém uma conexão do pool.
+         * Com o {@link ModoOffline} ativo retorna null sem tentar o banco (quem testa a volta da
+         * conexão é o próprio modo offline), para que as telas não esperem o timeout a cada consulta.
+         * @return Connection (fechar devolve ao pool) ou null se falhar.
          */
         public static Connection conectar() {
-            try { return DriverManager.getConnection(URL, USER, PASSWORD); }
-            catch (SQLException e) { System.err.println("Erro Banco: " + e.getMessage()); return null; }
+            if (ModoOffline.isAtivo()) return null;
+            try { return Holder.POOL.obter(); }
+            catch (SQLException e) {
+                System.err.println("Erro Banco: " + e.getMessage());
+                ModoOffline.registrarFalha(e);
+                return null;
+            }
+        }
+
+        /**
+         * Retorna o pool compartilhado (estatísticas, aquecimento, encerramento).
+         */
+        public static PoolConexoes getPool() {
+            return Holder.POOL;
         }
     }
 
@@ -164,15 +274,17 @@ class LoginPanel extends JPanel {
         ));
         card.setBackground(Color.WHITE);
 
-        JLabel lblTitulo = new JLabel(LanguageManager.get("login.title"), SwingConstants.CENTER);
+        JLabel lblTitulo = new JLabel("", SwingConstants.CENTER);
+        LanguageManager.vincular(lblTitulo::setText, "login.title");
         lblTitulo.setFont(new Font("Arial", Font.BOLD, 18));
 
         txtEmail = new JTextField(15);
-        txtEmail.setBorder(BorderFactory.createTitledBorder(LanguageManager.get("login.email")));
+        LanguageManager.vincular(t -> txtEmail.setBorder(BorderFactory.createTitledBorder(t)), "login.email");
         txtSenha = new JPasswordField(15);
-        txtSenha.setBorder(BorderFactory.createTitledBorder(LanguageManager.get("login.pass")));
+        LanguageManager.vincular(t -> txtSenha.setBorder(BorderFactory.createTitledBorder(t)), "login.pass");
 
-        JButton btnEntrar = new JButton(LanguageManager.get("login.enter"));
+        JButton btnEntrar = new JButton();
+        LanguageManager.vincular(btnEntrar::setText, "login.enter");
         Main.GlobalStyles.styleButton(btnEntrar, Main.GlobalStyles.COLOR_GREEN);
 
         btnEntrar.addActionListener(e -> logar());
@@ -186,14 +298,12 @@ class LoginPanel extends JPanel {
         else if(langAtual.equals("es")) cmbLang.setSelectedIndex(2);
         else cmbLang.setSelectedIndex(0);
 
-        // Lógica de troca de idioma
+        // Lógica de troca de idioma: as telas já criadas trocam os textos no lugar
         cmbLang.addActionListener(e -> {
             int i = cmbLang.getSelectedIndex();
             if(i == 0) LanguageManager.setLanguage("pt", "BR");
             else if(i == 1) LanguageManager.setLanguage("en", "US");
             else if(i == 2) LanguageManager.setLanguage("es", "ES"); // Define Espanhol
-
-            main.reiniciarAplicacao();
         });
 
         JPanel langPanel = new JPanel(new BorderLayout());
@@ -210,17 +320,28 @@ class LoginPanel extends JPanel {
         add(card);
     }
 
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (TempoInicializacao.marcar(TempoInicializacao.Etapa.PRIMEIRA_PINTURA)) main.preAquecer();
+    }
+
     private void logar() {
         String email = txtEmail.getText();
         String senha = new String(txtSenha.getPassword());
-        Connection conn = Main.Conexao.conectar();
-        if(conn == null) return;
-        try {
-            PreparedStatement pst = conn.prepareStatement("SELECT * FROM tab_usuarios WHERE email=? AND senha=?");
-            pst.setString(1, email); pst.setString(2, senha);
-            if (pst.executeQuery().next()) main.mostrarDashboard();
-            else JOptionPane.showMessageDialog(this, LanguageManager.get("msg.login.fail"), LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
-            conn.close();
-        } catch(Exception e) { e.printStackTrace(); }
+        boolean autenticado;
+        try (Connection conn = Main.Conexao.conectar()) {
+            if(conn == null) return;
+            autenticado = MetricasConsultas.medir("login.autenticar", () -> new UsuarioDAO(conn).autenticar(email, senha), ok -> ok ? 1 : 0);
+            TempoInicializacao.marcar(TempoInicializacao.Etapa.PRIMEIRA_CONSULTA);
+        } catch(Exception e) { e.printStackTrace(); return; }
+
+        if (autenticado) {
+            VarreduraAtrasos.iniciar();
+            ArquivoReservas.iniciar();
+            ModoOffline.iniciar();
+            main.mostrarDashboard();
+        }
+        else JOptionPane.showMessageDialog(this, LanguageManager.get("msg.login.fail"), LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
     }
 }
\ No newline at end of file
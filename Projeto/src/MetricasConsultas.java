@@ -0,0 +1,263 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Métricas de latência das chamadas ao banco feitas pelas telas, agregadas por ponto de chamada
+ * (ex: {@code "clientes.listar"}, {@code "reserva.salvar"}).
+ * <p>
+ * Para cada ponto são contadas chamadas, erros, cancelamentos e linhas retornadas, com um
+ * histograma de latência em faixas fixas (1 ms a 10 s) do qual saem os percentis aproximados.
+ * Os contadores são {@link LongAdder} (sem disputa entre as threads de carga).
+ * <p>
+ * Onde consultar:
+ * <ul>
+ * <li><strong>JMX:</strong> um MXBean por ponto, {@code locamais:type=Consulta,name=<ponto>}
+ * (JConsole / VisualVM).</li>
+ * <li><strong>Log:</strong> a cada {@code -Dlocamais.metricas.intervalo} segundos (padrão 300) o resumo
+ * dos pontos com atividade é impresso no console, ou acrescentado ao arquivo indicado em
+ * {@code -Dlocamais.metricas.log}.</li>
+ * </ul>
+ * @author Marcos Vinicius
+ */
+public class MetricasConsultas {
+
+    /**
+     * Visão JMX das métricas de um ponto de chamada. Latências em milissegundos.
+     */
+    public interface ConsultaMXBean {
+        long getChamadas();
+        long getErros();
+        long getCancelamentos();
+        long getLinhas();
+        double getLatenciaMediaMs();
+        double getLatenciaMaximaMs();
+        double getP50Ms();
+        double getP95Ms();
+        double getP99Ms();
+        /** Chamadas por faixa de latência ("< 1 ms", "< 2 ms", ..., ">= 10000 ms"). */
+        Map<String, Long> getHistograma();
+        /** Zera os contadores deste ponto. */
+        void zerar();
+    }
+
+    // Limites superiores das faixas do histograma (ms); a última faixa é "acima de 10 s"
+    private static final long[] FAIXAS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000};
+
+    private static final long INTERVALO_LOG_S = Long.getLong("locamais.metricas.intervalo", 300);
+
+    private static final Map<String, Ponto> PONTOS = new ConcurrentHashMap<>();
+
+    // A thread do log periódico só é criada quando o primeiro ponto é medido
+    private static final AtomicBoolean logIniciado = new AtomicBoolean();
+    private static final AtomicLong chamadasNoUltimoLog = new AtomicLong();
+
+    /**
+     * Executa e mede a chamada. As linhas são contadas quando o resultado é uma coleção ou um array.
+     */
+    public static <T> T medir(String ponto, Callable<T> chamada) throws Exception {
+        return medir(ponto, chamada, MetricasConsultas::contarLinhas);
+    }
+
+    /**
+     * Executa e mede a chamada, contando as linhas retornadas com {@code linhas}.
+     * Exceções são contadas (como erro ou, se a carga foi cancelada, como cancelamento)
+     * e relançadas.
+     */
+    public static <T> T medir(String ponto, Callable<T> chamada, ToIntFunction<? super T> linhas) throws Exception {
+        Ponto p = ponto(ponto);
+        long inicio = System.nanoTime();
+        try {
+            T resultado = chamada.call();
+            p.registrar(System.nanoTime() - inicio, resultado == null ? 0 : linhas.applyAsInt(resultado));
+            return resultado;
+        } catch (Exception e) {
+            p.registrarFalha(System.nanoTime() - inicio, Thread.currentThread().isInterrupted() || CarregadorAssincrono.cargaCancelada()
+                    || e instanceof InterruptedException);
+            throw e;
+        }
+    }
+
+    private static int contarLinhas(Object resultado) {
+        if (resultado instanceof Collection<?> c) return c.size();
+        if (resultado instanceof Object[] a) return a.length;
+        return 0;
+    }
+
+    /**
+     * Métricas de um ponto de chamada (criadas e registradas no JMX no primeiro uso).
+     */
+    public static ConsultaMXBean get(String ponto) {
+        return ponto(ponto);
+    }
+
+    private static Ponto ponto(String nome) {
+        Ponto p = PONTOS.get(nome);
+        return p != null ? p : PONTOS.computeIfAbsent(nome, MetricasConsultas::criar);
+    }
+
+    private static Ponto criar(String nome) {
+        Ponto p = new Ponto(nome);
+        try {
+            ObjectName id = new ObjectName("locamais:type=Consulta,name=" + ObjectName.quote(nome));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(p, id);
+        } catch (InstanceAlreadyExistsException ignored) {
+            // Outra instância da classe (ex: benchmark) já registrou o nome
+        } catch (JMException e) {
+            System.err.println("Métricas: não foi possível registrar " + nome + " no JMX: " + e.getMessage());
+        }
+        if (INTERVALO_LOG_S > 0 && logIniciado.compareAndSet(false, true)) iniciarLog();
+        return p;
+    }
+
+    /**
+     * Resumo de todos os pontos com pelo menos uma chamada, em ordem alfabética.
+     */
+    public static String relatorio() {
+        StringBuilder sb = new StringBuilder(String.format("%-28s %9s %6s %6s %10s %9s %9s %9s %9s%n",
+                "ponto", "chamadas", "erros", "canc.", "linhas", "média ms", "p95 ms", "p99 ms", "máx ms"));
+        PONTOS.values().stream().filter(p -> p.getChamadas() > 0).sorted((a, b) -> a.nome.compareTo(b.nome)).forEach(p ->
+                sb.append(String.format("%-28s %9d %6d %6d %10d %9.1f %9.1f %9.1f %9.1f%n", p.nome, p.getChamadas(), p.getErros(),
+                        p.getCancelamentos(), p.getLinhas(), p.getLatenciaMediaMs(), p.getP95Ms(), p.getP99Ms(), p.getLatenciaMaximaMs())));
+        return sb.toString();
+    }
+
+    private static void iniciarLog() {
+        ScheduledExecutorService log = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-consultas-log");
+            t.setDaemon(true);
+            return t;
+        });
+        log.scheduleWithFixedDelay(MetricasConsultas::registrarNoLog, INTERVALO_LOG_S, INTERVALO_LOG_S, TimeUnit.SECONDS);
+    }
+
+    // Executado pela thread de log: só registra se houve chamadas desde o último registro
+    private static void registrarNoLog() {
+        try {
+            long total = 0;
+            for (Ponto p : PONTOS.values()) total += p.getChamadas();
+            if (total == chamadasNoUltimoLog.getAndSet(total)) return;
+
+            String texto = "=== Métricas de consultas " + LocalDateTime.now().withNano(0) + " ===" + System.lineSeparator() + relatorio();
+            String arquivo = System.getProperty("locamais.metricas.log");
+            if (arquivo == null || arquivo.isBlank()) {
+                System.out.print(texto);
+                return;
+            }
+            Files.writeString(Path.of(arquivo), texto, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Métricas: falha ao gravar o log: " + e.getMessage());
+        }
+    }
+
+    private static final class Ponto implements ConsultaMXBean {
+        private final String nome;
+        private final LongAdder chamadas = new LongAdder();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder cancelamentos = new LongAdder();
+        private final LongAdder linhas = new LongAdder();
+        private final LongAdder somaNs = new LongAdder();
+        private final LongAccumulator maximoNs = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] faixas = new LongAdder[FAIXAS_MS.length + 1];
+
+        Ponto(String nome) {
+            this.nome = nome;
+            for (int i = 0; i < faixas.length; i++) faixas[i] = new LongAdder();
+        }
+
+        void registrar(long ns, int qtdLinhas) {
+            contar(ns);
+            linhas.add(qtdLinhas);
+        }
+
+        void registrarFalha(long ns, boolean cancelada) {
+            contar(ns);
+            (cancelada ? cancelamentos : erros).increment();
+        }
+
+        private void contar(long ns) {
+            chamadas.increment();
+            somaNs.add(ns);
+            maximoNs.accumulate(ns);
+            faixas[faixa(ns)].increment();
+        }
+
+        private static int faixa(long ns) {
+            long ms = ns / 1_000_000;
+            for (int i = 0; i < FAIXAS_MS.length; i++) {
+                if (ms < FAIXAS_MS[i]) return i;
+            }
+            return FAIXAS_MS.length;
+        }
+
+        @Override public long getChamadas() { return chamadas.sum(); }
+        @Override public long getErros() { return erros.sum(); }
+        @Override public long getCancelamentos() { return cancelamentos.sum(); }
+        @Override public long getLinhas() { return linhas.sum(); }
+
+        @Override
+        public double getLatenciaMediaMs() {
+            long n = chamadas.sum();
+            return n == 0 ? 0 : somaNs.sum() / 1e6 / n;
+        }
+
+        @Override
+        public double getLatenciaMaximaMs() {
+            return maximoNs.get() / 1e6;
+        }
+
+        @Override public double getP50Ms() { return percentil(0.50); }
+        @Override public double getP95Ms() { return percentil(0.95); }
+        @Override public double getP99Ms() { return percentil(0.99); }
+
+        // Interpolação linear dentro da faixa que contém o percentil
+        private double percentil(double q) {
+            long[] contagens = new long[faixas.length];
+            long total = 0;
+            for (int i = 0; i < faixas.length; i++) total += contagens[i] = faixas[i].sum();
+            if (total == 0) return 0;
+            double alvo = q * total, acumulado = 0;
+            for (int i = 0; i < contagens.length; i++) {
+                if (contagens[i] == 0 || acumulado + contagens[i] < alvo) { acumulado += contagens[i]; continue; }
+                double inferior = i == 0 ? 0 : FAIXAS_MS[i - 1];
+                double superior = i < FAIXAS_MS.length ? FAIXAS_MS[i] : Math.max(inferior, getLatenciaMaximaMs());
+                return Math.min(inferior + (superior - inferior) * (alvo - acumulado) / contagens[i], getLatenciaMaximaMs());
+            }
+            return getLatenciaMaximaMs();
+        }
+
+        @Override
+        public Map<String, Long> getHistograma() {
+            Map<String, Long> h = new LinkedHashMap<>();
+            for (int i = 0; i < FAIXAS_MS.length; i++) h.put("< " + FAIXAS_MS[i] + " ms", faixas[i].sum());
+            h.put(">= " + FAIXAS_MS[FAIXAS_MS.length - 1] + " ms", faixas[FAIXAS_MS.length].sum());
+            return h;
+        }
+
+        @Override
+        public void zerar() {
+            chamadas.reset(); erros.reset(); cancelamentos.reset(); linhas.reset(); somaNs.reset(); maximoNs.reset();
+            for (LongAdder f : faixas) f.reset();
+        }
+    }
+}
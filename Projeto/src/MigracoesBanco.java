@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aplica as alterações de esquema versionadas em {@code src/migracoes} ao iniciar, para que toda
+ * estação (e o {@link ServidorApi}) trabalhe com os mesmos índices e colunas sem intervenção manual.
+ * <p>
+ * Cada script {@code V<versao>__<descricao>.sql} listado em {@link #SCRIPTS} é aplicado uma única vez,
+ * em ordem de versão, e registrado em {@code tab_migracoes} com o SHA-256 do conteúdo:
+ * <ul>
+ * <li>Estações iniciando juntas se coordenam por {@code GET_LOCK}: só uma aplica, as outras
+ * encontram as versões já registradas.</li>
+ * <li>Objeto que já existe (índice, coluna ou tabela criados pelo script de instalação ou por
+ * uma aplicação interrompida) conta como aplicado, então repetir um script é seguro.</li>
+ * <li>Script já aplicado cujo conteúdo mudou interrompe as migrações: uma versão publicada não
+ * pode ser editada, a correção vai em uma versão nova.</li>
+ * </ul>
+ * As migrações rodam em segundo plano no pré-aquecimento, com a aplicação já em uso; por isso cada
+ * script precisa ser compatível com a versão anterior do programa (estações são atualizadas em
+ * momentos diferentes): criar índices e colunas opcionais, nunca remover o que ainda é lido.
+ * @author Marcos Vinicius
+ */
+public final class MigracoesBanco {
+    // Em ordem de versão; um script novo entra no fim da lista
+    private static final String[] SCRIPTS = {
+            "V001__indices_das_buscas.sql",
+            "V002__indices_das_listagens.sql",
+            "V003__arquivo_de_reservas.sql",
+            "V004__indices_da_exportacao.sql",
+            "V005__frota_dos_veiculos.sql"
+    };
+
+    private static final String SQL_CRIAR_TABELA = "CREATE TABLE IF NOT EXISTS tab_migracoes (" +
+            "versao int primary key, descricao varchar(100) not null, checksum char(64) not null, " +
+            "aplicada_em timestamp not null default current_timestamp, duracao_ms int not null)";
+    private static final String SQL_LISTAR = "SELECT versao, checksum FROM tab_migracoes";
+    private static final String SQL_REGISTRAR = "INSERT INTO tab_migracoes (versao, descricao, checksum, duracao_ms) VALUES (?,?,?,?)";
+    private static final String TRAVA = "locamais.migracoes";
+    private static final int ESPERA_TRAVA_S = 60;
+
+    // Objeto já existente: tabela (1050), coluna (1060), índice (1061), chave estrangeira (1826);
+    // remoção do que não existe (1091)
+    private static final Set<Integer> JA_APLICADO = Set.of(1050, 1060, 1061, 1091, 1826);
+
+    // Versões já registradas neste banco, vistas pela última aplicação
+    private static final Set<Integer> APLICADAS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Script de migração carregado do classpath.
+     */
+    record Script(int versao, String descricao, String conteudo, String checksum) {
+        static Script carregar(String nome) throws IOException {
+            if (!nome.matches("V\\d+__\\w+\\.sql")) throw new IOException("Nome de migração inválido: " + nome);
+            try (InputStream in = MigracoesBanco.class.getResourceAsStream("/migracoes/" + nome)) {
+                if (in == null) throw new IOException("Migração não encontrada no classpath: " + nome);
+                // Quebras de linha normalizadas: o checksum não muda entre Windows e Linux
+                String conteudo = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r", "");
+                int separador = nome.indexOf("__");
+                return new Script(Integer.parseInt(nome.substring(1, separador)),
+                        nome.substring(separador + 2, nome.length() - 4).replace('_', ' '), conteudo, sha256(conteudo));
+            }
+        }
+
+        /**
+         * Comandos do script: separados por ';' no fim da linha; linhas iniciadas por '#' ou '--' são comentários.
+         */
+        List<String> comandos() {
+            List<String> comandos = new ArrayList<>();
+            StringBuilder atual = new StringBuilder();
+            for (String linha : conteudo.split("\n")) {
+                String t = linha.trim();
+                if (t.isEmpty() || t.startsWith("#") || t.startsWith("--")) continue;
+                atual.append(linha).append('\n');
+                if (t.endsWith(";")) {
+                    comandos.add(atual.substring(0, atual.lastIndexOf(";")).trim());
+                    atual.setLength(0);
+                }
+            }
+            if (!atual.toString().isBlank()) comandos.add(atual.toString().trim());
+            return comandos;
+        }
+    }
+
+    private MigracoesBanco() { }
+
+    /**
+     * Se a versão já está aplicada no banco. Até a verificação da inicialização terminar, responde
+     * false: quem depende de uma migração mantém um caminho compatível com o esquema anterior.
+     */
+    public static boolean aplicada(int versao) {
+        return APLICADAS.contains(versao);
+    }
+
+    /**
+     * Aplica em segundo plano as migrações pendentes; falhas vão para o log e são tentadas de novo
+     * na próxima inicialização. DDL longa (criação de tabela, índice em tabela grande) roda em uma
+     * conexão dedicada ({@link PoolConexoes#abrirDedicada}), sem ocupar uma vaga do pool.
+     */
+    public static void aplicarEmSegundoPlano() {
+        CarregadorAssincrono.submeter(() -> {
+            if (ModoOffline.isAtivo()) return;
+            try (Connection conn = Main.Conexao.getPool().abrirDedicada()) {
+                aplicar(conn);
+            } catch (SQLException | IOException e) {
+                System.err.println("Migrações: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Aplica as migrações pendentes na conexão informada.
+     * @return Quantidade de versões aplicadas agora.
+     * @throws SQLException Se um script falhar ou se um script já aplicado tiver sido alterado.
+     */
+    public static int aplicar(Connection conn) throws SQLException, IOException {
+        List<Script> scripts = new ArrayList<>(SCRIPTS.length);
+        for (String nome : SCRIPTS) scripts.add(Script.carregar(nome));
+
+        try (Statement st = conn.createStatement()) {
+            st.execute(SQL_CRIAR_TABELA);
+            boolean travou;
+            try (ResultSet trava = st.executeQuery("SELECT GET_LOCK('" + TRAVA + "', " + ESPERA_TRAVA_S + ")")) {
+                travou = trava.next() && trava.getInt(1) == 1;
+            }
+            if (!travou) {
+                // As versões já registradas valem mesmo sem a trava; as que faltam ficam para a próxima inicialização
+                lerAplicadas(conn);
+                System.err.println("Migrações: outra estação está aplicando; tentativa adiada para a próxima inicialização");
+                return 0;
+            }
+            try {
+                return aplicarPendentes(conn, scripts);
+            } finally {
+                st.executeQuery("SELECT RELEASE_LOCK('" + TRAVA + "')");
+            }
+        }
+    }
+
+    private static int aplicarPendentes(Connection conn, List<Script> scripts) throws SQLException {
+        Map<Integer, String> aplicadas = lerAplicadas(conn);
+        int novas = 0;
+        for (Script s : scripts) {
+            String checksum = aplicadas.get(s.versao());
+            if (checksum != null) {
+                if (!checksum.equals(s.checksum())) {
+                    throw new SQLException("Migração V" + s.versao() + " foi alterada depois de aplicada (checksum "
+                            + checksum + " no banco, " + s.checksum() + " no script)");
+                }
+                continue;
+            }
+            long inicio = System.nanoTime();
+            executar(conn, s);
+            int duracaoMs = (int) ((System.nanoTime() - inicio) / 1_000_000);
+
+            try (PreparedStatement pst = conn.prepareStatement(SQL_REGISTRAR)) {
+                pst.setInt(1, s.versao());
+                pst.setString(2, s.descricao());
+                pst.setString(3, s.checksum());
+                pst.setInt(4, duracaoMs);
+                pst.executeUpdate();
+            }
+            APLICADAS.add(s.versao());
+            System.out.println("Migração V" + s.versao() + " (" + s.descricao() + ") aplicada em " + duracaoMs + " ms");
+            novas++;
+        }
+        return novas;
+    }
+
+    // Versão -> checksum das migrações registradas no banco; também atualiza APLICADAS
+    private static Map<Integer, String> lerAplicadas(Connection conn) throws SQLException {
+        Map<Integer, String> aplicadas = new HashMap<>();
+        try (PreparedStatement pst = conn.prepareStatement(SQL_LISTAR);
+             ResultSet rs = pst.executeQuery()) {
+            while (rs.next()) aplicadas.put(rs.getInt(1), rs.getString(2));
+        }
+        APLICADAS.addAll(aplicadas.keySet());
+        return aplicadas;
+    }
+
+    // DDL no MySQL confirma implicitamente: cada comando vale sozinho, por isso os scripts são repetíveis
+    private static void executar(Connection conn, Script s) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String comando : s.comandos()) {
+                try {
+                    st.execute(comando);
+                } catch (SQLException e) {
+                    if (!JA_APLICADO.contains(e.getErrorCode())) {
+                        throw new SQLException("Migração V" + s.versao() + " falhou em: " + comando + " (" + e.getMessage() + ")",
+                                e.getSQLState(), e.getErrorCode(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    static String sha256(String texto) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Toda JVM tem SHA-256
+        }
+    }
+}
@@ -0,0 +1,527 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Modo offline da estação: quando o MySQL fica inacessível (rede da filial caiu), o balcão
+ * continua consultando veículos, clientes e reservas em aberto e registrando reservas e
+ * devoluções, que são gravadas no banco quando a conexão volta.
+ * <p>
+ * Funcionamento:
+ * <ul>
+ * <li>Enquanto há conexão, um instantâneo de veículos, clientes e reservas em aberto é salvo em
+ * {@code instantaneo.json} a cada {@code -Dlocamais.offline.intervalo} minutos (padrão 10), em
+ * {@code -Dlocamais.offline.dir} (padrão {@code ~/.locamais/offline}).</li>
+ * <li>Uma falha de conexão (SQLState {@code 08xxx}) ativa o modo: as telas leem do instantâneo e
+ * {@link ServicoReserva} coloca reservas e devoluções em uma fila local durável (um
+ * {@link DiarioEventos} próprio em {@code fila}), com resultado {@link ServicoReserva.Resultado#PENDENTE}.
+ * A disponibilidade offline considera o instantâneo mais o que já está na fila desta estação.</li>
+ * <li>A cada {@value #VERIFICACAO_S} segundos a conexão é testada; ao voltar, a fila é aplicada em
+ * ordem pelo mesmo {@link ServicoReserva} das telas, com o bloqueio da frota. Reserva que outra
+ * estação esgotou nesse meio tempo vira conflito: vai para {@code conflitos.log} e é mostrada ao
+ * atendente. A posição aplicada fica em {@code fila/aplicado}, então fechar a aplicação com a fila
+ * pendente não perde nada.</li>
+ * </ul>
+ * Só a aplicação desktop usa este modo ({@link #iniciar} após o login); o {@link ServidorApi}
+ * sempre responde com o banco.
+ * @author Marcos Vinicius
+ */
+public final class ModoOffline {
+    /** SQLState de "não foi possível conectar" (classe 08: exceção de conexão). */
+    static final String SEM_CONEXAO = "08001";
+
+    private static final long VERIFICACAO_S = 15;
+    private static final long INTERVALO_INSTANTANEO_MS = Long.getLong("locamais.offline.intervalo", 10) * 60_000;
+    private static final int TAMANHO_SEGMENTO_FILA = 1024 * 1024;
+    private static final Path DIRETORIO = Path.of(System.getProperty("locamais.offline.dir",
+            Path.of(System.getProperty("user.home"), ".locamais", "offline").toString()));
+    private static final Path ARQUIVO_INSTANTANEO = DIRETORIO.resolve("instantaneo.json");
+    private static final Path DIRETORIO_FILA = DIRETORIO.resolve("fila");
+    private static final Path ARQUIVO_APLICADO = DIRETORIO_FILA.resolve("aplicado");
+    private static final Path ARQUIVO_CONFLITOS = DIRETORIO.resolve("conflitos.log");
+
+    /**
+     * Resultado de uma sincronização da fila.
+     * @param conflitos Descrição de cada operação que não pôde ser aplicada.
+     */
+    public record Sincronizacao(int aplicadas, List<String> conflitos) { }
+
+    // Cópia local do banco; as listas são imutáveis
+    private record Instantaneo(long geradoEm, List<Veiculo> veiculos, List<Cliente> clientes, List<ReservaDAO.Aberta> abertas) { }
+
+    private static final AtomicBoolean iniciado = new AtomicBoolean();
+    private static volatile boolean ativo;
+    private static volatile Instantaneo instantaneo;
+    private static DiarioEventos fila;                                                  // guardado por ModoOffline.class
+    private static final List<ServicoReserva.Pedido> reservasPendentes = new ArrayList<>(); // guardado por ModoOffline.class
+    private static final Set<Integer> devolucoesPendentes = new LinkedHashSet<>();         // guardado por ModoOffline.class
+    private static final List<Runnable> ouvintes = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<Sincronizacao>> ouvintesSincronizacao = new CopyOnWriteArrayList<>();
+
+    private ModoOffline() { }
+
+    /**
+     * Abre a fila local, recupera as operações ainda não aplicadas e agenda a verificação da
+     * conexão e o instantâneo (chamadas seguintes não têm efeito).
+     */
+    public static void iniciar() {
+        if (!iniciado.compareAndSet(false, true)) return;
+        try {
+            synchronized (ModoOffline.class) {
+                fila = new DiarioEventos(DIRETORIO_FILA, TAMANHO_SEGMENTO_FILA);
+                DiarioEventos.reproduzir(DIRETORIO_FILA, lerAplicado() + 1, ModoOffline::restaurarPendente);
+            }
+        } catch (IOException e) {
+            System.err.println("Modo offline desativado: " + e.getMessage());
+            iniciado.set(false);
+            return;
+        }
+        instantaneo = lerInstantaneo();
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "modo-offline");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(ModoOffline::verificarAgendada, 0, VERIFICACAO_S, TimeUnit.SECONDS);
+        if (pendentes() > 0) notificar();
+    }
+
+    /**
+     * @return true se a estação está sem banco e trabalhando com o instantâneo local.
+     */
+    public static boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Informa uma falha de banco. Se for falha de conexão e o modo estiver iniciado, a estação
+     * passa a trabalhar offline.
+     * @return true se a operação deve seguir pelo caminho offline.
+     */
+    public static boolean registrarFalha(SQLException e) {
+        if (!iniciado.get() || !semConexao(e)) return false;
+        if (!ativo) {
+            ativo = true;
+            System.err.println("Modo offline ativado: " + e.getMessage());
+            notificar();
+        }
+        return true;
+    }
+
+    /**
+     * Quantidade de reservas e devoluções na fila, ainda não gravadas no banco.
+     */
+    public static synchronized int pendentes() {
+        return reservasPendentes.size() + devolucoesPendentes.size();
+    }
+
+    /**
+     * Registra um ouvinte chamado (fora da EDT) quando o modo muda ou a fila muda de tamanho.
+     */
+    public static void aoMudar(Runnable ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Registra um ouvinte chamado (fora da EDT) ao fim de cada sincronização da fila.
+     */
+    public static void aoSincronizar(Consumer<Sincronizacao> ouvinte) {
+        ouvintesSincronizacao.add(ouvinte);
+    }
+
+    /**
+     * Veículos do instantâneo, ou null se não houver instantâneo.
+     */
+    static List<Veiculo> veiculos() {
+        Instantaneo i = instantaneo;
+        return i == null ? null : i.veiculos();
+    }
+
+    /**
+     * Reservas em aberto vistas pela estação: as do instantâneo (menos as devolvidas na fila)
+     * mais as reservas na fila, ou null se não houver instantâneo.
+     */
+    static synchronized List<ReservaDAO.Ocupacao> ocupacoes() {
+        Instantaneo i = instantaneo;
+        if (i == null) return null;
+        List<ReservaDAO.Ocupacao> ocupacoes = new ArrayList<>(i.abertas().size() + reservasPendentes.size());
+        for (ReservaDAO.Aberta a : i.abertas()) {
+            if (devolucoesPendentes.contains(a.detalhe().getId())) continue;
+            ocupacoes.add(new ReservaDAO.Ocupacao(a.detalhe().getId_veiculo(), a.retirada(), a.entrega(),
+                    ReservaDAO.EM_ATRASO.equals(a.detalhe().getSituacao())));
+        }
+        for (ServicoReserva.Pedido p : reservasPendentes) {
+            ocupacoes.add(new ReservaDAO.Ocupacao(p.idVeiculo(), p.retirada(), p.devolucao(), false));
+        }
+        return ocupacoes;
+    }
+
+    /**
+     * Clientes do instantâneo com a mesma semântica de {@link ClienteDAO#listar}
+     * (contém o texto, sem diferenciar maiúsculas e acentos).
+     */
+    public static List<Cliente> clientes(ClienteDAO.Filtro filtro, String texto) {
+        Instantaneo i = instantaneo;
+        if (i == null) return new ArrayList<>();
+        String busca = texto == null ? "" : normalizar(texto.trim());
+        String digitos = busca.replaceAll("[^0-9]", "");
+        List<Cliente> encontrados = new ArrayList<>();
+        for (Cliente c : i.clientes()) {
+            boolean nome = normalizar(c.getNome()).contains(busca);
+            boolean cpf = busca.isEmpty() || (!digitos.isEmpty() && c.getCpf().replaceAll("[^0-9]", "").contains(digitos));
+            boolean aceito = switch (filtro) {
+                case GERAL -> nome || cpf;
+                case NOME -> nome;
+                case CPF -> cpf;
+            };
+            if (aceito) encontrados.add(c);
+        }
+        Comparator<Cliente> ordem = switch (filtro) {
+            case GERAL -> Comparator.comparingInt(Cliente::getId);
+            case NOME -> Comparator.comparing(Cliente::getNome, String.CASE_INSENSITIVE_ORDER);
+            case CPF -> Comparator.comparing(Cliente::getCpf);
+        };
+        encontrados.sort(ordem);
+        return encontrados;
+    }
+
+    /**
+     * Cliente do instantâneo com o CPF informado (com ou sem máscara), ou null.
+     */
+    public static Cliente clientePorCpf(String cpf) {
+        Instantaneo i = instantaneo;
+        long chave = ValidadorCPF.paraChave(cpf);
+        if (i == null || !ValidadorCPF.isValida(chave)) return null;
+        for (Cliente c : i.clientes()) {
+            if (ValidadorCPF.paraChave(c.getCpf()) == chave) return c;
+        }
+        return null;
+    }
+
+    /**
+     * Histórico offline: reservas em aberto do instantâneo que contêm o texto (CPF, nome, veículo
+     * ou placa), das mais novas para as mais antigas, limitado a uma página.
+     */
+    public static ReservaTableModel.Inicio historico(String texto) {
+        Instantaneo i = instantaneo;
+        if (i == null) return new ReservaTableModel.Inicio(ReservaDAO.Filtro.TODOS, 0, new Object[0][]);
+        String busca = texto == null ? "" : normalizar(texto.trim());
+        String digitos = busca.replaceAll("[^0-9]", "");
+        List<ReservaDAO.Aberta> abertas = new ArrayList<>(i.abertas());
+        abertas.sort(Comparator.comparingInt((ReservaDAO.Aberta a) -> a.detalhe().getId()).reversed());
+        List<Object[]> linhas = new ArrayList<>();
+        Set<Integer> devolvidas;
+        synchronized (ModoOffline.class) { devolvidas = Set.copyOf(devolucoesPendentes); }
+        for (ReservaDAO.Aberta a : abertas) {
+            if (linhas.size() == ReservaTableModel.TAMANHO_PAGINA) break;
+            ReservaDetalhe r = a.detalhe();
+            if (devolvidas.contains(r.getId())) continue;
+            String campos = normalizar(r.getNome() + " " + r.getMarca() + " " + r.getModelo() + " " + r.getCor() + " " + r.getPlaca());
+            if (!busca.isEmpty() && !campos.contains(busca) && (digitos.isEmpty() || !r.getCpf().replaceAll("[^0-9]", "").contains(digitos))) continue;
+            r.setData_reserva(DateUtil.formatar(a.retirada()));
+            r.setData_entrega(DateUtil.formatar(a.entrega()));
+            linhas.add(ReservaTableModel.paraLinha(r));
+        }
+        return new ReservaTableModel.Inicio(ReservaDAO.Filtro.TODOS, linhas.size(), linhas.toArray(new Object[0][]));
+    }
+
+    /**
+     * Confere a disponibilidade no instantâneo e coloca a reserva na fila.
+     * @return {@link ServicoReserva.Resultado#PENDENTE}, ou ESGOTADO se a estação já não enxerga unidade livre.
+     * @throws SQLException Se não houver instantâneo ou a fila não puder ser gravada.
+     */
+    static synchronized ServicoReserva.Confirmacao reservar(ServicoReserva.Pedido p) throws SQLException {
+        Instantaneo i = instantaneo;
+        if (i == null) throw new SQLException(LanguageManager.get("msg.error.db"), SEM_CONEXAO);
+        int frota = 0;
+        for (Veiculo v : i.veiculos()) if (v.getId() == p.idVeiculo()) frota = v.getQuantidade();
+        DisponibilidadeVeiculos.Indice indice = DisponibilidadeVeiculos.indexar(ocupacoes(), LocalDate.now());
+        if (frota <= 0 || DisponibilidadeVeiculos.livres(indice, p.idVeiculo(), frota, p.retirada(), p.devolucao()) <= 0) {
+            return new ServicoReserva.Confirmacao(ServicoReserva.Resultado.ESGOTADO, 0);
+        }
+        enfileirar(DiarioEventos.Tipo.RESERVA_CRIADA, DiarioEventos.dados("cliente", p.idCliente(), "veiculo", p.idVeiculo(),
+                "placa", p.placa(), "retirada", p.retirada().toString(), "devolucao", p.devolucao().toString()));
+        reservasPendentes.add(p);
+        DisponibilidadeVeiculos.registrarReserva(p.idVeiculo(), p.retirada(), p.devolucao());
+        notificar();
+        return new ServicoReserva.Confirmacao(ServicoReserva.Resultado.PENDENTE, 0);
+    }
+
+    /**
+     * Coloca a devolução na fila.
+     * @return false se a devolução dessa reserva já está na fila.
+     */
+    static synchronized boolean devolver(int idReserva) throws SQLException {
+        if (devolucoesPendentes.contains(idReserva)) return false;
+        enfileirar(DiarioEventos.Tipo.RESERVA_DEVOLVIDA, DiarioEventos.dados("id", idReserva));
+        devolucoesPendentes.add(idReserva);
+        DisponibilidadeVeiculos.invalidar();
+        notificar();
+        return true;
+    }
+
+    // Chamado com a trava da classe
+    private static void enfileirar(DiarioEventos.Tipo tipo, Map<String, Object> dados) throws SQLException {
+        if (fila == null) throw new SQLException(LanguageManager.get("msg.error.db"), SEM_CONEXAO);
+        try {
+            fila.acrescentar(tipo, dados);
+        } catch (IOException e) {
+            throw new SQLException(LanguageManager.get("msg.error.db") + " " + e.getMessage(), SEM_CONEXAO, e);
+        }
+    }
+
+    private static void restaurarPendente(DiarioEventos.Evento e) {
+        if (e.tipo() == DiarioEventos.Tipo.RESERVA_CRIADA) reservasPendentes.add(pedido(e.dados()));
+        else if (e.tipo() == DiarioEventos.Tipo.RESERVA_DEVOLVIDA) devolucoesPendentes.add(inteiro(e.dados().get("id")));
+    }
+
+    private static ServicoReserva.Pedido pedido(Map<String, Object> d) {
+        return new ServicoReserva.Pedido(inteiro(d.get("cliente")), inteiro(d.get("veiculo")), (String) d.get("placa"),
+                LocalDate.parse((String) d.get("retirada")), LocalDate.parse((String) d.get("devolucao")));
+    }
+
+    // Uma falha não pode cancelar as próximas execuções
+    private static void verificarAgendada() {
+        try {
+            verificar();
+        } catch (Exception e) {
+            System.err.println("Modo offline: " + e.getMessage());
+        }
+    }
+
+    private static void verificar() throws SQLException, IOException {
+        // Testa o pool direto: Conexao.conectar não tenta o banco enquanto o modo está ativo
+        try (Connection conn = Main.Conexao.getPool().obter()) {
+            if (ativo) {
+                ativo = false;
+                System.out.println("Modo offline: conexão restabelecida");
+                // Os caches foram montados com o instantâneo: a próxima leitura vai ao banco
+                CatalogoVeiculos.invalidar();
+                DisponibilidadeVeiculos.invalidar();
+                notificar();
+            }
+            boolean sincronizou = pendentes() > 0 && sincronizar();
+            Instantaneo i = instantaneo;
+            if (sincronizou || i == null || System.currentTimeMillis() - i.geradoEm() > INTERVALO_INSTANTANEO_MS) {
+                salvarInstantaneo(conn);
+            }
+        } catch (SQLException e) {
+            if (!registrarFalha(e)) throw e;
+        }
+    }
+
+    // Aplica a fila em ordem; false se a conexão caiu no meio (o restante fica para a próxima verificação)
+    private static boolean sincronizar() throws IOException {
+        List<DiarioEventos.Evento> eventos = new ArrayList<>();
+        DiarioEventos.reproduzir(DIRETORIO_FILA, lerAplicado() + 1, eventos::add);
+        ServicoReserva servico = new ServicoReserva();
+        int aplicadas = 0;
+        List<String> conflitos = new ArrayList<>();
+        boolean completa = true;
+        for (DiarioEventos.Evento e : eventos) {
+            String conflito;
+            try {
+                conflito = aplicar(servico, e);
+            } catch (SQLException ex) {
+                if (registrarFalha(ex)) { completa = false; break; }
+                conflito = descrever(e) + ": " + ex.getMessage();
+            }
+            if (conflito == null) aplicadas++;
+            else {
+                conflitos.add(conflito);
+                registrarConflito(e, conflito);
+            }
+            gravarAplicado(e.sequencia());
+            synchronized (ModoOffline.class) {
+                if (e.tipo() == DiarioEventos.Tipo.RESERVA_CRIADA) reservasPendentes.remove(pedido(e.dados()));
+                else devolucoesPendentes.remove(inteiro(e.dados().get("id")));
+            }
+        }
+        if (aplicadas > 0 || !conflitos.isEmpty()) {
+            System.out.println("Modo offline: " + aplicadas + " operação(ões) sincronizada(s), " + conflitos.size() + " conflito(s)");
+            CatalogoVeiculos.invalidar();
+            DisponibilidadeVeiculos.invalidar();
+            IndicadoresFrota.invalidar();
+            notificar();
+            Sincronizacao s = new Sincronizacao(aplicadas, List.copyOf(conflitos));
+            for (Consumer<Sincronizacao> ouvinte : ouvintesSincronizacao) ouvinte.accept(s);
+        }
+        return completa;
+    }
+
+    // null se aplicada; senão a descrição do conflito
+    private static String aplicar(ServicoReserva servico, DiarioEventos.Evento e) throws SQLException {
+        if (e.tipo() == DiarioEventos.Tipo.RESERVA_CRIADA) {
+            ServicoReserva.Pedido p = pedido(e.dados());
+            // A conexão pode ter caído depois do commit: a reserva já gravada não é duplicada
+            try (Connection conn = Main.Conexao.getPool().obter()) {
+                Reserva r = new Reserva("", "", 0, p.idCliente(), p.idVeiculo(), ReservaDAO.UTILIZANDO, p.placa());
+                if (new ReservaDAO(conn).buscarAbertaIgual(r, p.retirada(), p.devolucao()) != null) return null;
+            }
+            ServicoReserva.Confirmacao c = servico.reservarNoBanco(p);
+            return c.resultado() == ServicoReserva.Resultado.ESGOTADO ? descrever(e) + ": " + LanguageManager.get("offline.conflict.soldout") : null;
+        }
+        // Devolução que outra estação já fez: nada a aplicar
+        if (!servico.devolverNoBanco(inteiro(e.dados().get("id")))) {
+            System.out.println("Modo offline: reserva " + e.dados().get("id") + " já estava devolvida");
+        }
+        return null;
+    }
+
+    private static String descrever(DiarioEventos.Evento e) {
+        Map<String, Object> d = e.dados();
+        if (e.tipo() == DiarioEventos.Tipo.RESERVA_DEVOLVIDA) return LanguageManager.get("offline.conflict.return") + " " + d.get("id");
+        return LanguageManager.get("offline.conflict.reserve") + " " + d.get("placa") + " ("
+                + DateUtil.formatar(LocalDate.parse((String) d.get("retirada"))) + " - "
+                + DateUtil.formatar(LocalDate.parse((String) d.get("devolucao"))) + ")";
+    }
+
+    private static void registrarConflito(DiarioEventos.Evento e, String motivo) {
+        String linha = Json.escrever(DiarioEventos.dados("registradoEm", Instant.now().toString(), "sequencia", e.sequencia(),
+                "tipo", e.tipo().name(), "dados", e.dados(), "motivo", motivo)) + System.lineSeparator();
+        try {
+            Files.writeString(ARQUIVO_CONFLITOS, linha, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            System.err.println("Modo offline: falha ao registrar conflito: " + ex.getMessage());
+        }
+        System.err.println("Modo offline: conflito na sincronização: " + motivo);
+    }
+
+    private static void notificar() {
+        for (Runnable ouvinte : ouvintes) ouvinte.run();
+    }
+
+    private static long lerAplicado() throws IOException {
+        if (!Files.exists(ARQUIVO_APLICADO)) return 0;
+        return Long.parseLong(Files.readString(ARQUIVO_APLICADO, StandardCharsets.UTF_8).trim());
+    }
+
+    private static void gravarAplicado(long sequencia) throws IOException {
+        escreverAtomico(ARQUIVO_APLICADO, Long.toString(sequencia));
+    }
+
+    private static void salvarInstantaneo(Connection conn) throws SQLException, IOException {
+        long inicio = System.currentTimeMillis();
+        List<Veiculo> veiculos = new VeiculoDAO(conn).listar(VeiculoDAO.Filtro.GERAL, null);
+        List<Cliente> clientes = new ClienteDAO(conn).listar(ClienteDAO.Filtro.GERAL, null);
+        List<ReservaDAO.Aberta> abertas = new ReservaDAO(conn).listarAbertas();
+
+        // Datas em ISO no arquivo: o instantâneo continua válido se o idioma mudar
+        List<Object> jsonVeiculos = new ArrayList<>(veiculos.size());
+        for (Veiculo v : veiculos) {
+            jsonVeiculos.add(DiarioEventos.dados("id", v.getId(), "marca", v.getMarca(), "modelo", v.getModelo(),
+                    "cor", v.getCor(), "ano", v.getAno(), "quantidade", v.getQuantidade()));
+        }
+        List<Object> jsonClientes = new ArrayList<>(clientes.size());
+        List<Cliente> clientesIso = new ArrayList<>(clientes.size());
+        for (Cliente c : clientes) {
+            String nascimento;
+            try { nascimento = DateUtil.lerData(c.getData_nasc()).toString(); }
+            catch (ParseException | RuntimeException e) { nascimento = null; }
+            jsonClientes.add(DiarioEventos.dados("id", c.getId(), "cpf", c.getCpf(), "nome", c.getNome(), "nascimento", nascimento));
+            clientesIso.add(new Cliente(c.getCpf(), c.getNome(), c.getId(), nascimento));
+        }
+        List<Object> jsonAbertas = new ArrayList<>(abertas.size());
+        for (ReservaDAO.Aberta a : abertas) {
+            ReservaDetalhe r = a.detalhe();
+            jsonAbertas.add(DiarioEventos.dados("id", r.getId(), "cliente", r.getId_cliente(), "veiculo", r.getId_veiculo(),
+                    "cpf", r.getCpf(), "nome", r.getNome(), "marca", r.getMarca(), "modelo", r.getModelo(), "cor", r.getCor(),
+                    "placa", r.getPlaca(), "situacao", r.getSituacao(), "retirada", a.retirada().toString(), "entrega", a.entrega().toString()));
+        }
+        Files.createDirectories(DIRETORIO);
+        escreverAtomico(ARQUIVO_INSTANTANEO, Json.escrever(DiarioEventos.dados("geradoEm", inicio,
+                "veiculos", jsonVeiculos, "clientes", jsonClientes, "abertas", jsonAbertas)));
+        instantaneo = new Instantaneo(inicio, List.copyOf(veiculos), comDatasLocais(clientesIso), List.copyOf(abertas));
+    }
+
+    private static Instantaneo lerInstantaneo() {
+        if (!Files.exists(ARQUIVO_INSTANTANEO)) return null;
+        try {
+            Map<String, Object> json = Json.lerObjeto(Files.readString(ARQUIVO_INSTANTANEO, StandardCharsets.UTF_8));
+            List<Veiculo> veiculos = new ArrayList<>();
+            for (Object o : (List<?>) json.get("veiculos")) {
+                Map<?, ?> v = (Map<?, ?>) o;
+                veiculos.add(new Veiculo(inteiro(v.get("ano")), inteiro(v.get("id")), (String) v.get("marca"),
+                        (String) v.get("modelo"), (String) v.get("cor"), inteiro(v.get("quantidade"))));
+            }
+            List<Cliente> clientes = new ArrayList<>();
+            for (Object o : (List<?>) json.get("clientes")) {
+                Map<?, ?> c = (Map<?, ?>) o;
+                clientes.add(new Cliente((String) c.get("cpf"), (String) c.get("nome"), inteiro(c.get("id")), (String) c.get("nascimento")));
+            }
+            List<ReservaDAO.Aberta> abertas = new ArrayList<>();
+            for (Object o : (List<?>) json.get("abertas")) {
+                Map<?, ?> a = (Map<?, ?>) o;
+                ReservaDetalhe r = new ReservaDetalhe();
+                r.setId(inteiro(a.get("id")));
+                r.setId_cliente(inteiro(a.get("cliente")));
+                r.setId_veiculo(inteiro(a.get("veiculo")));
+                r.setCpf((String) a.get("cpf"));
+                r.setNome((String) a.get("nome"));
+                r.setMarca((String) a.get("marca"));
+                r.setModelo((String) a.get("modelo"));
+                r.setCor((String) a.get("cor"));
+                r.setPlaca((String) a.get("placa"));
+                r.setSituacao((String) a.get("situacao"));
+                abertas.add(new ReservaDAO.Aberta(r, LocalDate.parse((String) a.get("retirada")), LocalDate.parse((String) a.get("entrega"))));
+            }
+            return new Instantaneo(((Number) json.get("geradoEm")).longValue(), List.copyOf(veiculos), comDatasLocais(clientes), List.copyOf(abertas));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Modo offline: instantâneo ilegível, ignorado: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // As telas mostram a data de nascimento no formato do idioma, como o ClienteDAO
+    private static List<Cliente> comDatasLocais(List<Cliente> clientesIso) {
+        List<Cliente> clientes = new ArrayList<>(clientesIso.size());
+        for (Cliente c : clientesIso) {
+            String nascimento = c.getData_nasc() == null ? "" : DateUtil.formatar(LocalDate.parse(c.getData_nasc()));
+            clientes.add(new Cliente(c.getCpf(), c.getNome(), c.getId(), nascimento));
+        }
+        return List.copyOf(clientes);
+    }
+
+    // Grava ao lado e troca o arquivo de uma vez: uma queda no meio não deixa arquivo pela metade
+    private static void escreverAtomico(Path destino, String conteudo) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        Files.writeString(temporario, conteudo, StandardCharsets.UTF_8);
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int inteiro(Object numero) {
+        return ((Number) numero).intValue();
+    }
+
+    private static boolean semConexao(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException s && s.getSQLState() != null && s.getSQLState().startsWith("08")) return true;
+        }
+        return false;
+    }
+
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto == null ? "" : texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase();
+    }
+}
@@ -0,0 +1,379 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool limitado de conexões JDBC reutilizáveis.
+ * <p>
+ * Abrir uma conexão com o MySQL custa um handshake TCP + autenticação a cada
+ * clique. Este pool mantém conexões físicas abertas e as entrega embrulhadas em
+ * um proxy: chamar {@code close()} no proxy devolve a conexão ao pool em vez de
+ * fechá-la, por isso o código das telas continua usando try-with-resources normalmente.
+ * <p>
+ * Recursos:
+ * <ul>
+ * <li>Tamanho mínimo e máximo (o máximo é garantido por um {@link Semaphore}).</li>
+ * <li>Validação da conexão ({@link Connection#isValid(int)}) antes de entregá-la.</li>
+ * <li>Remoção de conexões ociosas além do mínimo.</li>
+ * <li>Detecção de vazamento: a pilha de quem pegou a conexão é registrada e
+ * impressa se ela não for devolvida dentro do limite.</li>
+ * <li>Cache de PreparedStatements por conexão física ({@link CacheStatements}); os demais
+ * statements do empréstimo são fechados na devolução.</li>
+ * <li>Estatísticas ({@link Estatisticas}).</li>
+ * </ul>
+ * @author Marcos Vinicius
+ */
+public class PoolConexoes {
+    private final String url, usuario, senha;
+    private final int tamanhoMinimo, tamanhoMaximo;
+    private final long tempoMaximoOciosoMs, limiteVazamentoMs, tempoEsperaMs;
+
+    // Conexões físicas livres (a mais recente fica no início para reaproveitar as "quentes")
+    private final Deque<ConexaoOciosa> ociosas = new ArrayDeque<>();
+    private final int capacidadeCacheStatements;
+    private volatile List<String> sqlAquecimento = List.of();
+    private volatile int esperaPorBloqueioS; // 0 = padrão do servidor
+    private final Set<Emprestimo> emprestadas = ConcurrentHashMap.newKeySet();
+    private final Semaphore permissoes;
+    private final ScheduledExecutorService manutencao;
+
+    private final AtomicLong totalCriadas = new AtomicLong();
+    private final AtomicLong totalDescartadas = new AtomicLong();
+    private final AtomicLong totalEmprestimos = new AtomicLong();
+    private final AtomicLong totalEsperaNs = new AtomicLong();
+    private final AtomicLong totalTimeouts = new AtomicLong();
+    private final AtomicLong totalVazamentos = new AtomicLong();
+
+    public PoolConexoes(String url, String usuario, String senha, int tamanhoMinimo, int tamanhoMaximo,
+                        long tempoMaximoOciosoMs, long limiteVazamentoMs, long tempoEsperaMs, int capacidadeCacheStatements) {
+        if (tamanhoMinimo < 0 || tamanhoMaximo < 1 || tamanhoMinimo > tamanhoMaximo) {
+            throw new IllegalArgumentException("Tamanhos inválidos: min=" + tamanhoMinimo + " max=" + tamanhoMaximo);
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.senha = senha;
+        this.tamanhoMinimo = tamanhoMinimo;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.tempoMaximoOciosoMs = tempoMaximoOciosoMs;
+        this.limiteVazamentoMs = limiteVazamentoMs;
+        this.tempoEsperaMs = tempoEsperaMs;
+        this.capacidadeCacheStatements = capacidadeCacheStatements;
+        this.permissoes = new Semaphore(tamanhoMaximo, true);
+
+        manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexoes-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, Math.min(tempoMaximoOciosoMs, limiteVazamentoMs) / 2);
+        manutencao.scheduleWithFixedDelay(this::executarManutencao, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pega uma conexão do pool, aguardando até {@code tempoEsperaMs} se todas estiverem em uso.
+     * @return Proxy de Connection; {@code close()} devolve a conexão ao pool.
+     * @throws SQLException Se o tempo de espera esgotar ou o banco estiver inacessível.
+     */
+    public Connection obter() throws SQLException {
+        if (CarregadorAssincrono.cargaCancelada()) throw new SQLException("Carga cancelada");
+        long inicio = System.nanoTime();
+        try {
+            if (!permissoes.tryAcquire(tempoEsperaMs, TimeUnit.MILLISECONDS)) {
+                totalTimeouts.incrementAndGet();
+                throw new SQLException("Tempo esgotado aguardando conexão livre no pool (máx " + tamanhoMaximo + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        }
+
+        try {
+            ConexaoFisica fisica = retirarOciosaValida();
+            if (fisica == null) fisica = criarFisica();
+            totalEmprestimos.incrementAndGet();
+            totalEsperaNs.addAndGet(System.nanoTime() - inicio);
+
+            Emprestimo emp = new Emprestimo(fisica, new Throwable("Conexão obtida aqui"));
+            emprestadas.add(emp);
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, emp);
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre uma conexão física fora do pool, para tarefas longas que não devem ocupar uma vaga
+     * do balcão nem ser relatadas como vazamento (ex: exportação em fluxo). Quem chama a fecha.
+     */
+    public Connection abrirDedicada() throws SQLException {
+        return DriverManager.getConnection(url, usuario, senha);
+    }
+
+    private ConexaoFisica retirarOciosaValida() {
+        while (true) {
+            ConexaoOciosa oc;
+            synchronized (ociosas) { oc = ociosas.pollFirst(); }
+            if (oc == null) return null;
+            if (validar(oc.conexao.conexao())) return oc.conexao;
+            descartar(oc.conexao);
+        }
+    }
+
+    private ConexaoFisica criarFisica() throws SQLException {
+        Connection c = DriverManager.getConnection(url, usuario, senha);
+        int espera = esperaPorBloqueioS;
+        if (espera > 0) {
+            // Variável da sessão: definida uma vez e mantida enquanto a conexão física viver
+            try (Statement st = c.createStatement()) {
+                st.execute("SET SESSION innodb_lock_wait_timeout = " + espera);
+            } catch (SQLException e) {
+                try { c.close(); } catch (SQLException ignored) { }
+                throw e;
+            }
+        }
+        totalCriadas.incrementAndGet();
+        CacheStatements cache = new CacheStatements(c, capacidadeCacheStatements);
+        cache.preparar(sqlAquecimento);
+        return new ConexaoFisica(c, cache);
+    }
+
+    /**
+     * Define os formatos de SQL preparados antecipadamente em cada nova conexão física
+     * (as variantes fixas dos DAOs).
+     */
+    public void setSqlAquecimento(List<String> sqls) {
+        this.sqlAquecimento = List.copyOf(sqls);
+    }
+
+    /**
+     * Define o {@code innodb_lock_wait_timeout} de cada nova conexão física do pool. As conexões
+     * de {@link #abrirDedicada()} ficam com o padrão do servidor.
+     * @param segundos 0 mantém o padrão do servidor.
+     */
+    public void setEsperaPorBloqueio(int segundos) {
+        this.esperaPorBloqueioS = segundos;
+    }
+
+    private boolean validar(Connection c) {
+        try { return !c.isClosed() && c.isValid(2); }
+        catch (SQLException e) { return false; }
+    }
+
+    private void descartar(ConexaoFisica c) {
+        totalDescartadas.incrementAndGet();
+        c.cache().fechar();
+        try { c.conexao().close(); } catch (SQLException ignored) { }
+    }
+
+    /**
+     * Devolve a conexão física ao pool, desfazendo qualquer transação deixada aberta.
+     */
+    private void devolver(Emprestimo emp) {
+        emprestadas.remove(emp);
+        emp.desvincular.run(); // A partir daqui um cancelamento atrasado não atinge o próximo dono
+        ConexaoFisica fisica = emp.fisica;
+        Connection c = fisica.conexao();
+        try {
+            emp.fecharAvulsos();
+            fisica.cache().liberarTodos();
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (c.isReadOnly()) c.setReadOnly(false);
+            c.clearWarnings();
+            synchronized (ociosas) { ociosas.addFirst(new ConexaoOciosa(fisica, System.currentTimeMillis())); }
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    /**
+     * Abre conexões até atingir o tamanho mínimo (útil para aquecer o pool na inicialização).
+     */
+    public void preencherMinimo() {
+        while (true) {
+            synchronized (ociosas) {
+                if (ociosas.size() + emprestadas.size() >= tamanhoMinimo) return;
+            }
+            try {
+                ConexaoFisica c = criarFisica();
+                synchronized (ociosas) { ociosas.addLast(new ConexaoOciosa(c, System.currentTimeMillis())); }
+            } catch (SQLException e) {
+                System.err.println("Pool: não foi possível abrir conexão mínima: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void executarManutencao() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            // 1. Remove ociosas antigas, preservando o mínimo (as mais antigas ficam no fim da fila)
+            while (true) {
+                ConexaoOciosa oc;
+                synchronized (ociosas) {
+                    oc = ociosas.peekLast();
+                    if (oc == null || ociosas.size() + emprestadas.size() <= tamanhoMinimo
+                            || agora - oc.desde < tempoMaximoOciosoMs) break;
+                    ociosas.pollLast();
+                }
+                descartar(oc.conexao);
+            }
+
+            // 2. Relata conexões emprestadas há tempo demais (provável falta de close())
+            for (Emprestimo emp : emprestadas) {
+                if (!emp.vazamentoRelatado && agora - emp.obtidaEm > limiteVazamentoMs) {
+                    emp.vazamentoRelatado = true;
+                    totalVazamentos.incrementAndGet();
+                    System.err.println("Pool: possível vazamento de conexão (em uso há " + (agora - emp.obtidaEm) + " ms)");
+                    emp.origem.printStackTrace();
+                }
+            }
+
+            preencherMinimo();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Fecha todas as conexões ociosas e encerra a manutenção.
+     */
+    public void encerrar() {
+        manutencao.shutdownNow();
+        synchronized (ociosas) {
+            for (ConexaoOciosa oc : ociosas) descartar(oc.conexao);
+            ociosas.clear();
+        }
+    }
+
+    public Estatisticas getEstatisticas() {
+        int livres;
+        synchronized (ociosas) { livres = ociosas.size(); }
+        long emprestimos = totalEmprestimos.get();
+        return new Estatisticas(emprestadas.size(), livres, tamanhoMaximo, totalCriadas.get(), totalDescartadas.get(),
+                emprestimos, emprestimos == 0 ? 0 : totalEsperaNs.get() / emprestimos / 1000,
+                totalTimeouts.get(), totalVazamentos.get());
+    }
+
+    /**
+     * Fotografia dos contadores do pool.
+     */
+    public record Estatisticas(int emUso, int ociosas, int maximo, long criadas, long descartadas,
+                               long emprestimos, long esperaMediaMicros, long timeouts, long vazamentos) {
+        @Override
+        public String toString() {
+            return "Pool[emUso=" + emUso + ", ociosas=" + ociosas + ", max=" + maximo + ", criadas=" + criadas
+                    + ", descartadas=" + descartadas + ", emprestimos=" + emprestimos
+                    + ", esperaMedia=" + esperaMediaMicros + "us, timeouts=" + timeouts + ", vazamentos=" + vazamentos + "]";
+        }
+    }
+
+    private record ConexaoFisica(Connection conexao, CacheStatements cache) { }
+
+    private record ConexaoOciosa(ConexaoFisica conexao, long desde) { }
+
+    /**
+     * Handler do proxy entregue às telas. Intercepta {@code close()} e bloqueia o uso após a devolução.
+     */
+    private final class Emprestimo implements InvocationHandler {
+        private final ConexaoFisica fisica;
+        private final Throwable origem;
+        private final long obtidaEm = System.currentTimeMillis();
+        private volatile boolean devolvida;
+        private volatile boolean vazamentoRelatado;
+        // Statements entregues neste empréstimo (cancelados se a carga da tela for superada)
+        private final List<Statement> statements = new CopyOnWriteArrayList<>();
+        // Statements fora do cache: fechados na devolução, senão acumulariam na conexão física
+        private final List<Statement> avulsos = new CopyOnWriteArrayList<>();
+        private final Runnable desvincular;
+
+        Emprestimo(ConexaoFisica fisica, Throwable origem) {
+            this.fisica = fisica;
+            this.origem = origem;
+            this.desvincular = CarregadorAssincrono.aoCancelar(this::cancelarStatements);
+        }
+
+        private void cancelarStatements() {
+            for (Statement st : statements) {
+                try { st.cancel(); } catch (SQLException ignored) { }
+            }
+        }
+
+        private void fecharAvulsos() {
+            for (Statement st : avulsos) {
+                try { st.close(); } catch (SQLException ignored) { }
+            }
+            avulsos.clear();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devolvida) {
+                        devolvida = true;
+                        devolver(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return devolvida || fisica.conexao().isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoPool[" + fisica.conexao() + "]";
+                case "prepareStatement":
+                    // Formato simples (só o SQL) é servido pelo cache de statements
+                    if (args.length == 1) {
+                        if (devolvida) throw new SQLException("Conexão já devolvida ao pool");
+                        Statement cacheado = fisica.cache().obter((String) args[0]);
+                        if (cacheado != null) return registrar(cacheado);
+                    }
+                    return delegar(method, args);
+                default:
+                    return delegar(method, args);
+            }
+        }
+
+        // Repassa a chamada à conexão física; statements criados fora do cache são fechados na devolução
+        private Object delegar(Method method, Object[] args) throws Throwable {
+            if (devolvida) throw new SQLException("Conexão já devolvida ao pool");
+            try {
+                Object resultado = registrar(method.invoke(fisica.conexao(), args));
+                if (resultado instanceof Statement st) avulsos.add(st);
+                return resultado;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private Object registrar(Object resultado) {
+            if (resultado instanceof Statement st) statements.add(st);
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acesso a dados da tabela tab_reservas (com JOIN em clientes e veículos para o histórico).
+ * <p>
+ * As consultas paginadas do histórico usam paginação por chave em {@code r.id DESC}
+ * (ver {@link ReservaTableModel}); o {@link Filtro} vem de {@link BuscaReservas}.
+ * Reservas finalizadas antigas ficam em tab_reservas_arquivo ({@link ArquivoReservas}) e só
+ * entram no histórico com {@link Filtro#comArquivo()}.
+ * @author Marcos Vinicius
+ */
+public class ReservaDAO {
+
+    /**
+     * Filtro aplicado às consultas: junção extra, condição WHERE e parâmetros na ordem
+     * em que os '?' aparecem (primeiro os da junção, depois os da condição).
+     * @param comArquivo Consulta também tab_reservas_arquivo (busca explícita no arquivo).
+     */
+    public record Filtro(String juncao, String condicao, List<Object> parametros, boolean comArquivo) {
+        public static final Filtro TODOS = new Filtro("", null, List.of());
+        public static final Filtro TODOS_COM_ARQUIVO = new Filtro("", null, List.of(), true);
+
+        public Filtro(String juncao, String condicao, List<Object> parametros) {
+            this(juncao, condicao, parametros, false);
+        }
+
+        boolean vazio() {
+            return juncao.isEmpty() && condicao == null;
+        }
+    }
+
+    // Colunas gravadas de tab_reservas (as mesmas em tab_reservas_arquivo)
+    static final String COLUNAS_TABELA = "id, id_cliente, id_veiculo, data_reserva, data_entrega, situacao, placa";
+    // Reservas ativas e arquivadas como uma só tabela 'r' (os ids nunca se repetem: a linha é movida)
+    static final String FONTE_COM_ARQUIVO = "(SELECT " + COLUNAS_TABELA + " FROM tab_reservas UNION ALL SELECT "
+            + COLUNAS_TABELA + " FROM tab_reservas_arquivo)";
+    static final String SQL_COLUNAS = "SELECT r.id, r.id_cliente, r.id_veiculo, c.cpf, c.nome, v.marca, v.modelo, v.cor, r.placa, r.data_reserva, r.data_entrega, r.situacao ";
+    static final String SQL_JOIN = "FROM tab_reservas r " +
+            "JOIN tab_clientes c ON r.id_cliente=c.id " +
+            "JOIN tab_veiculos v ON r.id_veiculo=v.id";
+    static final String SQL_JOIN_COM_ARQUIVO = SQL_JOIN.replace("FROM tab_reservas r", "FROM " + FONTE_COM_ARQUIVO + " r");
+    static final String SQL_CONTAR_TODAS = "SELECT COUNT(*) FROM tab_reservas";
+    static final String SQL_CONTAR_COM_ARQUIVO = "SELECT (SELECT COUNT(*) FROM tab_reservas) + (SELECT COUNT(*) FROM tab_reservas_arquivo)";
+    static final String SQL_INSERIR = "INSERT INTO tab_reservas (id_veiculo, id_cliente, data_reserva, data_entrega, situacao, placa) VALUES (?,?,?,?,?,?)";
+    // Valores do enum tab_reservas.situacao
+    public static final String UTILIZANDO = "Utilizando";
+    public static final String EM_ATRASO = "Em atrazo";
+    public static final String ENTREGUE = "Entregue";
+    public static final String ENTREGUE_COM_ATRASO = "Entregue com atrazo";
+
+    // A situação final depende da data de entrega; só reservas em aberto podem ser finalizadas (evita devolver duas vezes)
+    static final String SQL_FINALIZAR = "UPDATE tab_reservas SET situacao = IF(data_entrega < ?, '" + ENTREGUE_COM_ATRASO + "', '" + ENTREGUE + "') " +
+            "WHERE id=? AND situacao IN ('" + UTILIZANDO + "', '" + EM_ATRASO + "')";
+    // Reservas que ocupam uma unidade do veículo (ainda não devolvidas), para o DisponibilidadeVeiculos
+    static final String SQL_OCUPACOES = "SELECT id_veiculo, data_reserva, data_entrega, situacao FROM tab_reservas " +
+            "WHERE situacao IN ('" + UTILIZANDO + "', '" + EM_ATRASO + "')";
+    static final String SQL_OCUPACOES_VEICULO = SQL_OCUPACOES + " AND id_veiculo = ?";
+    // Devolução: bloqueia a reserva em aberto até o commit (duas devoluções simultâneas não se cruzam)
+    static final String SQL_TRAVAR_ABERTA = SQL_OCUPACOES + " AND id = ? FOR UPDATE";
+    static final String SQL_ULTIMO_ID = "SELECT LAST_INSERT_ID()";
+    // Recálculo completo dos indicadores do Dashboard (IndicadoresFrota): uma linha por veículo com reserva em aberto
+    static final String SQL_CONTAR_ABERTAS = "SELECT id_veiculo, COUNT(*) AS abertas, SUM(data_reserva <= ?) AS em_uso, " +
+            "SUM(situacao = '" + EM_ATRASO + "' OR data_entrega < ?) AS atrasadas FROM tab_reservas " +
+            "WHERE situacao IN ('" + UTILIZANDO + "', '" + EM_ATRASO + "') GROUP BY id_veiculo";
+    // Instantâneo do modo offline (ModoOffline): reservas em aberto com cliente e veículo
+    static final String SQL_ABERTAS_DETALHE = SQL_COLUNAS + SQL_JOIN + " WHERE r.situacao IN ('" + UTILIZANDO + "', '" + EM_ATRASO + "')";
+    // Sincronização do modo offline: a mesma reserva já gravada (commit confirmado antes de a conexão cair)
+    static final String SQL_ABERTA_IGUAL = "SELECT id FROM tab_reservas WHERE id_cliente=? AND id_veiculo=? AND placa=? " +
+            "AND data_reserva=? AND data_entrega=? AND situacao IN ('" + UTILIZANDO + "', '" + EM_ATRASO + "') LIMIT 1";
+    // Arquivamento (ArquivoReservas): finalizadas com entrega anterior à data, pelo índice (situacao, data_entrega)
+    static final String SQL_LOTE_ARQUIVO = "SELECT id FROM tab_reservas WHERE situacao IN ('" + ENTREGUE + "', '" + ENTREGUE_COM_ATRASO + "') " +
+            "AND data_entrega < ? LIMIT ? FOR UPDATE";
+    // Um único UPDATE por varredura, pelo índice (situacao, data_entrega)
+    static final String SQL_MARCAR_ATRASADAS = "UPDATE tab_reservas SET situacao='" + EM_ATRASO + "' " +
+            "WHERE situacao='" + UTILIZANDO + "' AND data_entrega < ?";
+
+    private final Connection conn;
+
+    public ReservaDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Conta as reservas do filtro. Sem filtro, conta apenas as tabelas (sem JOIN).
+     */
+    public int contar(Filtro filtro) throws SQLException {
+        String sql = !filtro.vazio() ? montarSql("SELECT COUNT(*) ", filtro, false, "")
+                : filtro.comArquivo() ? SQL_CONTAR_COM_ARQUIVO : SQL_CONTAR_TODAS;
+        try (PreparedStatement pst = conn.prepareStatement(sql)) {
+            preencher(pst, filtro, null);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Busca uma página do histórico em ordem decrescente de id.
+     * @param ancora Id exclusivo onde a página começa (null = do início).
+     */
+    public List<ReservaDetalhe> buscarPagina(Filtro filtro, Integer ancora, int limite) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(montarSql(SQL_COLUNAS, filtro, ancora != null, " ORDER BY r.id DESC LIMIT ?"))) {
+            int i = preencher(pst, filtro, ancora);
+            pst.setInt(i, limite);
+
+            // As datas da página são lidas cruas e formatadas em lote no fim
+            List<ReservaDetalhe> reservas = new ArrayList<>(limite);
+            List<java.sql.Date> datas = new ArrayList<>(limite * 2);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    reservas.add(mapearSemDatas(rs));
+                    datas.add(rs.getDate("data_reserva"));
+                    datas.add(rs.getDate("data_entrega"));
+                }
+            }
+            String[] textos = DateUtil.formatarTodas(datas.toArray(new java.sql.Date[0]));
+            for (int j = 0; j < reservas.size(); j++) {
+                reservas.get(j).setData_reserva(textos[2 * j]);
+                reservas.get(j).setData_entrega(textos[2 * j + 1]);
+            }
+            return reservas;
+        }
+    }
+
+    /**
+     * Descobre o id que fica {@code pular} posições depois da âncora, percorrendo apenas ids.
+     * @return O id encontrado, ou null se não houver tantas linhas.
+     */
+    public Integer buscarAncora(Filtro filtro, Integer ancora, int pular) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(montarSql("SELECT r.id ", filtro, ancora != null, " ORDER BY r.id DESC LIMIT 1 OFFSET ?"))) {
+            int i = preencher(pst, filtro, ancora);
+            pst.setInt(i, pular);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Insere a reserva (datas no formato do idioma atual).
+     */
+    public void inserir(Reserva r) throws SQLException, ParseException {
+        inserir(r, DateUtil.lerData(r.getData_reserva()), DateUtil.lerData(r.getData_entrega()));
+    }
+
+    /**
+     * Insere a reserva com as datas já convertidas (as datas em texto de {@code r} são ignoradas).
+     * @return Id gerado para a reserva.
+     */
+    public int inserir(Reserva r, LocalDate retirada, LocalDate entrega) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_INSERIR)) {
+            pst.setInt(1, r.getId_veiculo());
+            pst.setInt(2, r.getId_cliente());
+            pst.setDate(3, java.sql.Date.valueOf(retirada));
+            pst.setDate(4, java.sql.Date.valueOf(entrega));
+            pst.setString(5, r.getSituacao());
+            pst.setString(6, r.getPlaca());
+            pst.executeUpdate();
+            // LAST_INSERT_ID() é da sessão: mesma conexão, logo após o INSERT
+            try (PreparedStatement ultimo = conn.prepareStatement(SQL_ULTIMO_ID);
+                 ResultSet rs = ultimo.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Bloqueia a reserva até o fim da transação, se ela ainda estiver em aberto.
+     * @return O período ocupado pela reserva, ou null se ela não existe ou já foi devolvida.
+     */
+    public Ocupacao travarAberta(int idReserva) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_TRAVAR_ABERTA)) {
+            pst.setInt(1, idReserva);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? mapearOcupacao(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Marca a reserva como entregue ('Entregue com atrazo' se a devolução ocorre após a data de entrega).
+     * @param hoje Data da devolução.
+     * @return 1 se finalizou; 0 se a reserva não existe ou já havia sido finalizada.
+     */
+    public int finalizar(int idReserva, LocalDate hoje) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_FINALIZAR)) {
+            pst.setDate(1, java.sql.Date.valueOf(hoje));
+            pst.setInt(2, idReserva);
+            return pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Passa para 'Em atrazo' todas as reservas em uso cuja data de entrega já passou.
+     * @param hoje Data de referência (reservas com entrega anterior a ela estão atrasadas).
+     * @return Quantidade de reservas marcadas.
+     */
+    public int marcarAtrasadas(LocalDate hoje) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_MARCAR_ATRASADAS)) {
+            pst.setDate(1, java.sql.Date.valueOf(hoje));
+            return pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Período em que uma reserva em aberto ocupa uma unidade do veículo.
+     * @param atrasada Situação 'Em atrazo' (a unidade continua ocupada até ser devolvida).
+     */
+    public record Ocupacao(int idVeiculo, LocalDate retirada, LocalDate entrega, boolean atrasada) { }
+
+    /**
+     * Lista as reservas em aberto ('Utilizando' e 'Em atrazo').
+     * @param idVeiculo Apenas deste veículo, ou null para todos.
+     */
+    public List<Ocupacao> listarOcupacoes(Integer idVeiculo) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(idVeiculo == null ? SQL_OCUPACOES : SQL_OCUPACOES_VEICULO)) {
+            if (idVeiculo != null) pst.setInt(1, idVeiculo);
+            List<Ocupacao> ocupacoes = new ArrayList<>();
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    Ocupacao o = mapearOcupacao(rs);
+                    if (o != null) ocupacoes.add(o);
+                }
+            }
+            return ocupacoes;
+        }
+    }
+
+    // null se a reserva não tiver as duas datas
+    private static Ocupacao mapearOcupacao(ResultSet rs) throws SQLException {
+        java.sql.Date retirada = rs.getDate("data_reserva"), entrega = rs.getDate("data_entrega");
+        if (retirada == null || entrega == null) return null;
+        return new Ocupacao(rs.getInt("id_veiculo"), LocalDate.ofEpochDay(DateUtil.paraDiaEpoch(retirada)),
+                LocalDate.ofEpochDay(DateUtil.paraDiaEpoch(entrega)), EM_ATRASO.equals(rs.getString("situacao")));
+    }
+
+    /**
+     * Reservas em aberto de um veículo.
+     * @param emUso Já retiradas (data de retirada até hoje).
+     * @param atrasadas 'Em atrazo' ou com a data de entrega vencida.
+     */
+    public record Contagem(int idVeiculo, int abertas, int emUso, int atrasadas) { }
+
+    /**
+     * Conta as reservas em aberto por veículo, em uma única consulta agregada.
+     */
+    public List<Contagem> contarAbertas(LocalDate hoje) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_CONTAR_ABERTAS)) {
+            pst.setDate(1, java.sql.Date.valueOf(hoje));
+            pst.setDate(2, java.sql.Date.valueOf(hoje));
+            List<Contagem> contagens = new ArrayList<>();
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    contagens.add(new Contagem(rs.getInt("id_veiculo"), rs.getInt("abertas"), rs.getInt("em_uso"), rs.getInt("atrasadas")));
+                }
+            }
+            return contagens;
+        }
+    }
+
+    /**
+     * Reserva em aberto com cliente e veículo; as datas vêm como {@link LocalDate} (independentes do idioma).
+     */
+    public record Aberta(ReservaDetalhe detalhe, LocalDate retirada, LocalDate entrega) { }
+
+    /**
+     * Lista todas as reservas em aberto com os dados do cliente e do veículo.
+     */
+    public List<Aberta> listarAbertas() throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_ABERTAS_DETALHE)) {
+            List<Aberta> abertas = new ArrayList<>();
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Date retirada = rs.getDate("data_reserva"), entrega = rs.getDate("data_entrega");
+                    if (retirada == null || entrega == null) continue;
+                    abertas.add(new Aberta(mapearSemDatas(rs), LocalDate.ofEpochDay(DateUtil.paraDiaEpoch(retirada)),
+                            LocalDate.ofEpochDay(DateUtil.paraDiaEpoch(entrega))));
+                }
+            }
+            return abertas;
+        }
+    }
+
+    /**
+     * Procura uma reserva em aberto idêntica (mesmo cliente, veículo, placa e período).
+     * @return O id encontrado, ou null.
+     */
+    public Integer buscarAbertaIgual(Reserva r, LocalDate retirada, LocalDate entrega) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_ABERTA_IGUAL)) {
+            pst.setInt(1, r.getId_cliente());
+            pst.setInt(2, r.getId_veiculo());
+            pst.setString(3, r.getPlaca());
+            pst.setDate(4, java.sql.Date.valueOf(retirada));
+            pst.setDate(5, java.sql.Date.valueOf(entrega));
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Move para tab_reservas_arquivo um lote de reservas finalizadas com entrega anterior a {@code limite}.
+     * Deve ser chamado com a transação aberta: as linhas do lote ficam bloqueadas até o commit.
+     * @return Quantidade de reservas movidas (menor que {@code lote} quando não há mais o que arquivar).
+     */
+    public int arquivarLote(LocalDate limite, int lote) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_LOTE_ARQUIVO)) {
+            pst.setDate(1, java.sql.Date.valueOf(limite));
+            pst.setInt(2, lote);
+            StringBuilder ids = new StringBuilder();
+            int quantidade = 0;
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    if (quantidade++ > 0) ids.append(',');
+                    ids.append(rs.getInt(1));
+                }
+            }
+            if (quantidade == 0) return 0;
+            // Lista de ids (inteiros lidos do banco) no texto: o tamanho varia a cada lote e não vale guardar no cache de statements
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("INSERT INTO tab_reservas_arquivo (" + COLUNAS_TABELA + ") SELECT " + COLUNAS_TABELA
+                        + " FROM tab_reservas WHERE id IN (" + ids + ")");
+                st.executeUpdate("DELETE FROM tab_reservas WHERE id IN (" + ids + ")");
+            }
+            return quantidade;
+        }
+    }
+
+    /**
+     * Reserva ainda não devolvida ('Utilizando' ou 'Em atrazo').
+     */
+    public static boolean emAberto(String situacao) {
+        return UTILIZANDO.equalsIgnoreCase(situacao) || EM_ATRASO.equalsIgnoreCase(situacao);
+    }
+
+    private static String montarSql(String colunas, Filtro filtro, boolean comAncora, String sufixo) {
+        StringBuilder sql = new StringBuilder(colunas).append(filtro.comArquivo() ? SQL_JOIN_COM_ARQUIVO : SQL_JOIN).append(filtro.juncao());
+        List<String> condicoes = new ArrayList<>(2);
+        if (filtro.condicao() != null) condicoes.add("(" + filtro.condicao() + ")");
+        if (comAncora) condicoes.add("r.id < ?");
+        if (!condicoes.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", condicoes));
+        return sql.append(sufixo).toString();
+    }
+
+    private static int preencher(PreparedStatement pst, Filtro filtro, Integer ancora) throws SQLException {
+        int i = 1;
+        for (Object p : filtro.parametros()) pst.setObject(i++, p);
+        if (ancora != null) pst.setInt(i++, ancora);
+        return i;
+    }
+
+    static ReservaDetalhe mapear(ResultSet rs) throws SQLException {
+        ReservaDetalhe r = mapearSemDatas(rs);
+        // Conversão de Datas
+        r.setData_reserva(DateUtil.formatarData(rs.getDate("data_reserva")));
+        r.setData_entrega(DateUtil.formatarData(rs.getDate("data_entrega")));
+        return r;
+    }
+
+    private static ReservaDetalhe mapearSemDatas(ResultSet rs) throws SQLException {
+        ReservaDetalhe r = new ReservaDetalhe();
+        r.setId(rs.getInt("id"));
+        r.setId_cliente(rs.getInt("id_cliente"));
+        r.setId_veiculo(rs.getInt("id_veiculo"));
+        r.setPlaca(rs.getString("placa"));
+        r.setSituacao(rs.getString("situacao"));
+        // Dados do Join (Cliente/Veiculo)
+        r.setCpf(rs.getString("cpf"));
+        r.setNome(rs.getString("nome"));
+        r.setMarca(rs.getString("marca"));
+        r.setModelo(rs.getString("modelo"));
+        r.setCor(rs.getString("cor"));
+        return r;
+    }
+
+    /**
+     * Formatos de SQL fixos deste DAO (aquecimento do cache de statements).
+     */
+    static List<String> sqlFixos() {
+        return List.of(SQL_CONTAR_TODAS, SQL_INSERIR, SQL_FINALIZAR, SQL_MARCAR_ATRASADAS, SQL_OCUPACOES, SQL_OCUPACOES_VEICULO,
+                SQL_TRAVAR_ABERTA, SQL_ULTIMO_ID, SQL_CONTAR_ABERTAS, SQL_ABERTA_IGUAL, SQL_LOTE_ARQUIVO,
+                montarSql(SQL_COLUNAS, Filtro.TODOS, false, " ORDER BY r.id DESC LIMIT ?"),
+                montarSql(SQL_COLUNAS, Filtro.TODOS, true, " ORDER BY r.id DESC LIMIT ?"));
+    }
+}
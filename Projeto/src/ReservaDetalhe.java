@@ -0,0 +1,57 @@
+/**
+ * Reserva acompanhada dos dados do cliente e do veículo (resultado do JOIN
+ * usado no histórico de reservas).
+ * @author Marcos Vinicius
+ */
+public class ReservaDetalhe extends Reserva {
+    private String cpf, nome, marca, modelo, cor;
+
+    public ReservaDetalhe() {
+        super();
+        this.cpf = "";
+        this.nome = "";
+        this.marca = "";
+        this.modelo = "";
+        this.cor = "";
+    }
+
+    public String getCpf() {
+        return cpf;
+    }
+
+    public void setCpf(String cpf) {
+        this.cpf = cpf;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getMarca() {
+        return marca;
+    }
+
+    public void setMarca(String marca) {
+        this.marca = marca;
+    }
+
+    public String getModelo() {
+        return modelo;
+    }
+
+    public void setModelo(String modelo) {
+        this.modelo = modelo;
+    }
+
+    public String getCor() {
+        return cor;
+    }
+
+    public void setCor(String cor) {
+        this.cor = cor;
+    }
+}
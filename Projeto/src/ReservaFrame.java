@@ -3,8 +3,7 @@ import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.sql.*;
-import java.util.*;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 
 /**
  * Tela de cadastro de Novas Reservas.
@@ -12,9 +11,11 @@ import java.text.SimpleDateFormat;
  * Responsabilidades:
  * <ul>
  * <li>Buscar clientes pelo CPF.</li>
- * <li>Listar veículos disponíveis em estoque.</li>
+ * <li>Listar os veículos com unidade livre entre as datas de retirada e devolução
+ * ({@link DisponibilidadeVeiculos}), atualizando a lista enquanto as datas são digitadas.</li>
  * <li>Calcular datas de retirada e devolução.</li>
- * <li><strong>Transação Atômica:</strong> Criar reserva e atualizar estoque do veículo.</li>
+ * <li><strong>Transação Atômica:</strong> Criar a reserva após confirmar a disponibilidade no banco ({@link ServicoReserva}).
+ * Sem banco, a reserva vai para a fila do {@link ModoOffline}.</li>
  * </ul>
  * @author Marcos Vinicius
  */
@@ -22,8 +23,11 @@ public class ReservaFrame extends JPanel {
     private JComboBox<ComboBoxItem> cmbVeiculo;
     private JTextField txtDataRetirada, txtDataDevolucao, txtCpfCliente, txtPlaca;
     private JLabel lblNomeCliente;
+    private JButton btnSalvar, btnVoltar;
     private int idClienteSelecionado = -1;
     private Main parentFrame;
+    private CarregadorAssincrono carregador;
+    private CarregadorAssincrono carregadorCliente; // Separado: a busca do cliente não cancela a lista de veículos
 
     public ReservaFrame(Main parent) {
         this.parentFrame = parent;
@@ -33,11 +37,13 @@ public class ReservaFrame extends JPanel {
         JPanel header = new JPanel(new BorderLayout());
         header.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
 
-        JButton btnVoltar = new JButton(LanguageManager.get("menu.cancel"));
+        btnVoltar = new JButton();
+        LanguageManager.vincular(btnVoltar::setText, "menu.cancel");
         Main.GlobalStyles.styleButton(btnVoltar, Main.GlobalStyles.COLOR_RED);
         btnVoltar.addActionListener(e -> parentFrame.mostrarDashboard());
 
-        JLabel titulo = new JLabel(LanguageManager.get("reserve.title"), SwingConstants.CENTER);
+        JLabel titulo = new JLabel("", SwingConstants.CENTER);
+        LanguageManager.vincular(titulo::setText, "reserve.title");
         titulo.setFont(new Font("Arial", Font.BOLD, 22));
 
         header.add(btnVoltar, BorderLayout.WEST);
@@ -48,7 +54,7 @@ public class ReservaFrame extends JPanel {
         form.setBackground(Color.WHITE);
         JPanel campos = new JPanel(new GridLayout(7, 2, 10, 20));
         campos.setPreferredSize(new Dimension(600, 350));
-        campos.setBorder(BorderFactory.createTitledBorder(LanguageManager.get("reserve.data.title")));
+        LanguageManager.vincular(t -> campos.setBorder(BorderFactory.createTitledBorder(t)), "reserve.data.title");
 
         txtCpfCliente = new JTextField();
         txtCpfCliente.addKeyListener(new KeyAdapter() {
@@ -60,33 +66,38 @@ public class ReservaFrame extends JPanel {
             }
         });
 
-        JButton btnBuscaCpf = new JButton(LanguageManager.get("client.search"));
+        JButton btnBuscaCpf = new JButton();
+        LanguageManager.vincular(btnBuscaCpf::setText, "client.search");
         btnBuscaCpf.addActionListener(e -> buscarCliente());
         JPanel pCpf = new JPanel(new BorderLayout());
         pCpf.add(txtCpfCliente, BorderLayout.CENTER);
         pCpf.add(btnBuscaCpf, BorderLayout.EAST);
 
-        campos.add(new JLabel(LanguageManager.get("col.cpf") + ":"));
+        campos.add(rotulo("col.cpf"));
         campos.add(pCpf);
 
-        campos.add(new JLabel(LanguageManager.get("col.name") + ":"));
+        campos.add(rotulo("col.name"));
         lblNomeCliente = new JLabel("---");
         lblNomeCliente.setForeground(Color.BLUE);
         campos.add(lblNomeCliente);
 
-        campos.add(new JLabel(LanguageManager.get("menu.vehicle") + ":"));
+        campos.add(rotulo("menu.vehicle"));
         cmbVeiculo = new JComboBox<>();
-        campos.add(cmbVeiculo);
+        JLabel lblCarregando = new JLabel();
+        LanguageManager.vincular(lblCarregando::setText, "msg.loading");
+        carregador = new CarregadorAssincrono(this, lblCarregando);
+        carregadorCliente = new CarregadorAssincrono(this, null);
+        JPanel pVeiculo = new JPanel(new BorderLayout());
+        pVeiculo.add(cmbVeiculo, BorderLayout.CENTER);
+        pVeiculo.add(lblCarregando, BorderLayout.EAST);
+        campos.add(pVeiculo);
 
-        campos.add(new JLabel(LanguageManager.get("col.plate") + ":"));
+        campos.add(rotulo("col.plate"));
         txtPlaca = new JTextField();
         campos.add(txtPlaca);
 
-        String formatoData = LanguageManager.getDateFormat();
-        SimpleDateFormat dateFormat = new SimpleDateFormat(formatoData);
-
-        campos.add(new JLabel(LanguageManager.get("reserve.pickup") + " (" + formatoData + "):"));
-        txtDataRetirada = new JTextField(dateFormat.format(new java.util.Date()));
+        campos.add(rotuloData("reserve.pickup"));
+        txtDataRetirada = new JTextField(DateUtil.formatar(LocalDate.now()));
         txtDataRetirada.addKeyListener(new KeyAdapter() {
             public void keyTyped(KeyEvent e) {
                 String permitidos = "0123456789/";
@@ -95,9 +106,8 @@ public class ReservaFrame extends JPanel {
         });
         campos.add(txtDataRetirada);
 
-        campos.add(new JLabel(LanguageManager.get("reserve.return") + " (" + formatoData + "):"));
-        Calendar c = Calendar.getInstance(); c.add(Calendar.DAY_OF_YEAR, 7);
-        txtDataDevolucao = new JTextField(dateFormat.format(c.getTime()));
+        campos.add(rotuloData("reserve.return"));
+        txtDataDevolucao = new JTextField(DateUtil.formatar(LocalDate.now().plusDays(7)));
         txtDataDevolucao.addKeyListener(new KeyAdapter() {
             public void keyTyped(KeyEvent e) {
                 String permitidos = "0123456789/";
@@ -106,11 +116,16 @@ public class ReservaFrame extends JPanel {
         });
         campos.add(txtDataDevolucao);
 
+        // Cada data faz parte da chave da busca da outra: alterar qualquer uma relista os veículos
+        new BuscaDinamica(txtDataRetirada, txtDataDevolucao::getText, t -> recarregarVeiculos());
+        new BuscaDinamica(txtDataDevolucao, txtDataRetirada::getText, t -> recarregarVeiculos());
+
         form.add(campos);
         add(form, BorderLayout.CENTER);
 
         JPanel footer = new JPanel();
-        JButton btnSalvar = new JButton(LanguageManager.get("btn.confirm"));
+        btnSalvar = new JButton();
+        LanguageManager.vincular(btnSalvar::setText, "btn.confirm");
         Main.GlobalStyles.styleButton(btnSalvar, Main.GlobalStyles.COLOR_GREEN);
         btnSalvar.setPreferredSize(new Dimension(250, 50));
         btnSalvar.addActionListener(e -> salvarReserva());
@@ -120,9 +135,22 @@ public class ReservaFrame extends JPanel {
         add(footer, BorderLayout.SOUTH);
     }
 
+    // Rótulos do formulário, atualizados na troca de idioma
+    private static JLabel rotulo(String chave) {
+        JLabel lbl = new JLabel();
+        LanguageManager.vincular(t -> lbl.setText(t + ":"), chave);
+        return lbl;
+    }
+
+    private static JLabel rotuloData(String chave) {
+        JLabel lbl = new JLabel();
+        LanguageManager.vincular(() -> lbl.setText(LanguageManager.get(chave) + " (" + LanguageManager.getDateFormat() + "):"));
+        return lbl;
+    }
+
     /**
      * Reseta o formulário para o estado inicial.
-     * Busca no banco apenas veículos com quantidade > 0.
+     * Lista apenas os veículos com unidade livre no período padrão (hoje + 7 dias).
      */
     public void atualizarDadosIniciais() {
         cmbVeiculo.removeAllItems();
@@ -131,26 +159,41 @@ public class ReservaFrame extends JPanel {
         txtPlaca.setText("");
         idClienteSelecionado = -1;
 
-        SimpleDateFormat dateFormat = new SimpleDateFormat(LanguageManager.getDateFormat());
-        txtDataRetirada.setText(dateFormat.format(new java.util.Date()));
-        Calendar c = Calendar.getInstance(); c.add(Calendar.DAY_OF_YEAR, 7);
-        txtDataDevolucao.setText(dateFormat.format(c.getTime()));
+        txtDataRetirada.setText(DateUtil.formatar(LocalDate.now()));
+        txtDataDevolucao.setText(DateUtil.formatar(LocalDate.now().plusDays(7)));
 
-        Connection conn = Main.Conexao.conectar();
-        if(conn == null) return;
+        recarregarVeiculos();
+    }
+
+    // Relista os veículos livres no período digitado; com datas inválidas o combo fica vazio
+    private void recarregarVeiculos() {
+        LocalDate retirada, devolucao;
         try {
-            PreparedStatement pst = conn.prepareStatement("SELECT id, marca, modelo, cor FROM tab_veiculos WHERE quantidade > 0");
-            ResultSet rs = pst.executeQuery();
-            while(rs.next()) {
-                String descricao = rs.getString("marca") + " - " + rs.getString("modelo") + " (" + rs.getString("cor") + ")";
-                cmbVeiculo.addItem(new ComboBoxItem(rs.getInt("id"), descricao));
+            retirada = DateUtil.lerData(txtDataRetirada.getText());
+            devolucao = DateUtil.lerData(txtDataDevolucao.getText());
+        } catch (java.text.ParseException e) {
+            carregador.cancelar();
+            cmbVeiculo.removeAllItems();
+            return;
+        }
+        if (devolucao.isBefore(retirada)) {
+            carregador.cancelar();
+            cmbVeiculo.removeAllItems();
+            return;
+        }
+        carregador.carregar(() -> MetricasConsultas.medir("reserva.veiculos", () -> DisponibilidadeVeiculos.disponiveis(retirada, devolucao)), itens -> {
+            Object selecionado = cmbVeiculo.getSelectedItem();
+            cmbVeiculo.removeAllItems();
+            for (ComboBoxItem item : itens) {
+                cmbVeiculo.addItem(item);
+                // Mantém o veículo escolhido se ele continuar livre no novo período
+                if (selecionado instanceof ComboBoxItem s && s.getId() == item.getId()) cmbVeiculo.setSelectedItem(item);
             }
-            conn.close();
-        } catch(Exception e) { e.printStackTrace(); }
+        });
     }
 
     /**
-     * Busca um cliente no banco baseado no CPF digitado.
+     * Busca em segundo plano um cliente no banco baseado no CPF digitado.
      * Atualiza o label com o nome ou mensagem de erro.
      */
     private void buscarCliente() {
@@ -161,24 +204,33 @@ public class ReservaFrame extends JPanel {
             return;
         }
 
-        Connection conn = Main.Conexao.conectar();
-        try {
-            PreparedStatement pst = conn.prepareStatement("SELECT id, nome FROM tab_clientes WHERE cpf = ?");
-            pst.setString(1, txtCpfCliente.getText());
-            ResultSet rs = pst.executeQuery();
-            if(rs.next()) {
-                idClienteSelecionado = rs.getInt("id");
-                lblNomeCliente.setText(rs.getString("nome"));
+        String cpf = txtCpfCliente.getText();
+        // Até a resposta chegar não há cliente selecionado (salvar pede o cliente)
+        idClienteSelecionado = -1;
+        lblNomeCliente.setText(LanguageManager.get("msg.loading"));
+        carregadorCliente.carregar(() -> {
+            try (Connection conn = Main.Conexao.conectar()) {
+                return conn == null ? ModoOffline.clientePorCpf(cpf)
+                        : MetricasConsultas.medir("reserva.buscarCliente", () -> new ClienteDAO(conn).buscarPorCpf(cpf), c -> c == null ? 0 : 1);
+            }
+        }, cliente -> {
+            if(cliente != null) {
+                idClienteSelecionado = cliente.getId();
+                lblNomeCliente.setText(cliente.getNome());
             } else {
                 lblNomeCliente.setText(LanguageManager.get("reserve.client.notfound"));
-                idClienteSelecionado = -1;
             }
-            conn.close();
-        } catch(Exception e) { e.printStackTrace(); }
+        }, e -> {
+            e.printStackTrace();
+            lblNomeCliente.setText(LanguageManager.get("msg.error.db"));
+        });
     }
 
     /**
-     * Executa a lógica principal de salvamento.
+     * Executa a lógica principal de salvamento pelo {@link ServicoReserva}, em segundo plano.
+     * A gravação não passa pelo carregador da tela (que as datas e a navegação cancelam): enquanto
+     * ela não termina, salvar de novo e sair da tela ficam bloqueados.
+     * Se a última unidade do período tiver sido reservada por outra estação, avisa e recarrega a lista de veículos.
      */
     private void salvarReserva() {
         if(idClienteSelecionado == -1 || cmbVeiculo.getSelectedItem() == null || txtPlaca.getText().isEmpty()) {
@@ -186,30 +238,46 @@ public class ReservaFrame extends JPanel {
             return;
         }
 
+        LocalDate retirada, devolucao;
         try {
-            Connection conn = Main.Conexao.conectar();
-            conn.setAutoCommit(false);
-
-            String sqlRes = "INSERT INTO tab_reservas (id_veiculo, id_cliente, data_reserva, data_entrega, situacao, placa) VALUES (?,?,?,?,?,?)";
-            PreparedStatement pst = conn.prepareStatement(sqlRes);
-            pst.setInt(1, ((ComboBoxItem)cmbVeiculo.getSelectedItem()).getId());
-            pst.setInt(2, idClienteSelecionado);
-            pst.setDate(3, DateUtil.converterEValidarData(txtDataRetirada.getText()));
-            pst.setDate(4, DateUtil.converterEValidarData(txtDataDevolucao.getText()));
-            pst.setString(5, "Utilizando");
-            pst.setString(6, txtPlaca.getText().toUpperCase());
-            pst.executeUpdate();
-
-            PreparedStatement pstUpd = conn.prepareStatement("UPDATE tab_veiculos SET quantidade = quantidade - 1 WHERE id = ?");
-            pstUpd.setInt(1, ((ComboBoxItem)cmbVeiculo.getSelectedItem()).getId());
-            pstUpd.executeUpdate();
-
-            conn.commit();
-            conn.close();
-
-            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.success"));
+            retirada = DateUtil.lerData(txtDataRetirada.getText());
+            devolucao = DateUtil.lerData(txtDataDevolucao.getText());
+        } catch (java.text.ParseException e) {
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error.date"), LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (devolucao.isBefore(retirada)) {
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error.date.range"), LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
+            txtDataDevolucao.requestFocus();
+            return;
+        }
+
+        int idVeiculo = ((ComboBoxItem)cmbVeiculo.getSelectedItem()).getId();
+        ServicoReserva.Pedido pedido = new ServicoReserva.Pedido(idClienteSelecionado, idVeiculo,
+                txtPlaca.getText().toUpperCase(), retirada, devolucao);
+
+        gravando(true);
+        CarregadorAssincrono.gravar(() -> MetricasConsultas.medir("reserva.salvar", () -> new ServicoReserva().reservar(pedido),
+                c -> c.resultado() == ServicoReserva.Resultado.CONFIRMADA ? 1 : 0), confirmacao -> {
+            gravando(false);
+            if (confirmacao.resultado() == ServicoReserva.Resultado.ESGOTADO) {
+                // O combo estava desatualizado (o serviço já descartou os caches): lista de novo
+                JOptionPane.showMessageDialog(this, LanguageManager.get("msg.reserve.soldout"), LanguageManager.get("title.error"), JOptionPane.WARNING_MESSAGE);
+                recarregarVeiculos();
+                return;
+            }
+            boolean naFila = confirmacao.resultado() == ServicoReserva.Resultado.PENDENTE;
+            JOptionPane.showMessageDialog(this, LanguageManager.get(naFila ? "msg.reserve.offline" : "msg.success"));
             parentFrame.mostrarDashboard();
+        }, e -> {
+            gravando(false);
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + e.getMessage());
+        });
+    }
 
-        } catch(Exception e) { JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + e.getMessage()); }
+    private void gravando(boolean gravando) {
+        btnSalvar.setEnabled(!gravando);
+        btnVoltar.setEnabled(!gravando);
+        setCursor(gravando ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
     }
-}
\ No newline at end of file
+}
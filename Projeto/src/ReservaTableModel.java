@@ -0,0 +1,250 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * TableModel "virtual" do histórico de reservas.
+ * <p>
+ * Em vez de carregar o JOIN inteiro em memória, as linhas são buscadas em páginas
+ * conforme a JTable pede para desenhá-las (rolagem):
+ * <ul>
+ * <li><strong>Paginação por chave (keyset):</strong> cada página é
+ * {@code WHERE r.id < ancora ORDER BY r.id DESC LIMIT n}, usando o índice da chave
+ * primária, sem o custo crescente de um OFFSET grande.</li>
+ * <li><strong>Âncoras:</strong> o último id de cada página é guardado. Para saltar
+ * direto para uma página distante, a âncora é descoberta com uma consulta só de ids.</li>
+ * <li><strong>Cache LRU:</strong> no máximo {@link #MAX_PAGINAS} páginas ficam em memória.</li>
+ * <li><strong>Total:</strong> obtido por um COUNT(*) sem JOIN quando não há filtro.</li>
+ * </ul>
+ * Enquanto uma página não chega, as células retornam null e a página é pedida em segundo plano.
+ * As páginas são buscadas uma de cada vez; pedidos de páginas que saíram da área visível
+ * ({@link #definirVisiveis}) antes de serem atendidos são descartados.
+ * @author Marcos Vinicius
+ */
+public class ReservaTableModel extends AbstractTableModel {
+    public static final int TAMANHO_PAGINA = 100;
+    public static final int MAX_PAGINAS = 20;
+
+    public static final int COL_ID = 0;
+    public static final int COL_SITUACAO = 8;
+    public static final int COL_ACOES = 9;
+
+    private static final String[] CHAVES_COLUNAS = {
+            "col.id", "col.cpf", "col.name", null, "col.color", "col.plate",
+            "reserve.pickup", "reserve.return", "reserve.status", "col.actions"
+    };
+
+    private ReservaDAO.Filtro filtro = ReservaDAO.Filtro.TODOS;
+    private int total;
+    private long versao;
+
+    // Páginas carregadas (LRU por ordem de acesso)
+    private final Map<Integer, Object[][]> paginas = new LinkedHashMap<>(MAX_PAGINAS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> maisAntiga) {
+            return size() > MAX_PAGINAS;
+        }
+    };
+    // ancoras.get(p) = id exclusivo a partir do qual a página p começa (página 0 = sem limite)
+    private final TreeMap<Integer, Integer> ancoras = new TreeMap<>();
+    // Páginas pedidas e ainda não buscadas, em ordem de pedido (só uma busca por vez)
+    private final Set<Integer> pendentes = new LinkedHashSet<>();
+    private int emCarga = -1;
+    private boolean buscando;
+    // Páginas na área visível da tabela (-1 = ainda desconhecida)
+    private int primeiraVisivel = -1, ultimaVisivel = -1;
+
+    @Override
+    public int getRowCount() {
+        return total;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return CHAVES_COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int col) {
+        if (CHAVES_COLUNAS[col] == null) return LanguageManager.get("col.brand") + " / " + LanguageManager.get("col.model");
+        return LanguageManager.get(CHAVES_COLUNAS[col]);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return col == COL_ACOES;
+    }
+
+    @Override
+    public Object getValueAt(int row, int col) {
+        int pagina = row / TAMANHO_PAGINA;
+        Object[][] linhas = paginas.get(pagina);
+        if (linhas == null) {
+            solicitarPagina(pagina);
+            return null;
+        }
+        int i = row % TAMANHO_PAGINA;
+        return i < linhas.length ? linhas[i][col] : null;
+    }
+
+    /**
+     * Resultado da carga inicial: total de linhas e a primeira página.
+     */
+    public record Inicio(ReservaDAO.Filtro filtro, int total, Object[][] primeiraPagina) { }
+
+    /**
+     * Conta as linhas e busca a primeira página (chamado fora da EDT).
+     */
+    public static Inicio consultarInicio(ReservaDAO.Filtro filtro) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) return new Inicio(filtro, 0, new Object[0][]);
+            ReservaDAO dao = new ReservaDAO(conn);
+            int total = dao.contar(filtro);
+            Object[][] primeira = total == 0 ? new Object[0][] : buscarPagina(dao, filtro, null);
+            return new Inicio(filtro, total, primeira);
+        }
+    }
+
+    /**
+     * Substitui o conteúdo do modelo por uma nova consulta (chamado na EDT).
+     */
+    public void reiniciar(Inicio inicio) {
+        versao++;
+        filtro = inicio.filtro();
+        paginas.clear();
+        ancoras.clear();
+        pendentes.clear();
+        emCarga = -1;
+        primeiraVisivel = ultimaVisivel = -1; // Até a próxima rolagem, todas as páginas pedidas são buscadas
+        ancoras.put(0, null);
+        total = inicio.total();
+        if (total > 0) registrarPagina(0, inicio.primeiraPagina());
+        fireTableDataChanged();
+    }
+
+    /**
+     * Informa as linhas visíveis da tabela (chamado na EDT a cada rolagem).
+     */
+    public void definirVisiveis(int primeiraLinha, int ultimaLinha) {
+        primeiraVisivel = Math.max(0, primeiraLinha) / TAMANHO_PAGINA;
+        ultimaVisivel = Math.max(primeiraLinha, ultimaLinha) / TAMANHO_PAGINA;
+    }
+
+    private void solicitarPagina(int pagina) {
+        if (pagina == emCarga || !pendentes.add(pagina)) return;
+        if (!buscando) buscarProxima();
+    }
+
+    // Inicia a busca da próxima página pendente ainda visível (na EDT)
+    private void buscarProxima() {
+        int pagina = -1;
+        for (Iterator<Integer> it = pendentes.iterator(); it.hasNext() && pagina < 0; ) {
+            int p = it.next();
+            it.remove();
+            // Fora da tela: se voltar a aparecer, a JTable pede a página de novo
+            if (primeiraVisivel < 0 || (p >= primeiraVisivel && p <= ultimaVisivel)) pagina = p;
+        }
+        if (pagina < 0) return;
+
+        final int minhaPagina = pagina;
+        final long minhaVersao = versao;
+        final ReservaDAO.Filtro meuFiltro = filtro;
+        final Map.Entry<Integer, Integer> conhecida = ancoras.floorEntry(pagina);
+        emCarga = pagina;
+        buscando = true;
+
+        CarregadorAssincrono.submeter(() -> {
+            Pagina lida = null;
+            try {
+                lida = MetricasConsultas.medir("historico.pagina", () -> lerPagina(minhaPagina, conhecida, meuFiltro),
+                        p -> p.linhas().length);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            final Pagina resultado = lida;
+            SwingUtilities.invokeLater(() -> {
+                buscando = false;
+                if (minhaVersao == versao) {
+                    emCarga = -1;
+                    if (resultado != null) {
+                        if (resultado.ancora() != null) ancoras.put(minhaPagina, resultado.ancora());
+                        registrarPagina(minhaPagina, resultado.linhas());
+                    }
+                }
+                buscarProxima();
+            });
+        });
+    }
+
+    private record Pagina(Integer ancora, Object[][] linhas) { }
+
+    // Descobre a âncora (se a página não for contígua a uma conhecida) e busca as linhas; null sem conexão
+    private static Pagina lerPagina(int pagina, Map.Entry<Integer, Integer> conhecida, ReservaDAO.Filtro filtro) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) return null;
+            ReservaDAO dao = new ReservaDAO(conn);
+            Integer ancora = conhecida.getValue();
+            if (conhecida.getKey() != pagina) {
+                int pular = (pagina - conhecida.getKey()) * TAMANHO_PAGINA - 1;
+                ancora = dao.buscarAncora(filtro, ancora, pular);
+            }
+            Object[][] linhas = ancora == null && pagina > 0 ? new Object[0][] : buscarPagina(dao, filtro, ancora);
+            return new Pagina(ancora, linhas);
+        }
+    }
+
+    private void registrarPagina(int pagina, Object[][] linhas) {
+        paginas.put(pagina, linhas);
+        if (linhas.length > 0) ancoras.put(pagina + 1, (Integer) linhas[linhas.length - 1][COL_ID]);
+
+        int inicio = pagina * TAMANHO_PAGINA;
+        if (linhas.length < TAMANHO_PAGINA && inicio + linhas.length < total) {
+            // A contagem estava maior que o real (linhas removidas ou sem JOIN): corrige o total
+            total = inicio + linhas.length;
+            fireTableDataChanged();
+        } else if (linhas.length > 0) {
+            fireTableRowsUpdated(inicio, inicio + linhas.length - 1);
+        }
+    }
+
+    private static Object[][] buscarPagina(ReservaDAO dao, ReservaDAO.Filtro filtro, Integer ancora) throws SQLException {
+        List<ReservaDetalhe> reservas = dao.buscarPagina(filtro, ancora, TAMANHO_PAGINA);
+        Object[][] linhas = new Object[reservas.size()][];
+        // CPFs da página formatados em lote (um único buffer)
+        String[] cpfs = new String[linhas.length];
+        for (int i = 0; i < cpfs.length; i++) cpfs[i] = reservas.get(i).getCpf();
+        String[] formatados = ValidadorCPF.formatarTodos(cpfs);
+        for (int i = 0; i < linhas.length; i++) linhas[i] = paraLinha(reservas.get(i), formatados[i]);
+        return linhas;
+    }
+
+    /**
+     * Converte a reserva para o formato exibido na tabela.
+     */
+    static Object[] paraLinha(ReservaDetalhe r) {
+        return paraLinha(r, ValidadorCPF.formatarCPF(r.getCpf()));
+    }
+
+    private static Object[] paraLinha(ReservaDetalhe r, String cpfFormatado) {
+        return new Object[]{
+                r.getId(),
+                cpfFormatado,
+                r.getNome(),
+                r.getMarca() + " / " + r.getModelo(),
+                r.getCor(),
+                r.getPlaca(),
+                r.getData_reserva(),
+                r.getData_entrega(),
+                r.getSituacao(),
+                r.getId_veiculo()       // Oculto: usado pela ação de devolução
+        };
+    }
+}
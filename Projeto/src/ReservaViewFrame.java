@@ -1,20 +1,29 @@
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.*;
 import java.awt.*;
+import java.io.File;
 import java.sql.*;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Tela de visualização e histórico de Reservas.
- * Exibe a lista de locações com filtros avançados (CPF, Nome, Marca, Modelo)
- * e permite a finalização (devolução) do veículo.
+ * Exibe a lista de locações com filtros avançados (CPF, Nome, Marca, Modelo),
+ * permite a finalização (devolução) do veículo e exporta o histórico de um período
+ * para CSV ou XLSX ({@link ExportadorReservas}).
  * @author Marcos Vinicius
  */
 public class ReservaViewFrame extends JPanel {
-    private DefaultTableModel modelo;
+    private ReservaTableModel modelo;
     private JTable tabela;
     private Main parentFrame;
     private JTextField txtBusca;
+    private JCheckBox chkArquivo;
+    private CarregadorAssincrono carregador;
+    private final Set<Integer> devolvendo = new HashSet<>(); // Devoluções em andamento (só na EDT)
 
     public ReservaViewFrame(Main parent) {
         this.parentFrame = parent;
@@ -25,11 +34,13 @@ public class ReservaViewFrame extends JPanel {
         JPanel header = new JPanel(new BorderLayout());
         header.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
 
-        JButton btnVoltar = new JButton(LanguageManager.get("menu.back"));
+        JButton btnVoltar = new JButton();
+        LanguageManager.vincular(btnVoltar::setText, "menu.back");
         Main.GlobalStyles.styleButton(btnVoltar, Color.GRAY);
         btnVoltar.addActionListener(e -> parentFrame.mostrarDashboard());
 
-        JLabel titulo = new JLabel(LanguageManager.get("reserve.history"), SwingConstants.CENTER);
+        JLabel titulo = new JLabel("", SwingConstants.CENTER);
+        LanguageManager.vincular(titulo::setText, "reserve.history");
         titulo.setFont(new Font("Arial", Font.BOLD, 22));
 
         header.add(btnVoltar, BorderLayout.WEST);
@@ -41,124 +52,205 @@ public class ReservaViewFrame extends JPanel {
         toolbar.setBackground(Color.WHITE);
         toolbar.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
 
-        toolbar.add(new JLabel(LanguageManager.get("client.search") + ": "));
+        JLabel lblBusca = new JLabel();
+        LanguageManager.vincular(t -> lblBusca.setText(t + ": "), "client.search");
+        toolbar.add(lblBusca);
 
         txtBusca = new JTextField(30);
 
-        JButton btnBusca = new JButton(LanguageManager.get("client.search"));
+        JButton btnBusca = new JButton();
+        LanguageManager.vincular(btnBusca::setText, "client.search");
 
         Main.GlobalStyles.styleButton(btnBusca, Main.GlobalStyles.COLOR_BLUE);
         btnBusca.setPreferredSize(new Dimension(80, 30));
 
-        btnBusca.addActionListener(e -> carregarReservas(txtBusca.getText()));
-        txtBusca.addActionListener(e -> carregarReservas(txtBusca.getText())); // Busca ao dar Enter
+        // Reservas finalizadas antigas só aparecem quando o atendente pede (ArquivoReservas)
+        chkArquivo = new JCheckBox();
+        chkArquivo.setBackground(Color.WHITE);
+        LanguageManager.vincular(chkArquivo::setText, "reserve.search.archive");
+
+        // Busca enquanto digita (com debounce); Enter e o botão buscam na hora
+        BuscaDinamica busca = new BuscaDinamica(txtBusca, chkArquivo::isSelected, this::carregarReservas);
+        chkArquivo.addActionListener(e -> busca.executarAgora());
+        btnBusca.addActionListener(e -> busca.executarAgora());
+        txtBusca.addActionListener(e -> busca.executarAgora()); // Busca ao dar Enter
+
+        JLabel lblCarregando = new JLabel();
+        LanguageManager.vincular(lblCarregando::setText, "msg.loading");
+        carregador = new CarregadorAssincrono(this, lblCarregando);
 
         toolbar.add(txtBusca);
         toolbar.add(btnBusca);
+        toolbar.add(chkArquivo);
+
+        JButton btnExportar = new JButton();
+        LanguageManager.vincular(btnExportar::setText, "export.button");
+        Main.GlobalStyles.styleButton(btnExportar, Main.GlobalStyles.COLOR_GREEN);
+        btnExportar.addActionListener(e -> exportarReservas());
+        toolbar.add(btnExportar);
+        toolbar.add(lblCarregando);
 
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.add(header, BorderLayout.NORTH);
         topPanel.add(toolbar, BorderLayout.SOUTH);
         add(topPanel, BorderLayout.NORTH);
 
-        // --- TABELA ---
-        String[] cols = {
-                LanguageManager.get("col.id"),
-                LanguageManager.get("col.cpf"),
-                LanguageManager.get("col.name"),
-                LanguageManager.get("col.brand") + " / " + LanguageManager.get("col.model"),
-                LanguageManager.get("col.color"),
-                LanguageManager.get("col.plate"),
-                LanguageManager.get("reserve.pickup"),
-                LanguageManager.get("reserve.return"),
-                LanguageManager.get("reserve.status"),
-                LanguageManager.get("col.actions")
-        };
-
-        modelo = new DefaultTableModel(null, cols) {
-            @Override public boolean isCellEditable(int row, int col) {
-                String nomeColuna = getColumnName(col);
-                return nomeColuna.equals(LanguageManager.get("col.actions"));
-            }
-        };
+        // --- TABELA (paginada sob demanda) ---
+        modelo = new ReservaTableModel();
         tabela = new JTable(modelo);
+        LanguageManager.vincularCabecalho(tabela);
         tabela.setRowHeight(35);
         tabela.putClientProperty("JTable.autoStartsEdit", Boolean.TRUE);
 
         DefaultTableCellRenderer center = new DefaultTableCellRenderer();
         center.setHorizontalAlignment(SwingConstants.CENTER);
-        for (int i = 0; i < cols.length; i++) tabela.getColumnModel().getColumn(i).setCellRenderer(center);
+        for (int i = 0; i < modelo.getColumnCount(); i++) tabela.getColumnModel().getColumn(i).setCellRenderer(center);
         ((DefaultTableCellRenderer)tabela.getTableHeader().getDefaultRenderer()).setHorizontalAlignment(SwingConstants.CENTER);
 
-        TableColumn colAcao = tabela.getColumn(LanguageManager.get("col.actions"));
+        TableColumn colAcao = tabela.getColumnModel().getColumn(ReservaTableModel.COL_ACOES);
         colAcao.setCellRenderer(new ButtonRenderer());
         colAcao.setCellEditor(new ButtonEditor(new JCheckBox()));
 
-        add(new JScrollPane(tabela), BorderLayout.CENTER);
+        JScrollPane rolagem = new JScrollPane(tabela);
+        // Páginas pedidas que saíram da tela antes de chegar a vez delas não são buscadas
+        rolagem.getViewport().addChangeListener(e -> {
+            Rectangle visivel = tabela.getVisibleRect();
+            int primeira = tabela.rowAtPoint(visivel.getLocation());
+            int ultima = tabela.rowAtPoint(new Point(visivel.x, visivel.y + visivel.height - 1));
+            modelo.definirVisiveis(primeira, ultima < 0 ? modelo.getRowCount() - 1 : ultima);
+        });
+        add(rolagem, BorderLayout.CENTER);
     }
 
+    /**
+     * Recarrega o histórico em segundo plano ({@link CarregadorAssincrono}).
+     * Apenas o total e a primeira página são buscados; o restante vem sob demanda
+     * pelo {@link ReservaTableModel} conforme a rolagem. O texto é roteado para
+     * consultas indexadas por {@link BuscaReservas}; as reservas arquivadas só entram com a
+     * opção "incluir arquivo" marcada. Uma busca nova cancela a consulta anterior ainda em
+     * andamento no banco.
+     * @param filtroTexto Texto digitado na busca (null para listar todas).
+     */
     public void carregarReservas(String filtroTexto) {
-        modelo.setRowCount(0);
-        Connection conn = Main.Conexao.conectar();
-        if(conn == null) return;
+        if (ModoOffline.isAtivo()) {
+            // Sem banco: só as reservas em aberto do instantâneo local
+            carregador.carregar(() -> ModoOffline.historico(filtroTexto), modelo::reiniciar);
+            return;
+        }
+        ReservaDAO.Filtro filtro = BuscaReservas.montarFiltro(filtroTexto, chkArquivo.isSelected());
+        String ponto = filtro.comArquivo() ? "historico.arquivo" : "historico.inicio";
+        carregador.carregar(() -> MetricasConsultas.medir(ponto, () -> ReservaTableModel.consultarInicio(filtro),
+                inicio -> inicio.primeiraPagina().length), modelo::reiniciar, e -> {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + e.getMessage());
+        });
+    }
+
+    /**
+     * Exporta as reservas de um período (padrão: o mês anterior) em segundo plano, com barra de
+     * progresso e opção de cancelar. O formato vem da extensão escolhida (.csv ou .xlsx).
+     */
+    private void exportarReservas() {
+        LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+        JTextField txtDe = new JTextField(DateUtil.formatar(inicioMes.minusMonths(1)));
+        JTextField txtAte = new JTextField(DateUtil.formatar(inicioMes.minusDays(1)));
+        JCheckBox chkComArquivo = new JCheckBox(LanguageManager.get("reserve.search.archive"), true);
+        Object[] campos = {LanguageManager.get("export.from"), txtDe, LanguageManager.get("export.to"), txtAte, chkComArquivo};
+        if (JOptionPane.showConfirmDialog(this, campos, LanguageManager.get("export.title"), JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+
+        LocalDate de, ate;
         try {
-            // SQL com JOIN (Traz dados de Reserva + Cliente + Veiculo)
-            String sql = "SELECT r.id, c.cpf, c.nome, v.marca, v.modelo, v.cor, r.placa, r.data_reserva, r.data_entrega, r.situacao, v.id as vid " +
-                    "FROM tab_reservas r " +
-                    "JOIN tab_clientes c ON r.id_cliente=c.id " +
-                    "JOIN tab_veiculos v ON r.id_veiculo=v.id";
-
-            boolean temFiltro = filtroTexto != null && !filtroTexto.trim().isEmpty();
-            boolean isNumero = temFiltro && filtroTexto.matches("\\d+");
-
-            if (temFiltro) {
-                sql += " WHERE (c.nome LIKE ? OR c.cpf LIKE ? OR v.modelo LIKE ? OR v.marca LIKE ? OR v.cor LIKE ? OR r.placa LIKE ?)";
-                if (isNumero) sql += " OR r.id = ?";
-            }
-            sql += " ORDER BY r.id DESC";
-
-            PreparedStatement pst = conn.prepareStatement(sql);
-            if (temFiltro) {
-                String buscaLike = "%" + filtroTexto + "%";
-                pst.setString(1, buscaLike); pst.setString(2, buscaLike);
-                pst.setString(3, buscaLike); pst.setString(4, buscaLike);
-                pst.setString(5, buscaLike); pst.setString(6, buscaLike);
-                if (isNumero) pst.setInt(7, Integer.parseInt(filtroTexto));
-            }
+            de = DateUtil.lerData(txtDe.getText());
+            ate = DateUtil.lerData(txtAte.getText());
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error.date"), LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        JFileChooser seletor = new JFileChooser();
+        FileNameExtensionFilter csv = new FileNameExtensionFilter("CSV", "csv");
+        seletor.addChoosableFileFilter(csv);
+        seletor.addChoosableFileFilter(new FileNameExtensionFilter("Excel (XLSX)", "xlsx"));
+        seletor.setFileFilter(csv);
+        seletor.setSelectedFile(new File("reservas-" + de + "-" + ate + ".csv"));
+        if (seletor.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File arquivo = seletor.getSelectedFile();
+        String nome = arquivo.getName().toLowerCase(Locale.ROOT);
+        if (!nome.endsWith(".csv") && !nome.endsWith(".xlsx")) {
+            String extensao = seletor.getFileFilter() == csv ? ".csv" : ".xlsx";
+            arquivo = new File(arquivo.getParentFile(), arquivo.getName() + extensao);
+        }
 
-            ResultSet rs = pst.executeQuery();
-
-            while(rs.next()) {
-                // 1. Popula o objeto Reserva com o que é possível (dados da tabela tab_reservas)
-                Reserva r = new Reserva();
-                r.setId(rs.getInt("id"));
-                r.setPlaca(rs.getString("placa"));
-                r.setSituacao(rs.getString("situacao"));
-
-                // Conversão de Datas
-                r.setData_reserva(DateUtil.formatarData(rs.getDate("data_reserva")));
-                r.setData_entrega(DateUtil.formatarData(rs.getDate("data_entrega")));
-
-
-                // 2. Preenche a tabela mesclando Objeto Reserva + Dados do Join (Cliente/Veiculo)
-                modelo.addRow(new Object[]{
-                        r.getId(),                                      // Via Objeto
-                        ValidadorCPF.formatarCPF(rs.getString("cpf")),  // Via SQL (Join)
-                        rs.getString("nome"),                           // Via SQL (Join)
-                        rs.getString("marca") + " / " + rs.getString("modelo"), // Via SQL
-                        rs.getString("cor"),                 // Via SQL
-                        r.getPlaca(),                                   // Via Objeto
-                        r.getData_reserva(),                            // Via Objeto
-                        r.getData_entrega(),                            // Via Objeto
-                        r.getSituacao(),                                // Via Objeto
-                        rs.getInt("vid")                     // Via SQL (Oculto)
+        ExportadorReservas exportador = new ExportadorReservas(arquivo.toPath(), de, ate, chkComArquivo.isSelected());
+        ProgressMonitor monitor = new ProgressMonitor(this, LanguageManager.get("export.title"), arquivo.getName(), 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        // Cancela pelo exportador, sem interromper a thread (que fecharia o arquivo e o socket no meio da escrita)
+        Timer verificarCancelamento = new Timer(250, null);
+        verificarCancelamento.addActionListener(e -> {
+            if (!monitor.isCanceled()) return;
+            verificarCancelamento.stop();
+            CarregadorAssincrono.submeter(exportador::cancelar);
+        });
+        verificarCancelamento.start();
+
+        CarregadorAssincrono.submeter(() -> {
+            try {
+                long total = Math.max(1, exportador.contar());
+                ExportadorReservas.Resultado r = MetricasConsultas.medir("historico.exportar", () -> exportador.exportar(linhas ->
+                        SwingUtilities.invokeLater(() -> monitor.setProgress((int) Math.min(99, linhas * 100 / total)))),
+                        res -> (int) Math.min(Integer.MAX_VALUE, res.linhas()));
+                SwingUtilities.invokeLater(() -> {
+                    verificarCancelamento.stop();
+                    monitor.close();
+                    if (r.cancelada()) {
+                        JOptionPane.showMessageDialog(this, LanguageManager.get("export.cancelled"), LanguageManager.get("export.title"), JOptionPane.INFORMATION_MESSAGE);
+                        return;
+                    }
+                    String resumo = LanguageManager.get("export.rows") + " " + r.linhas() + "\n"
+                            + LanguageManager.get("import.time") + " " + r.duracaoMs() + " ms\n"
+                            + LanguageManager.get("export.file") + " " + r.arquivo();
+                    JOptionPane.showMessageDialog(this, resumo, LanguageManager.get("export.title"), JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    verificarCancelamento.stop();
+                    monitor.close();
+                    JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + ex.getMessage(),
+                            LanguageManager.get("title.error"), JOptionPane.ERROR_MESSAGE);
                 });
             }
-            conn.close();
-        } catch(Exception e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + e.getMessage());
-        }
+        });
+    }
+
+    /**
+     * Devolve a reserva em segundo plano: a transação pode esperar bloqueios de linha e
+     * novas tentativas após deadlock, e a gravação no diário. Um segundo clique na mesma
+     * reserva enquanto isso é ignorado.
+     */
+    private void devolver(int idRes) {
+        if (!devolvendo.add(idRes)) return;
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        // 'Entregue' ou 'Entregue com atrazo' é decidido pelo banco a partir da data de entrega
+        CarregadorAssincrono.gravar(() -> {
+            boolean devolvida = MetricasConsultas.medir("reserva.devolver", () -> new ServicoReserva().devolver(idRes), ok -> ok ? 1 : 0);
+            return !devolvida ? "msg.reserve.already.returned"
+                    : ModoOffline.isAtivo() ? "reserve.success.return.offline" : "reserve.success.return";
+        }, mensagem -> {
+            fimDevolucao(idRes);
+            carregarReservas(null);
+            JOptionPane.showMessageDialog(this, LanguageManager.get(mensagem));
+        }, ex -> {
+            fimDevolucao(idRes);
+            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this, LanguageManager.get("msg.error") + " " + ex.getMessage());
+        });
+    }
+
+    private void fimDevolucao(int idRes) {
+        devolvendo.remove(idRes);
+        if (devolvendo.isEmpty()) setCursor(null);
     }
 
     // --- RENDERIZADOR DO BOTÃO ---
@@ -171,8 +263,8 @@ public class ReservaViewFrame extends JPanel {
             add(btn);
         }
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-            String sit = (String) table.getValueAt(row, 8); // Coluna Situação
-            btn.setVisible("Utilizando".equalsIgnoreCase(sit));
+            String sit = (String) table.getValueAt(row, ReservaTableModel.COL_SITUACAO); // Coluna Situação
+            btn.setVisible(ReservaDAO.emAberto(sit));
             btn.setText(LanguageManager.get("btn.finish"));
             setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
             return this;
@@ -191,30 +283,14 @@ public class ReservaViewFrame extends JPanel {
 
             btn.addActionListener(e -> {
                 int row = tabela.getSelectedRow();
-                String sit = (String) tabela.getValueAt(row, 8);
+                String sit = (String) tabela.getValueAt(row, ReservaTableModel.COL_SITUACAO);
 
-                if(!"Utilizando".equalsIgnoreCase(sit)) return;
+                if(!ReservaDAO.emAberto(sit)) return;
 
-                int idRes = (int) tabela.getValueAt(row, 0);
-                int idVeic = (int) tabela.getValueAt(row, 9); // Coluna oculta vid
+                int idRes = (int) tabela.getValueAt(row, ReservaTableModel.COL_ID);
 
                 if(JOptionPane.showConfirmDialog(null, LanguageManager.get("reserve.dialog.confirm"), LanguageManager.get("reserve.dialog.title"), JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
-                    try {
-                        Connection conn = Main.Conexao.conectar();
-                        conn.setAutoCommit(false);
-
-                        conn.createStatement().execute("UPDATE tab_reservas SET situacao='Entregue' WHERE id="+idRes);
-                        conn.createStatement().execute("UPDATE tab_veiculos SET quantidade = quantidade + 1 WHERE id="+idVeic);
-
-                        conn.commit();
-                        conn.close();
-
-                        carregarReservas(null);
-                        JOptionPane.showMessageDialog(null, LanguageManager.get("reserve.success.return"));
-                    } catch(Exception ex) {
-                        ex.printStackTrace();
-                        JOptionPane.showMessageDialog(null, LanguageManager.get("msg.error") + " " + ex.getMessage());
-                    }
+                    devolver(idRes);
                 }
                 fireEditingStopped();
             });
@@ -222,8 +298,8 @@ public class ReservaViewFrame extends JPanel {
         }
 
         public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-            String sit = (String) table.getValueAt(row, 8);
-            btn.setVisible("Utilizando".equalsIgnoreCase(sit));
+            String sit = (String) table.getValueAt(row, ReservaTableModel.COL_SITUACAO);
+            btn.setVisible(ReservaDAO.emAberto(sit));
             btn.setText(LanguageManager.get("btn.finish"));
             p.setBackground(table.getSelectionBackground());
             return p;
@@ -0,0 +1,194 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Regra de negócio da criação de reservas, segura contra overbooking.
+ * <p>
+ * Antes de inserir a reserva, a linha do veículo é bloqueada ({@code SELECT ... FOR UPDATE}), e a
+ * frota ({@link VeiculoDAO.Travado}) e as reservas em aberto dele são relidas e indexadas por dia
+ * ({@link DisponibilidadeVeiculos#indexar}); o período precisa ter ao menos uma unidade livre em
+ * todos os dias:
+ * <ul>
+ * <li>Se não houver unidade livre (ou o veículo não existir mais), a transação é desfeita e o
+ * resultado é {@link Resultado#ESGOTADO}. Como duas estações reservando o mesmo veículo passam
+ * pelo mesmo bloqueio, a segunda já enxerga a reserva da primeira: o período nunca fica com
+ * mais reservas do que a frota.</li>
+ * <li>O bloqueio da linha do veículo dura só até o INSERT da reserva e o commit.</li>
+ * <li>Reserva e devolução também ajustam o estoque legado ({@code tab_veiculos.quantidade}), que as
+ * versões anteriores do programa ainda usam enquanto as estações são atualizadas.</li>
+ * <li>Esperas por bloqueio são limitadas a {@link #ESPERA_BLOQUEIO_S} segundos (definido uma vez em
+ * cada conexão do pool, ver {@link PoolConexoes#setEsperaPorBloqueio}); deadlock ou
+ * tempo de espera esgotado desfazem a transação e ela é repetida até {@link #TENTATIVAS} vezes,
+ * com espera aleatória crescente entre as tentativas.</li>
+ * </ul>
+ * A devolução ({@link #devolver}) segue o mesmo caminho. Sem conexão com o banco, na aplicação
+ * desktop, reservas e devoluções vão para a fila do {@link ModoOffline} e são gravadas por este
+ * mesmo caminho quando a conexão volta. Reservas e devoluções confirmadas são
+ * registradas no {@link DiarioEventos} da estação. As telas e o {@link ServidorApi} usam
+ * este serviço, então a regra é a mesma no balcão e pela API.
+ * @author Marcos Vinicius
+ */
+public class ServicoReserva {
+    public static final int TENTATIVAS = 3;
+    public static final int ESPERA_BLOQUEIO_S = 2;
+
+    // Códigos de erro do MySQL que indicam conflito passageiro
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    /**
+     * PENDENTE: sem conexão, o pedido foi aceito na fila do {@link ModoOffline} e ainda não tem id.
+     */
+    public enum Resultado { CONFIRMADA, ESGOTADO, PENDENTE }
+
+    /**
+     * Dados de uma nova reserva (tela de Nova Reserva ou {@link ServidorApi}).
+     */
+    public record Pedido(int idCliente, int idVeiculo, String placa, LocalDate retirada, LocalDate devolucao) { }
+
+    /**
+     * @param idReserva Id da reserva criada (0 se {@link Resultado#ESGOTADO} ou {@link Resultado#PENDENTE}).
+     */
+    public record Confirmacao(Resultado resultado, int idReserva) { }
+
+    @FunctionalInterface
+    private interface Transacao<T> {
+        T executar(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Verifica a disponibilidade do veículo no período e cria a reserva em uma única transação.
+     * Em seguida atualiza os caches desta estação ({@link DisponibilidadeVeiculos}, {@link IndicadoresFrota}).
+     * Com o {@link ModoOffline} ativo (ou se a conexão falhar), o pedido vai para a fila local.
+     * @throws SQLException Se o banco falhar (ou o conflito persistir após as tentativas).
+     */
+    public Confirmacao reservar(Pedido p) throws SQLException {
+        if (ModoOffline.isAtivo()) return ModoOffline.reservar(p);
+        try {
+            return reservarNoBanco(p);
+        } catch (SQLException e) {
+            if (!ModoOffline.registrarFalha(e)) throw e;
+            return ModoOffline.reservar(p);
+        }
+    }
+
+    // Também usado pela sincronização do ModoOffline
+    Confirmacao reservarNoBanco(Pedido p) throws SQLException {
+        Integer idReserva = comRepeticao(conn -> {
+            if (!temUnidadeLivre(conn, p)) return null;
+            Reserva r = new Reserva("", "", 0, p.idCliente(), p.idVeiculo(), ReservaDAO.UTILIZANDO, p.placa());
+            int id = new ReservaDAO(conn).inserir(r, p.retirada(), p.devolucao());
+            new VeiculoDAO(conn).retirarUnidade(p.idVeiculo());
+            return id;
+        });
+        if (idReserva == null) {
+            // Quem pediu enxergava uma unidade livre: os caches estão desatualizados
+            CatalogoVeiculos.invalidar();
+            DisponibilidadeVeiculos.invalidar();
+            return new Confirmacao(Resultado.ESGOTADO, 0);
+        }
+        DisponibilidadeVeiculos.registrarReserva(p.idVeiculo(), p.retirada(), p.devolucao());
+        IndicadoresFrota.registrarReserva(p.idVeiculo(), p.retirada());
+        DiarioEventos.registrar(DiarioEventos.Tipo.RESERVA_CRIADA, DiarioEventos.dados("id", idReserva, "cliente", p.idCliente(),
+                "veiculo", p.idVeiculo(), "placa", p.placa(), "retirada", p.retirada().toString(), "devolucao", p.devolucao().toString()));
+        return new Confirmacao(Resultado.CONFIRMADA, idReserva);
+    }
+
+    /**
+     * Finaliza a reserva ('Entregue' ou 'Entregue com atrazo') com a linha bloqueada, para que
+     * duas estações não devolvam a mesma reserva.
+     * Com o {@link ModoOffline} ativo (ou se a conexão falhar), a devolução vai para a fila local.
+     * @return false se a reserva não existe ou já havia sido devolvida.
+     */
+    public boolean devolver(int idReserva) throws SQLException {
+        if (ModoOffline.isAtivo()) return ModoOffline.devolver(idReserva);
+        try {
+            return devolverNoBanco(idReserva);
+        } catch (SQLException e) {
+            if (!ModoOffline.registrarFalha(e)) throw e;
+            return ModoOffline.devolver(idReserva);
+        }
+    }
+
+    // Também usado pela sincronização do ModoOffline
+    boolean devolverNoBanco(int idReserva) throws SQLException {
+        ReservaDAO.Ocupacao devolvida = comRepeticao(conn -> {
+            ReservaDAO dao = new ReservaDAO(conn);
+            ReservaDAO.Ocupacao o = dao.travarAberta(idReserva);
+            if (o == null || dao.finalizar(idReserva, LocalDate.now()) == 0) return null;
+            new VeiculoDAO(conn).devolverUnidade(o.idVeiculo());
+            return o;
+        });
+        if (devolvida == null) return false;
+        // A unidade volta a ficar livre a partir de hoje (e não só na data de entrega prevista)
+        DisponibilidadeVeiculos.invalidar();
+        IndicadoresFrota.registrarDevolucao(devolvida);
+        DiarioEventos.registrar(DiarioEventos.Tipo.RESERVA_DEVOLVIDA, DiarioEventos.dados("id", idReserva, "veiculo", devolvida.idVeiculo(),
+                "retirada", devolvida.retirada().toString(), "entrega", devolvida.entrega().toString(),
+                "devolvidaEm", LocalDate.now().toString(), "atrasada", devolvida.atrasada() || devolvida.entrega().isBefore(LocalDate.now())));
+        return true;
+    }
+
+    // Executa a transação (null = nada a gravar, desfaz); conflitos passageiros repetem
+    private <T> T comRepeticao(Transacao<T> transacao) throws SQLException {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return executar(transacao);
+            } catch (SQLException e) {
+                if (!conflitoPassageiro(e) || tentativa >= TENTATIVAS) throw e;
+                aguardarAntesDeRepetir(tentativa);
+            }
+        }
+    }
+
+    private static <T> T executar(Transacao<T> transacao) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"), ModoOffline.SEM_CONEXAO);
+            try {
+                conn.setAutoCommit(false);
+                T resultado = transacao.executar(conn);
+                if (resultado == null) conn.rollback();
+                else conn.commit();
+                return resultado;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Chamado com a transação aberta: o bloqueio da frota serializa as reservas do mesmo veículo
+    private static boolean temUnidadeLivre(Connection conn, Pedido p) throws SQLException {
+        VeiculoDAO.Travado veiculo = new VeiculoDAO(conn).travar(p.idVeiculo());
+        if (veiculo == null) return false;
+        List<ReservaDAO.Ocupacao> ocupacoes = new ReservaDAO(conn).listarOcupacoes(p.idVeiculo());
+        int frota = veiculo.frota(ocupacoes.size());
+        if (frota <= 0) return false;
+        DisponibilidadeVeiculos.Indice indice = DisponibilidadeVeiculos.indexar(ocupacoes, LocalDate.now());
+        return DisponibilidadeVeiculos.livres(indice, p.idVeiculo(), frota, p.retirada(), p.devolucao()) > 0;
+    }
+
+    private static boolean conflitoPassageiro(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException s) {
+                if (s.getErrorCode() == ER_LOCK_DEADLOCK || s.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) return true;
+                if ("40001".equals(s.getSQLState())) return true; // Serialization failure / deadlock
+            }
+        }
+        return false;
+    }
+
+    private static void aguardarAntesDeRepetir(int tentativa) throws SQLException {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(20, 60) * tentativa);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(ie);
+        }
+    }
+}
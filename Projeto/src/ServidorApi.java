@@ -0,0 +1,376 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor HTTP/JSON sem interface gráfica, para o site e os tablets das filiais reservarem
+ * sem o cliente desktop.
+ * <p>
+ * Rotas (datas em ISO, {@code yyyy-MM-dd}):
+ * <ul>
+ * <li>{@code GET /api/veiculos[?retirada=&devolucao=]}: catálogo; com o período, apenas os veículos
+ * com unidade livre ({@link DisponibilidadeVeiculos}).</li>
+ * <li>{@code GET /api/clientes/{cpf}}: cliente pelo CPF.</li>
+ * <li>{@code POST /api/reservas}: {@code {"cpf", "idVeiculo", "placa", "retirada", "devolucao"}}.
+ * 201 se confirmada, 409 se não houver unidade livre no período.</li>
+ * <li>{@code POST /api/reservas/{id}/devolucao}: 200 se devolvida, 409 se já havia sido.</li>
+ * </ul>
+ * Reserva e devolução passam pelo {@link ServicoReserva}, o mesmo das telas.
+ * <p>
+ * Proteções e métricas:
+ * <ul>
+ * <li>Cada requisição roda em uma thread virtual; no máximo {@code -Dlocamais.api.concorrencia}
+ * (padrão 20) são atendidas ao mesmo tempo. Acima disso a requisição espera até
+ * {@link #ESPERA_VAGA_MS} ms por uma vaga e depois recebe 503 com {@code Retry-After}, em vez de
+ * enfileirar sem limite na frente do pool de conexões.</li>
+ * <li>Corpos acima de {@link #LIMITE_CORPO} bytes recebem 413.</li>
+ * <li>Toda requisição exige {@code Authorization: Bearer <token>}, com o token de {@code -Dlocamais.api.token}.</li>
+ * <li>A latência de cada rota é medida pelo {@link MetricasConsultas} ({@code api.veiculos},
+ * {@code api.reservar}, ...); a ocupação e as rejeições ficam no JMX em {@code locamais:type=ServidorApi}.</li>
+ * </ul>
+ * Uso: {@code java -Dlocamais.api.token=<segredo> -cp ... ServidorApi} (porta em {@code -Dlocamais.api.porta}, padrão 8080).
+ * @author Marcos Vinicius
+ */
+public class ServidorApi {
+
+    /**
+     * Visão JMX da ocupação do servidor.
+     */
+    public interface ServidorApiMXBean {
+        int getEmAndamento();
+        int getLimite();
+        long getAtendidas();
+        long getRejeitadas();
+    }
+
+    public static final long ESPERA_VAGA_MS = 200;
+    public static final int LIMITE_CORPO = 16 * 1024;
+    private static final int BACKLOG = 128;
+
+    private final HttpServer servidor;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore vagas;
+    private final int limite;
+    private final byte[] token;
+    private final LongAdder atendidas = new LongAdder();
+    private final LongAdder rejeitadas = new LongAdder();
+
+    /**
+     * Resposta de uma rota (corpo serializado com {@link Json}).
+     */
+    private record Resposta(int status, Object corpo, Map<String, String> cabecalhos) {
+        Resposta(int status, Object corpo) {
+            this(status, corpo, Map.of());
+        }
+
+        /**
+         * @param chaveMensagem Chave da mensagem traduzida (null = só o código).
+         */
+        static Resposta erro(int status, String codigo, String chaveMensagem) {
+            Map<String, Object> corpo = new LinkedHashMap<>();
+            corpo.put("erro", codigo);
+            if (chaveMensagem != null) corpo.put("mensagem", LanguageManager.get(chaveMensagem));
+            return new Resposta(status, corpo);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Rota {
+        Resposta tratar(HttpExchange troca, String caminho) throws Exception;
+    }
+
+    /**
+     * @param concorrencia Requisições atendidas ao mesmo tempo.
+     * @param token Token exigido no cabeçalho Authorization.
+     */
+    public ServidorApi(int porta, int concorrencia, String token) throws IOException {
+        if (token == null || token.isBlank()) throw new IllegalArgumentException("Token da API não configurado (-Dlocamais.api.token)");
+        this.limite = concorrencia;
+        this.vagas = new Semaphore(concorrencia);
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+
+        servidor = HttpServer.create(new InetSocketAddress(porta), BACKLOG);
+        servidor.setExecutor(executor);
+        servidor.createContext("/api/veiculos", rota("api.veiculos", this::veiculos));
+        servidor.createContext("/api/clientes/", rota("api.clientes", this::cliente));
+        servidor.createContext("/api/reservas", rota("api.reservas", this::reservas));
+    }
+
+    public void iniciar() {
+        servidor.start();
+        registrarJmx();
+    }
+
+    /**
+     * Para de aceitar conexões e aguarda até 5 s as requisições em andamento.
+     */
+    public void parar() {
+        servidor.stop(5);
+        executor.shutdown();
+    }
+
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        ServidorApi api;
+        try {
+            api = new ServidorApi(Integer.getInteger("locamais.api.porta", 8080),
+                    Integer.getInteger("locamais.api.concorrencia", 20), System.getProperty("locamais.api.token"));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        // Antes de aceitar requisições: sem telas, não há pré-aquecimento
+        try (Connection conn = Main.Conexao.getPool().abrirDedicada()) {
+            MigracoesBanco.aplicar(conn);
+        } catch (SQLException e) {
+            System.err.println("Migrações: " + e.getMessage());
+        }
+        api.iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(api::parar, "api-parada"));
+        // Sem tela de login: o servidor também mantém os atrasos em dia
+        VarreduraAtrasos.iniciar();
+        System.out.println("API LocaMais ouvindo na porta " + api.getPorta());
+    }
+
+    // --- Rotas ---
+
+    private Resposta veiculos(HttpExchange troca, String caminho) throws Exception {
+        if (!caminho.equals("/api/veiculos")) return Resposta.erro(404, "rota_inexistente", null);
+        if (!troca.getRequestMethod().equals("GET")) return metodoNaoPermitido("GET");
+
+        Map<String, String> parametros = parametros(troca.getRequestURI());
+        String retirada = parametros.get("retirada"), devolucao = parametros.get("devolucao");
+        List<Map<String, Object>> lista = new ArrayList<>();
+        if (retirada == null && devolucao == null) {
+            for (Veiculo v : CatalogoVeiculos.obter()) lista.add(veiculo(v, null));
+        } else {
+            LocalDate inicio = data(retirada), fim = data(devolucao);
+            if (inicio == null || fim == null) return Resposta.erro(400, "data_invalida", null);
+            if (fim.isBefore(inicio)) return Resposta.erro(400, "periodo_invalido", "msg.error.date.range");
+            for (DisponibilidadeVeiculos.Livre l : DisponibilidadeVeiculos.listar(inicio, fim)) lista.add(veiculo(l.veiculo(), l.livres()));
+        }
+        return new Resposta(200, lista);
+    }
+
+    private Resposta cliente(HttpExchange troca, String caminho) throws Exception {
+        if (!troca.getRequestMethod().equals("GET")) return metodoNaoPermitido("GET");
+        long chave = ValidadorCPF.paraChave(caminho.substring("/api/clientes/".length()));
+        if (!ValidadorCPF.isValida(chave)) return Resposta.erro(400, "cpf_invalido", "msg.error.cpf");
+
+        Cliente c = buscarCliente(chave);
+        if (c == null) return Resposta.erro(404, "cliente_nao_encontrado", "reserve.client.notfound");
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("id", c.getId());
+        corpo.put("nome", c.getNome());
+        corpo.put("cpf", c.getCpf());
+        return new Resposta(200, corpo);
+    }
+
+    private Resposta reservas(HttpExchange troca, String caminho) throws Exception {
+        if (caminho.equals("/api/reservas")) {
+            return troca.getRequestMethod().equals("POST") ? reservar(troca) : metodoNaoPermitido("POST");
+        }
+        // /api/reservas/{id}/devolucao
+        String[] partes = caminho.split("/");
+        if (partes.length != 5 || !partes[4].equals("devolucao") || !partes[3].matches("\\d{1,9}")) {
+            return Resposta.erro(404, "rota_inexistente", null);
+        }
+        if (!troca.getRequestMethod().equals("POST")) return metodoNaoPermitido("POST");
+
+        int id = Integer.parseInt(partes[3]);
+        if (!MetricasConsultas.medir("api.devolver", () -> new ServicoReserva().devolver(id), ok -> ok ? 1 : 0)) {
+            return Resposta.erro(409, "ja_devolvida", "msg.reserve.already.returned");
+        }
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("id", id);
+        corpo.put("devolvida", true);
+        return new Resposta(200, corpo);
+    }
+
+    private Resposta reservar(HttpExchange troca) throws Exception {
+        String corpo = lerCorpo(troca);
+        if (corpo == null) return Resposta.erro(413, "corpo_muito_grande", null);
+        Map<String, Object> dados = Json.lerObjeto(corpo);
+
+        long chave = ValidadorCPF.paraChave(texto(dados, "cpf"));
+        Object idVeiculo = dados.get("idVeiculo");
+        String placa = texto(dados, "placa");
+        if (!(idVeiculo instanceof Long) || placa == null || placa.isBlank()) return Resposta.erro(400, "campos_obrigatorios", "msg.error.empty");
+        if (!ValidadorCPF.isValida(chave)) return Resposta.erro(400, "cpf_invalido", "msg.error.cpf");
+        LocalDate retirada = data(texto(dados, "retirada")), devolucao = data(texto(dados, "devolucao"));
+        if (retirada == null || devolucao == null) return Resposta.erro(400, "data_invalida", null);
+        if (devolucao.isBefore(retirada)) return Resposta.erro(400, "periodo_invalido", "msg.error.date.range");
+
+        Cliente c = buscarCliente(chave);
+        if (c == null) return Resposta.erro(404, "cliente_nao_encontrado", "reserve.client.notfound");
+
+        ServicoReserva.Pedido pedido = new ServicoReserva.Pedido(c.getId(), ((Long) idVeiculo).intValue(),
+                placa.trim().toUpperCase(), retirada, devolucao);
+        ServicoReserva.Confirmacao confirmacao = MetricasConsultas.medir("api.reservar", () -> new ServicoReserva().reservar(pedido),
+                r -> r.resultado() == ServicoReserva.Resultado.CONFIRMADA ? 1 : 0);
+        if (confirmacao.resultado() == ServicoReserva.Resultado.ESGOTADO) {
+            return Resposta.erro(409, "esgotado", "msg.reserve.soldout");
+        }
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("id", confirmacao.idReserva());
+        resposta.put("situacao", ReservaDAO.UTILIZANDO);
+        return new Resposta(201, resposta, Map.of("Location", "/api/reservas/" + confirmacao.idReserva()));
+    }
+
+    private static Cliente buscarCliente(long chaveCpf) throws SQLException {
+        try (Connection conn = Main.Conexao.conectar()) {
+            if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+            return new ClienteDAO(conn).buscarPorCpf(ValidadorCPF.paraTexto(chaveCpf));
+        }
+    }
+
+    private static Map<String, Object> veiculo(Veiculo v, Integer livres) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("id", v.getId());
+        m.put("marca", v.getMarca());
+        m.put("modelo", v.getModelo());
+        m.put("cor", v.getCor());
+        m.put("ano", v.getAno());
+        m.put("frota", v.getQuantidade());
+        if (livres != null) m.put("livres", livres);
+        return m;
+    }
+
+    // --- Infraestrutura ---
+
+    // Autenticação, limite de concorrência, medição e tratamento de erros comuns a todas as rotas
+    private HttpHandler rota(String ponto, Rota rota) {
+        return troca -> {
+            try (troca) {
+                if (!autorizado(troca)) {
+                    responder(troca, new Resposta(401, Map.of("erro", "nao_autorizado"), Map.of("WWW-Authenticate", "Bearer")));
+                    return;
+                }
+                if (!vagas.tryAcquire(ESPERA_VAGA_MS, TimeUnit.MILLISECONDS)) {
+                    rejeitadas.increment();
+                    responder(troca, new Resposta(503, Map.of("erro", "sobrecarregado"), Map.of("Retry-After", "1")));
+                    return;
+                }
+                try {
+                    String caminho = troca.getRequestURI().getPath();
+                    responder(troca, MetricasConsultas.medir(ponto, () -> {
+                        try {
+                            return rota.tratar(troca, caminho);
+                        } catch (IllegalArgumentException e) {
+                            // Corpo ou parâmetros inválidos: erro de quem chamou, não do servidor
+                            Map<String, Object> corpo = new LinkedHashMap<>();
+                            corpo.put("erro", "requisicao_invalida");
+                            corpo.put("mensagem", e.getMessage());
+                            return new Resposta(400, corpo);
+                        }
+                    }, r -> 0));
+                    atendidas.increment();
+                } catch (Exception e) {
+                    System.err.println("API: falha em " + troca.getRequestMethod() + " " + troca.getRequestURI() + ": " + e.getMessage());
+                    responder(troca, Resposta.erro(500, "erro_interno", "msg.error.db"));
+                } finally {
+                    vagas.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private boolean autorizado(HttpExchange troca) {
+        String cabecalho = troca.getRequestHeaders().getFirst("Authorization");
+        if (cabecalho == null || !cabecalho.startsWith("Bearer ")) return false;
+        // Comparação em tempo constante
+        return MessageDigest.isEqual(token, cabecalho.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void responder(HttpExchange troca, Resposta r) throws IOException {
+        byte[] corpo = Json.escrever(r.corpo()).getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        r.cabecalhos().forEach(troca.getResponseHeaders()::set);
+        troca.sendResponseHeaders(r.status(), corpo.length);
+        troca.getResponseBody().write(corpo);
+    }
+
+    // null se o corpo passar de LIMITE_CORPO
+    private static String lerCorpo(HttpExchange troca) throws IOException {
+        InputStream in = troca.getRequestBody();
+        byte[] corpo = in.readNBytes(LIMITE_CORPO + 1);
+        if (corpo.length > LIMITE_CORPO) return null;
+        return new String(corpo, StandardCharsets.UTF_8);
+    }
+
+    private static Resposta metodoNaoPermitido(String permitido) {
+        Resposta r = Resposta.erro(405, "metodo_nao_permitido", null);
+        return new Resposta(r.status(), r.corpo(), Map.of("Allow", permitido));
+    }
+
+    private static Map<String, String> parametros(URI uri) {
+        Map<String, String> mapa = new HashMap<>();
+        String consulta = uri.getRawQuery();
+        if (consulta == null) return mapa;
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual <= 0) continue;
+            mapa.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                    URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+        }
+        return mapa;
+    }
+
+    private static String texto(Map<String, Object> dados, String campo) {
+        Object valor = dados.get(campo);
+        return valor instanceof String s ? s : null;
+    }
+
+    // null se ausente ou inválida
+    private static LocalDate data(String iso) {
+        if (iso == null) return null;
+        try { return LocalDate.parse(iso.trim()); }
+        catch (DateTimeParseException e) { return null; }
+    }
+
+    private void registrarJmx() {
+        ServidorApiMXBean visao = new ServidorApiMXBean() {
+            @Override public int getEmAndamento() { return limite - vagas.availablePermits(); }
+            @Override public int getLimite() { return limite; }
+            @Override public long getAtendidas() { return atendidas.sum(); }
+            @Override public long getRejeitadas() { return rejeitadas.sum(); }
+        };
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(visao, new ObjectName("locamais:type=ServidorApi"));
+        } catch (JMException e) {
+            System.err.println("API: não foi possível registrar no JMX: " + e.getMessage());
+        }
+    }
+}
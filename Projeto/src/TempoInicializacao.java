@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Linha do tempo da inicialização da aplicação (partida a frio nas estações do balcão).
+ * <p>
+ * Cada {@link Etapa} guarda os milissegundos decorridos desde o início do processo da JVM
+ * na primeira vez em que é marcada. Ao marcar a {@link Etapa#PRIMEIRA_CONSULTA}, o relatório
+ * é impresso no console e, se a propriedade {@code -Dlocamais.inicializacao.csv=<arquivo>}
+ * estiver definida, uma linha é acrescentada ao CSV para acompanhar a evolução entre versões
+ * e máquinas.
+ * @author Marcos Vinicius
+ */
+public class TempoInicializacao {
+
+    public enum Etapa {
+        MAIN("main()"),
+        JANELA_VISIVEL("janela visível"),
+        PRIMEIRA_PINTURA("primeira pintura"),
+        POOL_AQUECIDO("pool aquecido"),
+        TELAS_PREPARADAS("telas pré-carregadas"),
+        PRIMEIRA_CONSULTA("primeira consulta (login)");
+
+        private final String descricao;
+
+        Etapa(String descricao) {
+            this.descricao = descricao;
+        }
+    }
+
+    // Registrado pela própria JVM (o início do processo no Linux só tem precisão de segundos)
+    private static final long INICIO_JVM_MS = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    // 0 = etapa ainda não alcançada
+    private static final AtomicLongArray MARCOS = new AtomicLongArray(Etapa.values().length);
+
+    /**
+     * Registra a etapa (apenas a primeira marcação conta).
+     * @return true se esta foi a primeira marcação da etapa.
+     */
+    public static boolean marcar(Etapa etapa) {
+        if (MARCOS.get(etapa.ordinal()) != 0) return false;
+        long decorrido = Math.max(1, System.currentTimeMillis() - INICIO_JVM_MS);
+        if (!MARCOS.compareAndSet(etapa.ordinal(), 0, decorrido)) return false;
+        // Fora da thread de quem marcou (EDT): o nome da estação pode depender de DNS
+        if (etapa == Etapa.PRIMEIRA_CONSULTA) Thread.startVirtualThread(TempoInicializacao::publicar);
+        return true;
+    }
+
+    /**
+     * Milissegundos desde o início da JVM até a etapa, ou -1 se ainda não alcançada.
+     */
+    public static long getMs(Etapa etapa) {
+        long ms = MARCOS.get(etapa.ordinal());
+        return ms == 0 ? -1 : ms;
+    }
+
+    /**
+     * Relatório legível da linha do tempo.
+     */
+    public static String relatorio() {
+        StringBuilder sb = new StringBuilder("Inicialização (ms desde o início da JVM):");
+        for (Etapa e : Etapa.values()) {
+            long ms = getMs(e);
+            sb.append(String.format("%n  %-28s %8s", e.descricao, ms < 0 ? "-" : String.valueOf(ms)));
+        }
+        return sb.toString();
+    }
+
+    private static void publicar() {
+        System.out.println(relatorio());
+
+        String arquivo = System.getProperty("locamais.inicializacao.csv");
+        if (arquivo == null || arquivo.isBlank()) return;
+        Path caminho = Path.of(arquivo);
+        StringBuilder linha = new StringBuilder();
+        try {
+            if (!Files.exists(caminho)) {
+                linha.append("data;estacao");
+                for (Etapa e : Etapa.values()) linha.append(';').append(e.name().toLowerCase());
+                linha.append(System.lineSeparator());
+            }
+            linha.append(LocalDateTime.now().withNano(0)).append(';').append(InetAddress.getLocalHost().getHostName());
+            for (Etapa e : Etapa.values()) linha.append(';').append(getMs(e));
+            linha.append(System.lineSeparator());
+            Files.writeString(caminho, linha, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Não foi possível gravar o tempo de inicialização: " + e.getMessage());
+        }
+    }
+}
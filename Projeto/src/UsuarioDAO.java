@@ -0,0 +1,36 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Acesso a dados da tabela tab_usuarios (login).
+ * @author Marcos Vinicius
+ */
+public class UsuarioDAO {
+    static final String SQL_AUTENTICAR = "SELECT id FROM tab_usuarios WHERE email=? AND senha=?";
+
+    private final Connection conn;
+
+    public UsuarioDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * @return true se existir usuário com o email e senha informados.
+     */
+    public boolean autenticar(String email, String senha) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_AUTENTICAR)) {
+            pst.setString(1, email);
+            pst.setString(2, senha);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    static List<String> sqlFixos() {
+        return List.of(SQL_AUTENTICAR);
+    }
+}
@@ -3,32 +3,91 @@
  * <p>
  * Implementa o algoritmo oficial do Ministério da Fazenda para verificação
  * dos dígitos verificadores.
+ * <p>
+ * O CPF pode ser representado como uma <strong>chave numérica</strong> ({@code long} com os 11 dígitos,
+ * ex: 529.982.247-25 → 52998224725L). A análise percorre o texto uma única vez, ignorando a pontuação,
+ * sem criar Strings intermediárias; validar e formatar a partir da chave também não aloca
+ * (exceto a String final do {@link #formatar(long)}). As versões em lote ({@link #paraChaves},
+ * {@link #formatarTodos}) servem à importação e ao preenchimento das tabelas.
  * @author Marcos Vinicius
  */
 public class ValidadorCPF {
 
+    /**
+     * Valor devolvido por {@link #paraChave} quando o texto não tem exatamente 11 dígitos.
+     */
+    public static final long CHAVE_INVALIDA = -1L;
+
+    private static final long MAIOR_CHAVE = 99_999_999_999L;
+    private static final long REPETIDOS = 11_111_111_111L; // 000..., 111..., 999... são múltiplos deste valor
+    private static final int TAMANHO_FORMATADO = 14;      // XXX.XXX.XXX-XX
+
     /**
      * Verifica se um CPF é válido.
      * @param cpf A string contendo o CPF (com ou sem pontuação).
      * @return true se o CPF for válido, false caso contrário.
      */
     public static boolean isCPF(String cpf) {
-        cpf = cpf.replaceAll("[^0-9]", "");
-        if (cpf.length() != 11 || cpf.matches("(\\d)\\1{10}")) return false;
+        return isValida(paraChave(cpf));
+    }
 
-        try {
-            int sm = 0, peso = 10;
-            for (int i = 0; i < 9; i++) { sm += (cpf.charAt(i) - 48) * peso--; }
-            int r = 11 - (sm % 11);
-            char dig10 = (r == 10 || r == 11) ? '0' : (char) (r + 48);
+    /**
+     * Converte o texto (com ou sem pontuação) para a chave numérica do CPF.
+     * Caracteres que não são dígitos são ignorados, como no {@link #isCPF(String)}.
+     * @return A chave, ou {@link #CHAVE_INVALIDA} se não houver exatamente 11 dígitos.
+     */
+    public static long paraChave(CharSequence cpf) {
+        if (cpf == null) return CHAVE_INVALIDA;
+        long chave = 0;
+        int digitos = 0;
+        for (int i = 0, n = cpf.length(); i < n; i++) {
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') continue;
+            if (++digitos > 11) return CHAVE_INVALIDA;
+            chave = chave * 10 + (c - '0');
+        }
+        return digitos == 11 ? chave : CHAVE_INVALIDA;
+    }
 
-            sm = 0; peso = 11;
-            for (int i = 0; i < 10; i++) { sm += (cpf.charAt(i) - 48) * peso--; }
-            r = 11 - (sm % 11);
-            char dig11 = (r == 10 || r == 11) ? '0' : (char) (r + 48);
+    /**
+     * Mesmo que {@link #paraChave(CharSequence)}, sobre um trecho de um buffer de caracteres.
+     * @param fim Posição final (exclusiva).
+     */
+    public static long paraChave(char[] buffer, int inicio, int fim) {
+        long chave = 0;
+        int digitos = 0;
+        for (int i = inicio; i < fim; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') continue;
+            if (++digitos > 11) return CHAVE_INVALIDA;
+            chave = chave * 10 + (c - '0');
+        }
+        return digitos == 11 ? chave : CHAVE_INVALIDA;
+    }
+
+    /**
+     * Verifica os dígitos verificadores de uma chave numérica.
+     */
+    public static boolean isValida(long chave) {
+        if (chave < 0 || chave > MAIOR_CHAVE || chave % REPETIDOS == 0) return false;
+
+        // Os 9 primeiros dígitos, do menos para o mais significativo: pesos 2..10 e 3..11
+        long base = chave / 100;
+        int soma1 = 0, soma2 = 0;
+        for (int peso = 2; peso <= 10; peso++) {
+            int d = (int) (base % 10);
+            soma1 += d * peso;
+            soma2 += d * (peso + 1);
+            base /= 10;
+        }
+        int dig10 = digitoVerificador(soma1);
+        int dig11 = digitoVerificador(soma2 + dig10 * 2);
+        return chave % 100 == dig10 * 10 + dig11;
+    }
 
-            return (dig10 == cpf.charAt(9)) && (dig11 == cpf.charAt(10));
-        } catch (Exception e) { return false; }
+    private static int digitoVerificador(int soma) {
+        int r = 11 - (soma % 11);
+        return r >= 10 ? 0 : r;
     }
 
     /**
@@ -38,16 +97,89 @@ public class ValidadorCPF {
      */
     public static String formatarCPF(String cpf) {
         if (cpf == null) return "";
-
-        // Remove tudo que não é número para garantir
-        String limpo = cpf.replaceAll("[^0-9]", "");
+        if (jaFormatado(cpf)) return cpf;
 
         // Se não tiver 11 dígitos, retorna como está (evita erro)
-        if (limpo.length() != 11) {
-            return cpf;
-        }
+        long chave = paraChave(cpf);
+        if (chave == CHAVE_INVALIDA) return cpf;
 
         // Aplica a máscara XXX.XXX.XXX-XX
-        return limpo.replaceAll("(\\d{3})(\\d{3})(\\d{3})(\\d{2})", "$1.$2.$3-$4");
+        return formatar(chave);
+    }
+
+    /**
+     * Formata a chave numérica no padrão XXX.XXX.XXX-XX.
+     */
+    public static String formatar(long chave) {
+        char[] destino = new char[TAMANHO_FORMATADO];
+        formatar(chave, destino, 0);
+        return new String(destino);
+    }
+
+    /**
+     * Escreve a chave formatada (14 caracteres) no buffer, a partir de {@code posicao}.
+     */
+    public static void formatar(long chave, char[] destino, int posicao) {
+        // Preenche de trás para frente, pulando as posições da pontuação
+        for (int i = TAMANHO_FORMATADO - 1; i >= 0; i--) {
+            if (i == 11) { destino[posicao + i] = '-'; continue; }
+            if (i == 3 || i == 7) { destino[posicao + i] = '.'; continue; }
+            destino[posicao + i] = (char) ('0' + chave % 10);
+            chave /= 10;
+        }
+    }
+
+    /**
+     * Os 11 dígitos da chave, com zeros à esquerda (formato gravado em tab_clientes.cpf).
+     */
+    public static String paraTexto(long chave) {
+        char[] destino = new char[11];
+        for (int i = 10; i >= 0; i--) {
+            destino[i] = (char) ('0' + chave % 10);
+            chave /= 10;
+        }
+        return new String(destino);
+    }
+
+    /**
+     * Converte e valida vários CPFs de uma vez (importação).
+     * @return Chaves na mesma ordem; {@link #CHAVE_INVALIDA} para os inválidos.
+     */
+    public static long[] paraChaves(CharSequence[] cpfs) {
+        long[] chaves = new long[cpfs.length];
+        for (int i = 0; i < cpfs.length; i++) {
+            long chave = paraChave(cpfs[i]);
+            chaves[i] = isValida(chave) ? chave : CHAVE_INVALIDA;
+        }
+        return chaves;
+    }
+
+    /**
+     * Formata vários CPFs de uma vez (preenchimento de tabelas), com as mesmas regras do
+     * {@link #formatarCPF(String)}. Usa um único buffer para todas as linhas.
+     */
+    public static String[] formatarTodos(String[] cpfs) {
+        String[] formatados = new String[cpfs.length];
+        char[] buffer = new char[TAMANHO_FORMATADO];
+        for (int i = 0; i < cpfs.length; i++) {
+            String cpf = cpfs[i];
+            if (cpf == null) { formatados[i] = ""; continue; }
+            if (jaFormatado(cpf)) { formatados[i] = cpf; continue; }
+            long chave = paraChave(cpf);
+            if (chave == CHAVE_INVALIDA) { formatados[i] = cpf; continue; }
+            formatar(chave, buffer, 0);
+            formatados[i] = new String(buffer);
+        }
+        return formatados;
+    }
+
+    private static boolean jaFormatado(String cpf) {
+        if (cpf.length() != TAMANHO_FORMATADO) return false;
+        for (int i = 0; i < TAMANHO_FORMATADO; i++) {
+            char c = cpf.charAt(i);
+            boolean ok = (i == 3 || i == 7) ? c == '.' : i == 11 ? c == '-' : (c >= '0' && c <= '9');
+            if (!ok) return false;
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
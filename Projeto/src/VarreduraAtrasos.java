@@ -0,0 +1,60 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tarefa em segundo plano que marca como 'Em atrazo' as reservas em uso cuja data de entrega já passou.
+ * <p>
+ * Cada execução é um único UPDATE por conjunto ({@link ReservaDAO#marcarAtrasadas}), resolvido pelo
+ * índice {@code (situacao, data_entrega)}: apenas as linhas 'Utilizando' vencidas são tocadas, sem
+ * percorrer o histórico linha a linha na aplicação. O UPDATE é idempotente, então várias estações
+ * podem executá-lo ao mesmo tempo sem efeito colateral.
+ * <p>
+ * Roda logo após o primeiro login e depois a cada {@code -Dlocamais.atrasos.intervalo} minutos (padrão 15).
+ * @author Marcos Vinicius
+ */
+public class VarreduraAtrasos {
+    private static final long INTERVALO_MIN = Long.getLong("locamais.atrasos.intervalo", 15);
+
+    private static final AtomicBoolean iniciada = new AtomicBoolean();
+
+    /**
+     * Agenda a varredura (chamadas seguintes não têm efeito).
+     */
+    public static void iniciar() {
+        if (INTERVALO_MIN <= 0 || !iniciada.compareAndSet(false, true)) return;
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "varredura-atrasos");
+            t.setDaemon(true);
+            return t;
+        });
+        agendador.scheduleWithFixedDelay(VarreduraAtrasos::executarAgendada, 0, INTERVALO_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Executa uma varredura agora.
+     * @return Quantidade de reservas que passaram para 'Em atrazo'.
+     */
+    public static int executar() throws Exception {
+        return MetricasConsultas.medir("atrasos.varrer", () -> {
+            try (Connection conn = Main.Conexao.conectar()) {
+                if (conn == null) throw new SQLException(LanguageManager.get("msg.error.db"));
+                return new ReservaDAO(conn).marcarAtrasadas(LocalDate.now());
+            }
+        }, Integer::intValue);
+    }
+
+    // Uma falha (ex: banco fora do ar) não pode cancelar as próximas execuções
+    private static void executarAgendada() {
+        try {
+            int marcadas = executar();
+            if (marcadas > 0) System.out.println("Varredura de atrasos: " + marcadas + " reserva(s) marcada(s) como 'Em atrazo'");
+        } catch (Exception e) {
+            System.err.println("Varredura de atrasos falhou: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acesso a dados da tabela tab_veiculos.
+ * <p>
+ * Todas as variantes de filtro usadas pelo Dashboard são strings SQL fixas, para que
+ * cada formato seja preparado uma única vez por conexão ({@link CacheStatements}).
+ * O DAO não abre nem fecha a conexão: quem chama controla a transação.
+ * <p>
+ * {@code quantidade} é o estoque restante (frota menos as reservas em aberto), como as versões
+ * anteriores do programa o leem e gravam; reservas e devoluções continuam a ajustá-lo
+ * ({@link #retirarUnidade}, {@link #devolverUnidade}). A frota fica na coluna {@code frota}, criada
+ * pela migração V005 ({@link MigracoesBanco}). Até a migração ser aplicada, e para veículos
+ * cadastrados por versões anteriores, a frota é o estoque mais as reservas em aberto.
+ * @author Marcos Vinicius
+ */
+public class VeiculoDAO {
+
+    /**
+     * Filtros da tela de veículos, na mesma ordem do combo do Dashboard.
+     */
+    public enum Filtro { GERAL, MARCA, MODELO, ID }
+
+    // Versão da migração que cria tab_veiculos.frota
+    static final int MIGRACAO_FROTA = 5;
+
+    private static final String EM_ABERTO = "(SELECT COUNT(*) FROM tab_reservas r WHERE r.id_veiculo = tab_veiculos.id " +
+            "AND r.situacao IN ('" + ReservaDAO.UTILIZANDO + "', '" + ReservaDAO.EM_ATRASO + "'))";
+    private static final String FROTA_LEGADA = "quantidade + " + EM_ABERTO;
+
+    static final String SQL_EXCLUIR = "DELETE FROM tab_veiculos WHERE id=?";
+    static final String SQL_RETIRAR_UNIDADE = "UPDATE tab_veiculos SET quantidade = quantidade - 1 WHERE id = ?";
+    static final String SQL_DEVOLVER_UNIDADE = "UPDATE tab_veiculos SET quantidade = quantidade + 1 WHERE id = ?";
+
+    /**
+     * SQL fixo do DAO para uma forma de ler a frota (com ou sem a coluna {@code frota}).
+     */
+    private record Sql(String[][] listar, String buscarId, String inserir, String atualizar, String travar) {
+        static Sql montar(boolean comColuna) {
+            String frota = comColuna ? "COALESCE(frota, " + FROTA_LEGADA + ")" : FROTA_LEGADA;
+            String select = "SELECT id, marca, modelo, cor, ano, " + frota + " AS frota FROM tab_veiculos";
+            String colunaFrota = comColuna ? ", frota=?" : "";
+            return new Sql(new String[][]{ // [filtro][0 = sem texto, 1 = com texto]
+                    { select + " ORDER BY id ASC",     select + " WHERE marca LIKE ? OR modelo LIKE ? ORDER BY id ASC" },
+                    { select + " ORDER BY marca ASC",  select + " WHERE marca LIKE ? ORDER BY marca ASC" },
+                    { select + " ORDER BY modelo ASC", select + " WHERE modelo LIKE ? ORDER BY modelo ASC" },
+                    { select + " ORDER BY id ASC",     select + " WHERE id = ? ORDER BY id ASC" }
+            }, select + " WHERE id = ?",
+                    "INSERT INTO tab_veiculos (marca, modelo, cor, ano, quantidade" + (comColuna ? ", frota" : "")
+                            + ") VALUES (?,?,?,?,?" + (comColuna ? ",?" : "") + ")",
+                    // O estoque acompanha a frota nova, descontadas as reservas em aberto
+                    "UPDATE tab_veiculos SET marca=?, modelo=?, cor=?, ano=?, quantidade = ? - " + EM_ABERTO + colunaFrota + " WHERE id=?",
+                    // Bloqueia só a linha do veículo (sem subconsulta, que bloquearia também as reservas)
+                    "SELECT " + (comColuna ? "frota" : "NULL") + ", quantidade FROM tab_veiculos WHERE id = ? FOR UPDATE");
+        }
+    }
+
+    private static final Sql COM_COLUNA = Sql.montar(true);
+    private static final Sql LEGADO = Sql.montar(false);
+
+    private static Sql sql() {
+        return MigracoesBanco.aplicada(MIGRACAO_FROTA) ? COM_COLUNA : LEGADO;
+    }
+
+    private final Connection conn;
+
+    public VeiculoDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    /**
+     * Lista veículos aplicando o filtro da tela.
+     * @param texto Texto da busca (null ou vazio lista todos). Para {@link Filtro#ID} deve ser numérico.
+     */
+    public List<Veiculo> listar(Filtro filtro, String texto) throws SQLException {
+        boolean temFiltro = texto != null && !texto.trim().isEmpty();
+        try (PreparedStatement pst = conn.prepareStatement(sql().listar()[filtro.ordinal()][temFiltro ? 1 : 0])) {
+            if (temFiltro) {
+                String buscaLike = "%" + texto + "%";
+                switch (filtro) {
+                    case GERAL: pst.setString(1, buscaLike); pst.setString(2, buscaLike); break;
+                    case ID: pst.setInt(1, Integer.parseInt(texto)); break;
+                    default: pst.setString(1, buscaLike); break;
+                }
+            }
+            List<Veiculo> veiculos = new ArrayList<>();
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) veiculos.add(mapear(rs));
+            }
+            return veiculos;
+        }
+    }
+
+    public Veiculo buscarPorId(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql().buscarId())) {
+            pst.setInt(1, id);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? mapear(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Insere o veículo e preenche o id gerado pelo banco no próprio objeto.
+     */
+    public void inserir(Veiculo v) throws SQLException {
+        Sql sql = sql();
+        try (PreparedStatement pst = conn.prepareStatement(sql.inserir(), Statement.RETURN_GENERATED_KEYS)) {
+            pst.setString(1, v.getMarca());
+            pst.setString(2, v.getModelo());
+            pst.setString(3, v.getCor());
+            pst.setInt(4, v.getAno());
+            pst.setInt(5, v.getQuantidade()); // Veículo novo: estoque = frota
+            if (sql == COM_COLUNA) pst.setInt(6, v.getQuantidade());
+            pst.executeUpdate();
+            try (ResultSet chaves = pst.getGeneratedKeys()) {
+                if (chaves.next()) v.setId(chaves.getInt(1));
+            }
+        }
+    }
+
+    public void atualizar(Veiculo v) throws SQLException {
+        Sql sql = sql();
+        try (PreparedStatement pst = conn.prepareStatement(sql.atualizar())) {
+            pst.setString(1, v.getMarca());
+            pst.setString(2, v.getModelo());
+            pst.setString(3, v.getCor());
+            pst.setInt(4, v.getAno());
+            pst.setInt(5, v.getQuantidade());
+            int i = 6;
+            if (sql == COM_COLUNA) pst.setInt(i++, v.getQuantidade());
+            pst.setInt(i, v.getId());
+            pst.executeUpdate();
+        }
+    }
+
+    public void excluir(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_EXCLUIR)) {
+            pst.setInt(1, id);
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Linha do veículo bloqueada por {@link #travar}.
+     * @param frota null se ainda não gravada (migração pendente ou veículo cadastrado por versão anterior).
+     * @param estoque Estoque legado ({@code quantidade}).
+     */
+    public record Travado(Integer frota, int estoque) {
+        /**
+         * @param emAberto Reservas em aberto do veículo, lidas com a linha já bloqueada.
+         */
+        public int frota(int emAberto) {
+            return frota != null ? frota : estoque + emAberto;
+        }
+    }
+
+    /**
+     * Bloqueia a linha do veículo até o commit/rollback: reservas do mesmo veículo são verificadas
+     * uma de cada vez. Deve ser chamado dentro de uma transação.
+     * @return null se o veículo não existir.
+     */
+    public Travado travar(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(sql().travar())) {
+            pst.setInt(1, id);
+            try (ResultSet rs = pst.executeQuery()) {
+                if (!rs.next()) return null;
+                int frota = rs.getInt(1);
+                return new Travado(rs.wasNull() ? null : frota, rs.getInt(2));
+            }
+        }
+    }
+
+    /**
+     * Desconta uma unidade do estoque legado ({@code quantidade}) na criação de uma reserva.
+     * Pode ficar negativo com reservas futuras que não se sobrepõem; as versões anteriores
+     * apenas deixam de oferecer o veículo.
+     */
+    public void retirarUnidade(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_RETIRAR_UNIDADE)) {
+            pst.setInt(1, id);
+            pst.executeUpdate();
+        }
+    }
+
+    /**
+     * Devolve a unidade ao estoque legado ({@code quantidade}) na devolução da reserva.
+     */
+    public void devolverUnidade(int id) throws SQLException {
+        try (PreparedStatement pst = conn.prepareStatement(SQL_DEVOLVER_UNIDADE)) {
+            pst.setInt(1, id);
+            pst.executeUpdate();
+        }
+    }
+
+    static Veiculo mapear(ResultSet rs) throws SQLException {
+        Veiculo v = new Veiculo();
+        v.setId(rs.getInt("id"));
+        v.setMarca(rs.getString("marca"));
+        v.setModelo(rs.getString("modelo"));
+        v.setCor(rs.getString("cor"));
+        v.setAno(rs.getInt("ano"));
+        v.setQuantidade(rs.getInt("frota"));
+        return v;
+    }
+
+    /**
+     * Formatos de SQL fixos deste DAO (aquecimento do cache de statements).
+     */
+    static List<String> sqlFixos() {
+        Sql sql = sql();
+        List<String> sqls = new ArrayList<>();
+        for (String[] variantes : sql.listar()) { sqls.add(variantes[0]); sqls.add(variantes[1]); }
+        sqls.addAll(List.of(sql.buscarId(), sql.inserir(), sql.atualizar(), SQL_EXCLUIR, sql.travar(), SQL_RETIRAR_UNIDADE, SQL_DEVOLVER_UNIDADE));
+        return sqls;
+    }
+}
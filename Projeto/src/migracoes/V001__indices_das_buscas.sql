@@ -0,0 +1,12 @@
+# Indices da busca do historico, da varredura de atrasos e da disponibilidade.
+# Bancos criados pelo script "Banco de dados.sql" ja os tem: indice existente conta como aplicado.
+
+# Historico: busca por placa (BuscaReservas)
+create index idx_reservas_placa on tab_reservas(placa);
+# Varredura de atrasos (VarreduraAtrasos) e devolucao
+create index idx_reservas_situacao_entrega on tab_reservas(situacao, data_entrega);
+# Disponibilidade por periodo (DisponibilidadeVeiculos / ServicoReserva) e indicadores do Dashboard
+create index idx_reservas_veiculo_situacao on tab_reservas(id_veiculo, situacao);
+# Historico: busca por nome do cliente e por marca/modelo/cor
+create fulltext index ft_clientes_nome on tab_clientes(nome);
+create fulltext index ft_veiculos_busca on tab_veiculos(marca, modelo, cor);
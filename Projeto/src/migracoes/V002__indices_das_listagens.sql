@@ -0,0 +1,8 @@
+# Indices das listagens filtradas e ordenadas pelas telas.
+
+# Clientes: ordenacao por nome e filtro por nome; cobre as colunas da listagem (cpf e a chave primaria),
+# entao o filtro LIKE '%texto%' percorre so o indice e a ordenacao dispensa o filesort
+create index idx_clientes_nome on tab_clientes(nome, data_nasc, id);
+# Dashboard: filtro e ordenacao por marca (modelo em seguida) e por modelo
+create index idx_veiculos_marca_modelo on tab_veiculos(marca, modelo);
+create index idx_veiculos_modelo on tab_veiculos(modelo);
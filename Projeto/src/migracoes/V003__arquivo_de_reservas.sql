@@ -0,0 +1,8 @@
+# Arquivo das reservas finalizadas (ArquivoReservas): mesma estrutura e indices de tab_reservas.
+# As reservas sao movidas com o mesmo id, entao o historico com arquivo e uma uniao sem repeticoes.
+create table tab_reservas_arquivo like tab_reservas;
+alter table tab_reservas_arquivo add column arquivada_em timestamp not null default current_timestamp;
+# CREATE TABLE ... LIKE nao copia as chaves estrangeiras: cliente ou veiculo com historico
+# arquivado continua sem poder ser excluido
+alter table tab_reservas_arquivo add constraint fk_arquivo_cliente foreign key (id_cliente) references tab_clientes(id);
+alter table tab_reservas_arquivo add constraint fk_arquivo_veiculo foreign key (id_veiculo) references tab_veiculos(id);
@@ -0,0 +1,4 @@
+# Exportacao mensal do historico (ExportadorReservas): reservas por periodo de retirada,
+# nas reservas ativas e no arquivo
+create index idx_reservas_data_reserva on tab_reservas(data_reserva);
+create index idx_arquivo_data_reserva on tab_reservas_arquivo(data_reserva);
@@ -0,0 +1,6 @@
+# Frota de cada veiculo em coluna propria. tab_veiculos.quantidade continua sendo o estoque restante
+# (frota menos as reservas em aberto): as versoes anteriores do programa ainda o leem e o ajustam a cada
+# reserva e devolucao, e as versoes novas tambem, enquanto as estacoes sao atualizadas.
+# Veiculo cadastrado por versao anterior fica com frota nula e e lido como estoque + reservas em aberto.
+alter table tab_veiculos add column frota int null;
+update tab_veiculos v set frota = quantidade + (select count(*) from tab_reservas r where r.id_veiculo = v.id and r.situacao in ('Utilizando', 'Em atrazo')) where frota is null;